@@ -26,10 +26,12 @@ import com.googlesource.gerrit.plugins.oauth.cognito.CognitoOAuthService;
 import com.googlesource.gerrit.plugins.oauth.dex.DexOAuthService;
 import com.googlesource.gerrit.plugins.oauth.discovery.DiscoveryOAuthService;
 import com.googlesource.gerrit.plugins.oauth.facebook.FacebookOAuthService;
+import com.googlesource.gerrit.plugins.oauth.generic.GenericOAuthService;
 import com.googlesource.gerrit.plugins.oauth.github.GitHubOAuthService;
 import com.googlesource.gerrit.plugins.oauth.gitlab.GitLabOAuthService;
 import com.googlesource.gerrit.plugins.oauth.google.GoogleOAuthService;
 import com.googlesource.gerrit.plugins.oauth.keycloak.KeycloakOAuthService;
+import com.googlesource.gerrit.plugins.oauth.lemon.LemonLDAPHttpModule;
 import com.googlesource.gerrit.plugins.oauth.lemon.LemonLDAPOAuthService;
 import com.googlesource.gerrit.plugins.oauth.phabricator.PhabricatorOAuthService;
 import com.googlesource.gerrit.plugins.oauth.sap.SAPIasOAuthService;
@@ -55,11 +57,19 @@ class HttpModule extends AbstractModule {
     install(new OAuthServiceModule(cfgFactory, DexOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, DiscoveryOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, FacebookOAuthService.class));
+    install(new OAuthServiceModule(cfgFactory, GenericOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, GitHubOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, GitLabOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, GoogleOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, KeycloakOAuthService.class));
-    install(new OAuthServiceModule(cfgFactory, LemonLDAPOAuthService.class));
+    install(
+        new OAuthServiceModule(cfgFactory, LemonLDAPOAuthService.class) {
+          @Override
+          public void configureAdditionalServiceComponents() {
+            install(
+                new LemonLDAPHttpModule(cfgFactory.create(LemonLDAPOAuthService.PROVIDER_NAME)));
+          }
+        });
     install(new OAuthServiceModule(cfgFactory, PhabricatorOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, TuleapOAuthService.class));
     install(new OAuthServiceModule(cfgFactory, SAPIasOAuthService.class));
@@ -33,6 +33,7 @@ import com.googlesource.gerrit.plugins.oauth.cognito.CognitoOAuthService;
 import com.googlesource.gerrit.plugins.oauth.dex.DexOAuthService;
 import com.googlesource.gerrit.plugins.oauth.discovery.DiscoveryOAuthService;
 import com.googlesource.gerrit.plugins.oauth.facebook.FacebookOAuthService;
+import com.googlesource.gerrit.plugins.oauth.generic.GenericOAuthService;
 import com.googlesource.gerrit.plugins.oauth.github.GitHubOAuthService;
 import com.googlesource.gerrit.plugins.oauth.gitlab.GitLabOAuthService;
 import com.googlesource.gerrit.plugins.oauth.google.GoogleOAuthService;
@@ -83,6 +84,7 @@ public class InitOAuth implements InitStep {
   private final Section authentikOAuthProviderSection;
   private final Section cognitoOAuthProviderSection;
   private final Section discoveryOAuthProviderSection;
+  private final Section genericOAuthProviderSection;
 
   @Inject
   InitOAuth(ConsoleUI ui, Section.Factory sections, @PluginName String pluginName) {
@@ -108,6 +110,7 @@ public class InitOAuth implements InitStep {
     this.cognitoOAuthProviderSection = getConfigSection(CognitoOAuthService.class);
     this.iasOAuthProviderSection = getConfigSection(SAPIasOAuthService.class);
     this.discoveryOAuthProviderSection = getConfigSection(DiscoveryOAuthService.class);
+    this.genericOAuthProviderSection = getConfigSection(GenericOAuthService.class);
   }
 
   @Override
@@ -267,6 +270,18 @@ public class InitOAuth implements InitStep {
       discoveryOAuthProviderSection.string(
           "Enable PKCE for Discovery OAuth provider?", ENABLE_PKCE, "false");
     }
+
+    boolean configureGenericOAuthProvider =
+        ui.yesno(
+            isConfigured(genericOAuthProviderSection),
+            "Use generic OAuth provider for Gerrit login?");
+    if (configureGenericOAuthProvider && configureOAuth(genericOAuthProviderSection)) {
+      checkRootUrl(
+          genericOAuthProviderSection.string("Authorization endpoint URL", "authorize-url", null));
+      checkRootUrl(genericOAuthProviderSection.string("Token endpoint URL", "token-url", null));
+      checkRootUrl(
+          genericOAuthProviderSection.string("User info endpoint URL", "userinfo-url", null));
+    }
   }
 
   /**
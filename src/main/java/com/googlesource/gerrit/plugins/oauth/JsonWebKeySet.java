@@ -0,0 +1,182 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.common.Nullable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The RSA signing keys published by an OpenID Connect provider at its {@code jwks_uri}.
+ *
+ * <p>The keys are fetched on first use and kept in memory. When a token is signed with a key ID
+ * that isn't known, the keys are fetched again, so that rotated keys are picked up without
+ * restarting Gerrit. To avoid that tokens with made-up key IDs cause a request each, the keys are
+ * refreshed at most once per {@code minRefreshInterval}.
+ */
+public class JsonWebKeySet {
+  private static final Logger log = LoggerFactory.getLogger(JsonWebKeySet.class);
+  public static final Duration DEFAULT_MIN_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+  private final OAuth20Service service;
+  private final String jwksUrl;
+  private final Duration minRefreshInterval;
+  private final Clock clock;
+
+  private volatile ImmutableMap<String, PublicKey> keys = ImmutableMap.of();
+  private Instant lastRefresh = Instant.EPOCH;
+
+  public JsonWebKeySet(OAuth20Service service, String jwksUrl) {
+    this(service, jwksUrl, DEFAULT_MIN_REFRESH_INTERVAL, Clock.systemUTC());
+  }
+
+  JsonWebKeySet(OAuth20Service service, String jwksUrl, Duration minRefreshInterval, Clock clock) {
+    this.service = service;
+    this.jwksUrl = jwksUrl;
+    this.minRefreshInterval = minRefreshInterval;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the key with the ID {@code kid}, or the only key if the token doesn't name one.
+   * Returns {@code null} if there is no such key.
+   */
+  @Nullable
+  public PublicKey getKey(@Nullable String kid) throws IOException {
+    PublicKey key = lookup(keys, kid);
+    if (key != null) {
+      return key;
+    }
+    synchronized (this) {
+      key = lookup(keys, kid);
+      if (key != null) {
+        return key;
+      }
+      Instant now = clock.instant();
+      if (now.isBefore(lastRefresh.plus(minRefreshInterval))) {
+        return null;
+      }
+      lastRefresh = now;
+      keys = fetch();
+      return lookup(keys, kid);
+    }
+  }
+
+  /** Verifies the signature of {@code jwt} with the matching key of this key set. */
+  public void verify(SignedJwt jwt) throws IOException {
+    PublicKey key = getKey(jwt.getKeyId());
+    if (key == null) {
+      throw new IOException(String.format("Unknown JWT signing key: %s", jwt.getKeyId()));
+    }
+    if (!jwt.verifySignature(key)) {
+      throw new IOException("Invalid JWT signature");
+    }
+  }
+
+  @Nullable
+  private static PublicKey lookup(ImmutableMap<String, PublicKey> keys, @Nullable String kid) {
+    if (kid == null) {
+      return keys.size() == 1 ? keys.values().iterator().next() : null;
+    }
+    return keys.get(kid);
+  }
+
+  private ImmutableMap<String, PublicKey> fetch() throws IOException {
+    OAuthRequest request = new OAuthRequest(Verb.GET, jwksUrl);
+    try (Response response = service.execute(request)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        throw new IOException(
+            String.format(
+                "Status %s (%s) for request %s",
+                response.getCode(), response.getBody(), request.getUrl()));
+      }
+      ImmutableMap<String, PublicKey> fetched = parse(response.getBody());
+      log.debug("Fetched {} signing keys from {}", fetched.size(), jwksUrl);
+      return fetched;
+    } catch (ExecutionException | InterruptedException e) {
+      throw new IOException("Cannot retrieve signing keys from " + jwksUrl, e);
+    }
+  }
+
+  /** Parses the RSA signing keys of a JWK set, keys of other types or uses are skipped. */
+  static ImmutableMap<String, PublicKey> parse(String json) throws IOException {
+    JsonElement jwks;
+    try {
+      jwks = JsonParser.parseString(json);
+    } catch (JsonParseException e) {
+      throw new IOException("Invalid JWK set", e);
+    }
+    JsonElement keys = jwks.isJsonObject() ? jwks.getAsJsonObject().get("keys") : null;
+    if (isNull(keys) || !keys.isJsonArray()) {
+      throw new IOException("JWK set doesn't contain keys field");
+    }
+    ImmutableMap.Builder<String, PublicKey> result = ImmutableMap.builder();
+    int i = 0;
+    for (JsonElement e : keys.getAsJsonArray()) {
+      if (!e.isJsonObject()) {
+        continue;
+      }
+      JsonObject jwk = e.getAsJsonObject();
+      String use = asString(jwk.get("use"));
+      if (!"RSA".equals(asString(jwk.get("kty"))) || (use != null && !use.equals("sig"))) {
+        continue;
+      }
+      String kid = asString(jwk.get("kid"));
+      result.put(kid != null ? kid : "#" + i++, toRsaKey(jwk));
+    }
+    return result.buildKeepingLast();
+  }
+
+  private static PublicKey toRsaKey(JsonObject jwk) throws IOException {
+    String n = asString(jwk.get("n"));
+    String e = asString(jwk.get("e"));
+    if (n == null || e == null) {
+      throw new IOException("RSA key doesn't contain n and e fields");
+    }
+    try {
+      Base64.Decoder decoder = Base64.getUrlDecoder();
+      return KeyFactory.getInstance("RSA")
+          .generatePublic(
+              new RSAPublicKeySpec(
+                  new BigInteger(1, decoder.decode(n)), new BigInteger(1, decoder.decode(e))));
+    } catch (IllegalArgumentException | GeneralSecurityException ex) {
+      throw new IOException("Invalid RSA key", ex);
+    }
+  }
+}
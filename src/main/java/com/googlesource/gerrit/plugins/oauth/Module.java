@@ -17,13 +17,35 @@ package com.googlesource.gerrit.plugins.oauth;
 import com.google.gerrit.extensions.annotations.Exports;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.server.account.AccountExternalIdCreator;
 import com.google.gerrit.server.account.externalids.ExternalIdFactory;
 import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.oauth.authentik.AuthentikModule;
+import com.googlesource.gerrit.plugins.oauth.authentik.AuthentikOAuthService;
+import com.googlesource.gerrit.plugins.oauth.azure.AzureActiveDirectoryService;
+import com.googlesource.gerrit.plugins.oauth.azure.AzureModule;
+import com.googlesource.gerrit.plugins.oauth.cas.CasModule;
+import com.googlesource.gerrit.plugins.oauth.cas.CasOAuthLoginProvider;
+import com.googlesource.gerrit.plugins.oauth.cas.CasOAuthService;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubModule;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubOAuthLoginProvider;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubOAuthService;
+import com.googlesource.gerrit.plugins.oauth.gitlab.GitLabModule;
+import com.googlesource.gerrit.plugins.oauth.gitlab.GitLabOAuthLoginProvider;
+import com.googlesource.gerrit.plugins.oauth.gitlab.GitLabOAuthService;
+import com.googlesource.gerrit.plugins.oauth.keycloak.KeycloakModule;
+import com.googlesource.gerrit.plugins.oauth.keycloak.KeycloakOAuthLoginProvider;
+import com.googlesource.gerrit.plugins.oauth.keycloak.KeycloakOAuthService;
+import com.googlesource.gerrit.plugins.oauth.lemon.LemonLDAPModule;
+import com.googlesource.gerrit.plugins.oauth.lemon.LemonLDAPOAuthService;
 import com.googlesource.gerrit.plugins.oauth.sap.SAPIasModule;
 import com.googlesource.gerrit.plugins.oauth.sap.SAPIasOAuthLoginProvider;
+import com.googlesource.gerrit.plugins.oauth.tuleap.TuleapModule;
+import com.googlesource.gerrit.plugins.oauth.tuleap.TuleapOAuthService;
 import java.util.List;
 import org.eclipse.jgit.lib.Config;
 
@@ -52,6 +74,8 @@ public class Module extends AbstractModule {
   protected void configure() {
     bind(OAuthPluginConfigFactory.class);
     bind(OAuth20ServiceFactory.class);
+    bind(OAuthRequestExecutor.class);
+    DynamicSet.bind(binder(), LifecycleListener.class).to(OAuthRequestExecutor.class);
     for (String provider : configuredProviders) {
       bind(AccountExternalIdCreator.class)
           .annotatedWith(Exports.named(provider))
@@ -62,6 +86,38 @@ public class Module extends AbstractModule {
 
     boolean oAuthModuleInstalled =
         installOAuthModule(SAPIasOAuthLoginProvider.class, new SAPIasModule());
+    oAuthModuleInstalled |=
+        installOAuthModule(
+            GitHubOAuthLoginProvider.class,
+            new GitHubModule(cfg, getProviderSection(GitHubOAuthService.PROVIDER_NAME)));
+    oAuthModuleInstalled |=
+        installOAuthModule(
+            KeycloakOAuthLoginProvider.class,
+            new KeycloakModule(cfg, getProviderSection(KeycloakOAuthService.PROVIDER_NAME)));
+    oAuthModuleInstalled |=
+        installOAuthModule(
+            GitLabOAuthLoginProvider.class,
+            new GitLabModule(cfg, getProviderSection(GitLabOAuthService.PROVIDER_NAME)));
+    oAuthModuleInstalled |=
+        installOAuthModule(
+            CasOAuthLoginProvider.class,
+            new CasModule(cfg, getProviderSection(CasOAuthService.PROVIDER_NAME)));
+
+    if (isConfigured(AzureActiveDirectoryService.PROVIDER_NAME)) {
+      install(
+          new AzureModule(cfg, getProviderSection(AzureActiveDirectoryService.PROVIDER_NAME)));
+    }
+    if (isConfigured(AuthentikOAuthService.PROVIDER_NAME)) {
+      install(
+          new AuthentikModule(cfg, getProviderSection(AuthentikOAuthService.PROVIDER_NAME)));
+    }
+    if (isConfigured(TuleapOAuthService.PROVIDER_NAME)) {
+      install(new TuleapModule(cfg, getProviderSection(TuleapOAuthService.PROVIDER_NAME)));
+    }
+    if (isConfigured(LemonLDAPOAuthService.PROVIDER_NAME)) {
+      install(
+          new LemonLDAPModule(cfg, getProviderSection(LemonLDAPOAuthService.PROVIDER_NAME)));
+    }
 
     if (!oAuthModuleInstalled) {
       bind(OAuthLoginProvider.class)
@@ -73,11 +129,18 @@ public class Module extends AbstractModule {
   private boolean installOAuthModule(
       Class<? extends OAuthLoginProvider> loginClass, AbstractModule oAuthModule) {
     String loginProviderName = loginClass.getAnnotation(OAuthServiceProviderConfig.class).name();
-    String cfgSuffix = OAuthPluginConfigFactory.getConfigSuffix(loginProviderName);
-    if (cfg.getString("plugin", pluginName + cfgSuffix, InitOAuth.CLIENT_ID) != null) {
+    if (isConfigured(loginProviderName)) {
       install(oAuthModule);
       return true;
     }
     return false;
   }
+
+  private boolean isConfigured(String providerName) {
+    return cfg.getString("plugin", getProviderSection(providerName), InitOAuth.CLIENT_ID) != null;
+  }
+
+  private String getProviderSection(String providerName) {
+    return pluginName + OAuthPluginConfigFactory.getConfigSuffix(providerName);
+  }
 }
@@ -0,0 +1,157 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.entities.GroupDescription;
+import com.google.gerrit.entities.GroupReference;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.account.GroupBackend;
+import com.google.gerrit.server.account.GroupMembership;
+import com.google.gerrit.server.account.ListGroupMembership;
+import com.google.gerrit.server.account.externalids.ExternalId;
+import com.google.gerrit.server.project.ProjectState;
+import java.util.Collection;
+
+/**
+ * Exposes the groups that an OAuth provider reported for a user at sign-in as Gerrit groups.
+ *
+ * <p>The groups are identified by the UUID {@code <provider>:<group id>}. The membership is looked
+ * up by the ID of the user's external ID of the provider, so it is only known for users that have
+ * signed in with the provider.
+ */
+public abstract class OAuthGroupBackend implements GroupBackend {
+  private final String uuidPrefix;
+  private final String namePrefix;
+  private final String extIdScheme;
+
+  protected OAuthGroupBackend(String providerName) {
+    this.uuidPrefix = providerName + ":";
+    this.namePrefix = providerName + "/";
+    this.extIdScheme = OAuthServiceProviderExternalIdScheme.create(providerName);
+  }
+
+  /**
+   * Returns the IDs of the groups the user with the external ID {@code <scheme>:<userId>} is a
+   * member of, as far as they are known.
+   */
+  protected abstract ImmutableSet<String> getGroupIds(String userId);
+
+  /** Returns the display name of the group, defaults to {@code <provider>/<group id>}. */
+  protected String getGroupName(String groupId) {
+    return namePrefix + groupId;
+  }
+
+  protected AccountGroup.UUID toUuid(String groupId) {
+    return AccountGroup.uuid(uuidPrefix + groupId);
+  }
+
+  /** Returns the group ID of {@code uuid}, or {@code null} if it isn't a group of the provider. */
+  @Nullable
+  protected String toGroupId(AccountGroup.UUID uuid) {
+    return handles(uuid) ? uuid.get().substring(uuidPrefix.length()) : null;
+  }
+
+  /**
+   * Returns the ID of the first external ID of the provider of the user, or {@code null} if the
+   * user never signed in with the provider.
+   */
+  @Nullable
+  protected String getUserId(CurrentUser user) {
+    if (!user.isIdentifiedUser()) {
+      return null;
+    }
+    for (ExternalId extId : user.asIdentifiedUser().state().externalIds()) {
+      if (extId.key().isScheme(extIdScheme)) {
+        return extId.key().id();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean handles(AccountGroup.UUID uuid) {
+    return uuid != null && uuid.get().startsWith(uuidPrefix);
+  }
+
+  @Override
+  @Nullable
+  public GroupDescription.Basic get(AccountGroup.UUID uuid) {
+    if (!handles(uuid)) {
+      return null;
+    }
+    String name = getGroupName(toGroupId(uuid));
+    return new GroupDescription.Basic() {
+      @Override
+      public AccountGroup.UUID getGroupUUID() {
+        return uuid;
+      }
+
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      @Nullable
+      public String getEmailAddress() {
+        return null;
+      }
+
+      @Override
+      @Nullable
+      public String getUrl() {
+        return null;
+      }
+    };
+  }
+
+  /**
+   * The provider groups can't be listed, so only a complete group UUID is suggested, which allows
+   * to add the group to access rights.
+   */
+  @Override
+  public Collection<GroupReference> suggest(String name, @Nullable ProjectState project) {
+    if (name.length() <= uuidPrefix.length() || !name.startsWith(uuidPrefix)) {
+      return ImmutableList.of();
+    }
+    AccountGroup.UUID uuid = AccountGroup.uuid(name);
+    return ImmutableList.of(GroupReference.create(uuid, get(uuid).getName()));
+  }
+
+  @Override
+  public GroupMembership membershipsOf(CurrentUser user) {
+    if (!user.isIdentifiedUser()) {
+      return GroupMembership.EMPTY;
+    }
+    ImmutableSet.Builder<AccountGroup.UUID> groups = ImmutableSet.builder();
+    for (ExternalId extId : user.asIdentifiedUser().state().externalIds()) {
+      if (extId.key().isScheme(extIdScheme)) {
+        for (String groupId : getGroupIds(extId.key().id())) {
+          groups.add(toUuid(groupId));
+        }
+      }
+    }
+    return new ListGroupMembership(groups.build());
+  }
+
+  @Override
+  public boolean isVisibleToAll(AccountGroup.UUID uuid) {
+    return false;
+  }
+}
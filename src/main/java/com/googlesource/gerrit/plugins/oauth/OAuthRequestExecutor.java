@@ -0,0 +1,51 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Runs requests to the OAuth providers that are issued concurrently with the main user info
+ * request of a login, so that they don't add to its latency.
+ */
+@Singleton
+public class OAuthRequestExecutor implements LifecycleListener {
+  private static final int POOL_SIZE = 4;
+
+  private final ScheduledExecutorService executor;
+
+  @Inject
+  OAuthRequestExecutor(WorkQueue workQueue) {
+    executor = workQueue.createQueue(POOL_SIZE, "OAuth-Requests");
+  }
+
+  public <T> Future<T> submit(Callable<T> request) {
+    return executor.submit(request);
+  }
+
+  @Override
+  public void start() {}
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.google.gerrit.json.OutputFormat.JSON;
+
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.googlesource.gerrit.plugins.oauth.discovery.DiscoveryOpenIdConnect;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Verifies the tokens issued by an OpenID Connect provider.
+ *
+ * <p>The issuer and the signing keys are taken from the discovery metadata of the provider, which
+ * is fetched when the first token is verified and then kept in memory. The signing keys are
+ * refreshed when the provider rotates them.
+ */
+public class OpenIdIssuer {
+  private record Metadata(String issuer, JsonWebKeySet keys) {}
+
+  private final OAuth20Service service;
+  private final String metadataUrl;
+  private volatile Metadata metadata;
+
+  public OpenIdIssuer(OAuth20Service service, String metadataUrl) {
+    this.service = service;
+    this.metadataUrl = metadataUrl;
+  }
+
+  /**
+   * Verifies that {@code token} was issued by the provider for {@code clientId}, is signed by it
+   * and is not expired.
+   */
+  public void verify(SignedJwt token, String clientId) throws IOException {
+    Metadata m = getMetadata();
+    m.keys().verify(token);
+    token.checkClaims(m.issuer(), clientId, Instant.now());
+  }
+
+  /** Verifies that {@code token} is signed by the provider and returns its issuer. */
+  public String verifySignature(SignedJwt token) throws IOException {
+    Metadata m = getMetadata();
+    m.keys().verify(token);
+    return m.issuer();
+  }
+
+  private Metadata getMetadata() throws IOException {
+    Metadata m = metadata;
+    if (m == null) {
+      synchronized (this) {
+        m = metadata;
+        if (m == null) {
+          m = fetchMetadata();
+          metadata = m;
+        }
+      }
+    }
+    return m;
+  }
+
+  private Metadata fetchMetadata() throws IOException {
+    OAuthRequest request = new OAuthRequest(Verb.GET, metadataUrl);
+    try (Response response = service.execute(request)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        throw new IOException(
+            String.format(
+                "Status %s (%s) for request %s",
+                response.getCode(), response.getBody(), request.getUrl()));
+      }
+      DiscoveryOpenIdConnect discovery =
+          JSON.newGson().fromJson(response.getBody(), DiscoveryOpenIdConnect.class);
+      if (discovery == null || discovery.getIssuer() == null || discovery.getJwksUri() == null) {
+        throw new IOException("OpenID Connect metadata is incomplete: " + metadataUrl);
+      }
+      return new Metadata(
+          discovery.getIssuer(), new JsonWebKeySet(service, discovery.getJwksUri()));
+    } catch (ExecutionException | InterruptedException e) {
+      throw new IOException("Cannot retrieve OpenID Connect metadata from " + metadataUrl, e);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Helpers for providers that don't return the email with the profile of the user, but list the
+ * email addresses of the user in a separate resource.
+ */
+public class PrimaryEmails {
+  private static final String EMAIL = "email";
+
+  /**
+   * Returns the {@code email} member of the first object in the {@code emails} array whose {@code
+   * primaryMember} and {@code verifiedMember} are both true, or {@code null} if there is none.
+   */
+  @Nullable
+  public static String find(
+      @Nullable JsonElement emails, String primaryMember, String verifiedMember) {
+    if (isNull(emails) || !emails.isJsonArray()) {
+      return null;
+    }
+    for (JsonElement e : emails.getAsJsonArray()) {
+      if (!e.isJsonObject()) {
+        continue;
+      }
+      JsonObject email = e.getAsJsonObject();
+      if (isTrue(email.get(primaryMember)) && isTrue(email.get(verifiedMember))) {
+        return asString(email.get(EMAIL));
+      }
+    }
+    return null;
+  }
+
+  /** Returns {@code userInfo} with its email set to {@code email}, unless it is {@code null}. */
+  public static OAuthUserInfo withEmail(OAuthUserInfo userInfo, @Nullable String email) {
+    if (email == null) {
+      return userInfo;
+    }
+    return new OAuthUserInfo(
+        userInfo.getExternalId(),
+        userInfo.getUserName(),
+        email,
+        userInfo.getDisplayName(),
+        userInfo.getClaimedIdentity());
+  }
+
+  private static boolean isTrue(JsonElement e) {
+    return !isNull(e) && e.isJsonPrimitive() && e.getAsBoolean();
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.common.Nullable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * A JSON Web Token signed with JSON Web Signature (RFC 7515, RFC 7519).
+ *
+ * <p>The header and the claims are decoded once when the token is parsed. Only the RSA signature
+ * algorithms {@code RS256}, {@code RS384} and {@code RS512} are supported, which are the ones used
+ * by the OpenID Connect providers.
+ */
+public final class SignedJwt {
+  private static final Duration CLOCK_SKEW = Duration.ofMinutes(2);
+  private static final ImmutableMap<String, String> ALGORITHMS =
+      ImmutableMap.of(
+          "RS256", "SHA256withRSA",
+          "RS384", "SHA384withRSA",
+          "RS512", "SHA512withRSA");
+
+  private final JsonObject header;
+  private final JsonObject claims;
+  private final byte[] signingInput;
+  private final byte[] signature;
+
+  private SignedJwt(JsonObject header, JsonObject claims, byte[] signingInput, byte[] signature) {
+    this.header = header;
+    this.claims = claims;
+    this.signingInput = signingInput;
+    this.signature = signature;
+  }
+
+  public static SignedJwt parse(String jwt) throws IOException {
+    String[] parts = jwt.split("\\.", -1);
+    if (parts.length != 3 || parts[0].isEmpty() || parts[1].isEmpty() || parts[2].isEmpty()) {
+      throw new IOException("Invalid JWT: must be of the form 'header.payload.signature'");
+    }
+    Base64.Decoder decoder = Base64.getUrlDecoder();
+    try {
+      return new SignedJwt(
+          toJsonObject(decoder.decode(parts[0])),
+          toJsonObject(decoder.decode(parts[1])),
+          (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII),
+          decoder.decode(parts[2]));
+    } catch (IllegalArgumentException | JsonParseException e) {
+      throw new IOException("Invalid JWT encoding", e);
+    }
+  }
+
+  private static JsonObject toJsonObject(byte[] json) throws IOException {
+    JsonElement e = JsonParser.parseString(new String(json, StandardCharsets.UTF_8));
+    if (!e.isJsonObject()) {
+      throw new IOException("Invalid JWT: not a JSON Object");
+    }
+    return e.getAsJsonObject();
+  }
+
+  @Nullable
+  public String getKeyId() {
+    return asString(header.get("kid"));
+  }
+
+  @Nullable
+  public String getAlgorithm() {
+    return asString(header.get("alg"));
+  }
+
+  public JsonObject getClaims() {
+    return claims;
+  }
+
+  @Nullable
+  public String getClaim(String name) {
+    JsonElement claim = claims.get(name);
+    return !isNull(claim) && claim.isJsonPrimitive() ? claim.getAsString() : null;
+  }
+
+  /** Returns whether the token was signed with the private key of {@code key}. */
+  public boolean verifySignature(PublicKey key) throws IOException {
+    String algorithm = ALGORITHMS.get(getAlgorithm());
+    if (algorithm == null) {
+      throw new IOException(String.format("Unsupported JWT algorithm: %s", getAlgorithm()));
+    }
+    try {
+      Signature verifier = Signature.getInstance(algorithm);
+      verifier.initVerify(key);
+      verifier.update(signingInput);
+      return verifier.verify(signature);
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Cannot verify JWT signature", e);
+    }
+  }
+
+  /**
+   * Checks the registered claims: the token must be issued by {@code issuer}, be intended for
+   * {@code audience} and must not be expired at {@code now}, allowing for some clock skew.
+   *
+   * @throws IOException describing the first claim that doesn't match
+   */
+  public void checkClaims(String issuer, @Nullable String audience, Instant now)
+      throws IOException {
+    if (!issuer.equals(getClaim("iss"))) {
+      throw new IOException(String.format("Invalid JWT issuer: %s", getClaim("iss")));
+    }
+    if (audience != null && !hasAudience(audience)) {
+      throw new IOException(String.format("Invalid JWT audience: %s", claims.get("aud")));
+    }
+    JsonElement exp = claims.get("exp");
+    if (isNull(exp) || !exp.isJsonPrimitive()) {
+      throw new IOException("JWT doesn't contain exp claim");
+    }
+    if (now.minus(CLOCK_SKEW).isAfter(Instant.ofEpochSecond(exp.getAsLong()))) {
+      throw new IOException("JWT is expired");
+    }
+  }
+
+  /** Returns whether {@code audience} is one of the audiences of the {@code aud} claim. */
+  public boolean hasAudience(String audience) {
+    JsonElement aud = claims.get("aud");
+    if (isNull(aud)) {
+      return false;
+    }
+    if (aud.isJsonArray()) {
+      for (JsonElement e : aud.getAsJsonArray()) {
+        if (audience.equals(asString(e))) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return audience.equals(asString(aud));
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Serializes a set of names, such as the groups or roles of a user, as their count followed by
+ * each name.
+ */
+public enum StringSetSerializer implements CacheSerializer<ImmutableSet<String>> {
+  INSTANCE;
+
+  @Override
+  public byte[] serialize(ImmutableSet<String> groups) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(groups.size());
+      for (String group : groups) {
+        out.writeUTF(group);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot serialize string set", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public ImmutableSet<String> deserialize(byte[] in) {
+    try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(in))) {
+      int size = data.readInt();
+      ImmutableSet.Builder<String> groups = ImmutableSet.builderWithExpectedSize(size);
+      for (int i = 0; i < size; i++) {
+        groups.add(data.readUTF());
+      }
+      return groups.build();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot deserialize string set", e);
+    }
+  }
+}
@@ -0,0 +1,233 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.common.Nullable;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the fields of a user from a JSON user info response in a single streaming pass.
+ *
+ * <p>Each field is mapped to the path of its member in the response, e.g. {@code [email]} or
+ * {@code [profile, email]}. The paths are compiled into a tree once, so that reading follows only
+ * the members on a path and skips all others without parsing them into objects. Reading stops as
+ * soon as all fields are found. A member that is missing, {@code null} or not a scalar leaves its
+ * field {@code null}; for a list the first scalar value is used, unless the path continues with an
+ * index into the list.
+ *
+ * <p>The streaming readers of providers with their own response formats read their values with
+ * {@link #readScalar} and {@link #readFirstScalar}, so that all of them treat values the same way.
+ */
+public class UserInfoExtractor {
+  public enum Field {
+    ID,
+    USERNAME,
+    EMAIL,
+    NAME
+  }
+
+  /** The fields read from a response, {@code null} if not found. */
+  public static final class Profile {
+    private final String[] values = new String[Field.values().length];
+
+    @Nullable
+    public String get(Field field) {
+      return values[field.ordinal()];
+    }
+  }
+
+  /** A member on the path of some fields, and the fields whose path ends here. */
+  private record Node(ImmutableMap<String, Node> children, ImmutableList<Field> fields) {
+    boolean isLeaf() {
+      return children.isEmpty();
+    }
+  }
+
+  private static final Pattern INVALID_ESCAPE = Pattern.compile("~(?![01])");
+
+  private final Node root;
+  private final int fieldCount;
+
+  /**
+   * Creates an extractor for the given fields. Fields without a path are always {@code null}.
+   *
+   * @param paths the path of each field, as the member names, or indexes of lists, to follow from
+   *     the root object
+   */
+  public UserInfoExtractor(Map<Field, List<String>> paths) {
+    MutableNode root = new MutableNode();
+    for (Map.Entry<Field, List<String>> path : paths.entrySet()) {
+      if (path.getValue().isEmpty()) {
+        throw new IllegalArgumentException("Empty path of " + path.getKey());
+      }
+      MutableNode node = root;
+      for (String name : path.getValue()) {
+        node = node.children.computeIfAbsent(name, n -> new MutableNode());
+      }
+      node.fields.add(path.getKey());
+    }
+    this.root = root.compile();
+    this.fieldCount = paths.size();
+  }
+
+  /**
+   * Returns the path of a <a href="https://www.rfc-editor.org/rfc/rfc6901">JSON Pointer</a>, e.g.
+   * {@code [profile, email]} for {@code /profile/email}.
+   *
+   * @throws IllegalArgumentException if {@code pointer} isn't a JSON Pointer to a member
+   */
+  public static ImmutableList<String> parseJsonPointer(String pointer) {
+    if (!pointer.startsWith("/")) {
+      throw new IllegalArgumentException("JSON Pointer must start with '/': " + pointer);
+    }
+    ImmutableList.Builder<String> path = ImmutableList.builder();
+    for (String token : Splitter.on('/').split(pointer.substring(1))) {
+      if (INVALID_ESCAPE.matcher(token).find()) {
+        throw new IllegalArgumentException("Invalid escape in JSON Pointer: " + pointer);
+      }
+      path.add(token.replace("~1", "/").replace("~0", "~"));
+    }
+    return path.build();
+  }
+
+  private static class MutableNode {
+    final Map<String, MutableNode> children = new HashMap<>();
+    final ImmutableList.Builder<Field> fields = ImmutableList.builder();
+
+    Node compile() {
+      ImmutableMap.Builder<String, Node> compiled = ImmutableMap.builder();
+      children.forEach((name, child) -> compiled.put(name, child.compile()));
+      return new Node(compiled.buildOrThrow(), fields.build());
+    }
+  }
+
+  /** Reads the fields from a user info response, which must be a JSON object. */
+  public Profile read(Reader response) throws IOException {
+    JsonReader reader = new JsonReader(response);
+    Profile profile = new Profile();
+    try {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        throw new IOException("Invalid user info: not a JSON Object");
+      }
+      readValue(reader, root, profile, new int[] {fieldCount});
+    } catch (IllegalStateException e) {
+      throw new IOException("Invalid user info", e);
+    }
+    return profile;
+  }
+
+  /**
+   * Reads the value at {@code node} and returns whether reading can stop, because all fields were
+   * found. {@code missing} counts the fields that were not found yet.
+   */
+  private static boolean readValue(JsonReader reader, Node node, Profile profile, int[] missing)
+      throws IOException {
+    JsonToken token = reader.peek();
+    if (token == JsonToken.BEGIN_OBJECT && !node.isLeaf()) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        Node child = node.children().get(reader.nextName());
+        if (child == null) {
+          reader.skipValue();
+        } else if (readValue(reader, child, profile, missing)) {
+          return true;
+        }
+      }
+      reader.endObject();
+      return false;
+    }
+    if (token == JsonToken.BEGIN_ARRAY) {
+      return readArray(reader, node, profile, missing);
+    }
+    String value = readScalar(reader);
+    return value != null && set(node, value, profile, missing);
+  }
+
+  private static boolean readArray(JsonReader reader, Node node, Profile profile, int[] missing)
+      throws IOException {
+    reader.beginArray();
+    for (int i = 0; reader.hasNext(); i++) {
+      Node child = node.children().get(Integer.toString(i));
+      if (child != null) {
+        if (readValue(reader, child, profile, missing)) {
+          return true;
+        }
+      } else if (!node.fields().isEmpty() && reader.peek() != JsonToken.BEGIN_ARRAY) {
+        // The first scalar value of a list is the value of the fields of the list.
+        String value = readScalar(reader);
+        if (value != null && set(node, value, profile, missing)) {
+          return true;
+        }
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endArray();
+    return false;
+  }
+
+  private static boolean set(Node node, String value, Profile profile, int[] missing) {
+    for (Field field : node.fields()) {
+      if (profile.values[field.ordinal()] == null) {
+        profile.values[field.ordinal()] = value;
+        missing[0]--;
+      }
+    }
+    return missing[0] == 0;
+  }
+
+  /** Reads a scalar value, skipping any other value. */
+  @Nullable
+  public static String readScalar(JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case STRING, NUMBER:
+        return reader.nextString();
+      case BOOLEAN:
+        return String.valueOf(reader.nextBoolean());
+      default:
+        reader.skipValue();
+        return null;
+    }
+  }
+
+  /** Reads a scalar value, or the first scalar value of a list, skipping any other value. */
+  @Nullable
+  public static String readFirstScalar(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      return readScalar(reader);
+    }
+    String value = null;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (value == null) {
+        value = readFirstScalar(reader);
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endArray();
+    return value;
+  }
+}
@@ -14,8 +14,6 @@
 
 package com.googlesource.gerrit.plugins.oauth.airvantage;
 
-import static com.google.gerrit.json.OutputFormat.JSON;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -24,18 +22,27 @@ import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
 import com.google.gerrit.extensions.auth.oauth.OAuthVerifier;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gerrit.server.config.PluginConfig;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.UserInfoExtractor;
+import com.googlesource.gerrit.plugins.oauth.UserInfoExtractor.Field;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
 
@@ -46,13 +53,42 @@ public class AirVantageOAuthService implements OAuthServiceProvider {
   public static final String PROVIDER_NAME = "airvantage";
   private static final String PROTECTED_RESOURCE_URL =
       "https://eu.airvantage.net/api/v1/users/current";
+  static final String ID_FIELD = "id-field";
+  static final String USERNAME_FIELD = "username-field";
+  static final String EMAIL_FIELD = "email-field";
+  static final String NAME_FIELD = "name-field";
+  private static final ImmutableMap<Field, String> OPTIONS =
+      ImmutableMap.of(
+          Field.ID, ID_FIELD,
+          Field.USERNAME, USERNAME_FIELD,
+          Field.EMAIL, EMAIL_FIELD,
+          Field.NAME, NAME_FIELD);
+  // AirVantage users have no username.
+  private static final ImmutableMap<Field, String> DEFAULT_FIELDS =
+      ImmutableMap.of(Field.ID, "uid", Field.EMAIL, "email", Field.NAME, "name");
   private final OAuth20Service service;
   private final String extIdScheme;
+  private final UserInfoExtractor extractor;
 
   @Inject
-  AirVantageOAuthService(OAuth20ServiceFactory oauth20ServiceFactory) {
+  AirVantageOAuthService(
+      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
     service = oauth20ServiceFactory.create(PROVIDER_NAME, new AirVantageApi());
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
+    extractor = createExtractor(cfgFactory.create(PROVIDER_NAME));
+  }
+
+  /** Maps each field to the member of the response named by its option, or by default. */
+  @VisibleForTesting
+  static UserInfoExtractor createExtractor(PluginConfig cfg) {
+    ImmutableMap.Builder<Field, List<String>> paths = ImmutableMap.builder();
+    for (Map.Entry<Field, String> option : OPTIONS.entrySet()) {
+      String member = cfg.getString(option.getValue(), DEFAULT_FIELDS.get(option.getKey()));
+      if (member != null && !member.isEmpty()) {
+        paths.put(option.getKey(), List.of(member));
+      }
+    }
+    return new UserInfoExtractor(paths.buildOrThrow());
   }
 
   @Override
@@ -61,7 +97,6 @@ public class AirVantageOAuthService implements OAuthServiceProvider {
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
     service.signRequest(t, request);
 
-    JsonElement userJson = null;
     try (Response response = service.execute(request)) {
       if (response.getCode() != SC_OK) {
         throw new IOException(
@@ -69,30 +104,27 @@ public class AirVantageOAuthService implements OAuthServiceProvider {
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
-      userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
-      if (log.isDebugEnabled()) {
-        log.debug("User info response: {}", response.getBody());
-      }
-      if (userJson.isJsonObject()) {
-        JsonObject jsonObject = userJson.getAsJsonObject();
-        JsonElement id = jsonObject.get("uid");
-        if (isNull(jsonObject)) {
-          throw new IOException("Response doesn't contain uid field");
-        }
-        JsonElement email = jsonObject.get("email");
-        JsonElement name = jsonObject.get("name");
-        return new OAuthUserInfo(
-            extIdScheme + ":" + id.getAsString(),
-            null,
-            email.getAsString(),
-            name.getAsString(),
-            id.getAsString());
+      try (Reader body = new InputStreamReader(response.getStream(), StandardCharsets.UTF_8)) {
+        return toUserInfo(body);
       }
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
     }
+  }
 
-    throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
+  @VisibleForTesting
+  OAuthUserInfo toUserInfo(Reader body) throws IOException {
+    UserInfoExtractor.Profile profile = extractor.read(body);
+    String id = profile.get(Field.ID);
+    if (id == null) {
+      throw new IOException("Response doesn't contain uid field");
+    }
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id,
+        profile.get(Field.USERNAME),
+        profile.get(Field.EMAIL),
+        profile.get(Field.NAME),
+        id);
   }
 
   @Override
@@ -14,6 +14,7 @@
 
 package com.googlesource.gerrit.plugins.oauth.auth0;
 
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.gerrit.json.OutputFormat.JSON;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
@@ -22,7 +23,14 @@ import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.AccessTokenRequestParams;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.pkce.PKCE;
+import com.github.scribejava.core.pkce.PKCEService;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.auth.oauth.OAuthAuthorizationInfo;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -31,6 +39,7 @@ import com.google.gerrit.server.config.PluginConfig;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
@@ -38,10 +47,16 @@ import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.concurrent.ExecutionException;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,14 +66,24 @@ public class Auth0OAuthService implements OAuthServiceProvider {
   private static final Logger log = LoggerFactory.getLogger(Auth0OAuthService.class);
   public static final String PROVIDER_NAME = "auth0";
   private static final String PROTECTED_RESOURCE_URL = "%s/userinfo";
+  private static final String LOGIN_HINT = "login_hint";
+  /** Session attribute holding the organization that a login was sent to, until its callback. */
+  private static final String ORGANIZATION_ATTRIBUTE =
+      Auth0OAuthService.class.getName() + ".organization";
   private final OAuth20Service service;
   private final String serviceName;
   private final String rootUrl;
   private final String extIdScheme;
+  private final boolean enablePKCE;
+  private final Auth0Routes routes;
+  private final ImmutableMap<Auth0Routes.Route, String> authorizationUrls;
+  private final Provider<HttpServletRequest> httpRequest;
 
   @Inject
   Auth0OAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      Provider<HttpServletRequest> httpRequest) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
     rootUrl = cfg.getString(InitOAuth.ROOT_URL);
     if (!URI.create(rootUrl).isAbsolute()) {
@@ -70,10 +95,25 @@ public class Auth0OAuthService implements OAuthServiceProvider {
         oauth20ServiceFactory.create(PROVIDER_NAME, new Auth0Api(rootUrl), "openid profile email");
 
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
+    enablePKCE = cfg.getBoolean(InitOAuth.ENABLE_PKCE, false);
+    routes = new Auth0Routes(cfg);
+    // Everything but the state and the PKCE challenge is the same for all logins of a route.
+    authorizationUrls =
+        routes.all().stream()
+            .collect(
+                toImmutableMap(
+                    r -> r,
+                    r ->
+                        service
+                            .createAuthorizationUrlBuilder()
+                            .additionalParams(r.params())
+                            .build()));
+    this.httpRequest = httpRequest;
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    checkOrganization(takeOrganization(), token.getRaw());
     OAuthRequest request =
         new OAuthRequest(Verb.GET, String.format(PROTECTED_RESOURCE_URL, rootUrl));
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
@@ -109,10 +149,63 @@ public class Auth0OAuthService implements OAuthServiceProvider {
     }
   }
 
+  /** Returns and forgets the organization that the login of the current session was sent to. */
+  @Nullable
+  private String takeOrganization() {
+    HttpSession session = httpRequest.get().getSession(false);
+    if (session == null) {
+      return null;
+    }
+    String organization = (String) session.getAttribute(ORGANIZATION_ATTRIBUTE);
+    session.removeAttribute(ORGANIZATION_ATTRIBUTE);
+    return organization;
+  }
+
+  /**
+   * Checks that the user logged in to {@code organization}, if the login was sent to one. Auth0
+   * only enforces the organization of a login if the application requires one, so the {@code
+   * org_id} claim of the id_token, or the {@code org_name} claim if the organization is configured
+   * by name, must match it. The id_token comes directly from the token endpoint of Auth0, so its
+   * signature isn't verified.
+   */
+  @VisibleForTesting
+  static void checkOrganization(@Nullable String organization, String rawToken)
+      throws IOException {
+    if (organization == null) {
+      return;
+    }
+    JsonElement tokenJson = JSON.newGson().fromJson(rawToken, JsonElement.class);
+    String idToken =
+        tokenJson != null && tokenJson.isJsonObject()
+            ? asString(tokenJson.getAsJsonObject().get("id_token"))
+            : null;
+    if (idToken == null) {
+      throw new IOException("Token response doesn't contain id_token");
+    }
+    SignedJwt jwt = SignedJwt.parse(idToken);
+    String orgName = jwt.getClaim("org_name");
+    if (!organization.equals(jwt.getClaim("org_id"))
+        && !(orgName != null && organization.toLowerCase(Locale.ROOT).equals(orgName))) {
+      throw new IOException(
+          String.format(
+              "User logged in to organization %s instead of %s",
+              jwt.getClaim("org_id"), organization));
+    }
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier verifier) {
+    return getAccessToken(verifier, null);
+  }
+
+  @Override
+  public OAuthToken getAccessToken(OAuthVerifier verifier, @Nullable String codeVerifier) {
     try {
-      OAuth2AccessToken accessToken = service.getAccessToken(verifier.getValue());
+      AccessTokenRequestParams reqParams = AccessTokenRequestParams.create(verifier.getValue());
+      if (enablePKCE && codeVerifier != null) {
+        reqParams.pkceCodeVerifier(codeVerifier);
+      }
+      OAuth2AccessToken accessToken = service.getAccessToken(reqParams);
       return new OAuthToken(
           accessToken.getAccessToken(), accessToken.getTokenType(), accessToken.getRawResponse());
     } catch (InterruptedException | ExecutionException | IOException e) {
@@ -124,7 +217,48 @@ public class Auth0OAuthService implements OAuthServiceProvider {
 
   @Override
   public String getAuthorizationUrl() {
-    return service.getAuthorizationUrl();
+    return buildAuthorizationUrl(null);
+  }
+
+  @Override
+  public OAuthAuthorizationInfo getAuthorizationInfo() {
+    if (!enablePKCE) {
+      return new OAuthAuthorizationInfo(buildAuthorizationUrl(null), null);
+    }
+    PKCE pkce = PKCEService.defaultInstance().generatePKCE();
+    return new OAuthAuthorizationInfo(buildAuthorizationUrl(pkce), pkce.getCodeVerifier());
+  }
+
+  /**
+   * Returns the authorization URL of the route of the {@code login_hint} of the login request, to
+   * which the hint itself and the PKCE challenge are appended. The organization of the route is
+   * kept in the session, to be checked when the user comes back.
+   */
+  private String buildAuthorizationUrl(@Nullable PKCE pkce) {
+    HttpServletRequest req = httpRequest.get();
+    String loginHint = req.getParameter(LOGIN_HINT);
+    Auth0Routes.Route route = routes.forEmail(loginHint);
+    if (route.organization() != null) {
+      req.getSession().setAttribute(ORGANIZATION_ATTRIBUTE, route.organization());
+    } else {
+      HttpSession session = req.getSession(false);
+      if (session != null) {
+        session.removeAttribute(ORGANIZATION_ATTRIBUTE);
+      }
+    }
+    StringBuilder url = new StringBuilder(authorizationUrls.get(route));
+    if (loginHint != null) {
+      appendParam(url, LOGIN_HINT, loginHint);
+    }
+    if (pkce != null) {
+      pkce.getAuthorizationUrlParams().forEach((name, value) -> appendParam(url, name, value));
+    }
+    return url.toString();
+  }
+
+  private static void appendParam(StringBuilder url, String name, String value) {
+    url.append('&').append(name).append('=');
+    url.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
   }
 
   @Override
@@ -0,0 +1,119 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.auth0;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.ProvisionException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The Auth0 organization and connection that users are sent to, chosen by the domain of their
+ * email.
+ *
+ * <p>The {@code organization} and {@code connection} options set the route of users without a
+ * matching domain. Each {@code domain-route} option maps a domain to its own route:
+ *
+ * <pre>
+ *   domain-route = example.com organization=org_123 connection=example-ad
+ * </pre>
+ *
+ * A route of a domain doesn't inherit from the default route; omitted parameters aren't sent.
+ */
+class Auth0Routes {
+  static final String ORGANIZATION = "organization";
+  static final String CONNECTION = "connection";
+  static final String DOMAIN_ROUTE = "domain-route";
+
+  record Route(@Nullable String organization, @Nullable String connection) {
+    /** Returns the authorization parameters of this route. */
+    ImmutableMap<String, String> params() {
+      ImmutableMap.Builder<String, String> params = ImmutableMap.builder();
+      if (organization != null) {
+        params.put(ORGANIZATION, organization);
+      }
+      if (connection != null) {
+        params.put(CONNECTION, connection);
+      }
+      return params.buildOrThrow();
+    }
+  }
+
+  private static final Splitter WHITESPACE = Splitter.onPattern("\\s+").omitEmptyStrings();
+
+  private final Route defaultRoute;
+  private final ImmutableMap<String, Route> domainRoutes;
+
+  Auth0Routes(PluginConfig cfg) {
+    defaultRoute = new Route(cfg.getString(ORGANIZATION), cfg.getString(CONNECTION));
+    Map<String, Route> domainRoutes = new LinkedHashMap<>();
+    for (String value : cfg.getStringList(DOMAIN_ROUTE)) {
+      List<String> parts = WHITESPACE.splitToList(value);
+      if (parts.size() < 2) {
+        throw new ProvisionException(
+            String.format("%s must be '<domain> <parameter>=<value>...': %s", DOMAIN_ROUTE, value));
+      }
+      String domain = parts.get(0).toLowerCase(Locale.ROOT);
+      if (domainRoutes.put(domain, parseRoute(parts.subList(1, parts.size()))) != null) {
+        throw new ProvisionException(String.format("Duplicate %s for %s", DOMAIN_ROUTE, domain));
+      }
+    }
+    this.domainRoutes = ImmutableMap.copyOf(domainRoutes);
+  }
+
+  private static Route parseRoute(List<String> params) {
+    String organization = null;
+    String connection = null;
+    for (String param : params) {
+      int eq = param.indexOf('=');
+      String name = eq > 0 ? param.substring(0, eq) : param;
+      String value = eq > 0 && eq < param.length() - 1 ? param.substring(eq + 1) : null;
+      if (name.equals(ORGANIZATION) && value != null && organization == null) {
+        organization = value;
+      } else if (name.equals(CONNECTION) && value != null && connection == null) {
+        connection = value;
+      } else {
+        throw new ProvisionException(
+            String.format("Invalid %s parameter: %s", DOMAIN_ROUTE, param));
+      }
+    }
+    return new Route(organization, connection);
+  }
+
+  /** Returns all distinct routes, the default route first. */
+  ImmutableSet<Route> all() {
+    return ImmutableSet.<Route>builder().add(defaultRoute).addAll(domainRoutes.values()).build();
+  }
+
+  /** Returns the route of the domain of {@code email}, or the default route. */
+  Route forEmail(@Nullable String email) {
+    if (email != null) {
+      int at = email.lastIndexOf('@');
+      if (at >= 0) {
+        Route route = domainRoutes.get(email.substring(at + 1).toLowerCase(Locale.ROOT));
+        if (route != null) {
+          return route;
+        }
+      }
+    }
+    return defaultRoute;
+  }
+}
@@ -0,0 +1,44 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.authentik;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthGroupBackend;
+
+/**
+ * Authentik groups of the users that signed in with Authentik, identified by {@code
+ * authentik:<group name>}.
+ */
+@Singleton
+class AuthentikGroupBackend extends OAuthGroupBackend {
+  private final Cache<String, ImmutableSet<String>> groupCache;
+
+  @Inject
+  AuthentikGroupBackend(
+      @Named(AuthentikModule.GROUP_CACHE) Cache<String, ImmutableSet<String>> groupCache) {
+    super(AuthentikOAuthService.PROVIDER_NAME);
+    this.groupCache = groupCache;
+  }
+
+  @Override
+  protected ImmutableSet<String> getGroupIds(String userId) {
+    ImmutableSet<String> groups = groupCache.getIfPresent(userId);
+    return groups != null ? groups : ImmutableSet.of();
+  }
+}
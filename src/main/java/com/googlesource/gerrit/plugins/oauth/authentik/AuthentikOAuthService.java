@@ -23,6 +23,9 @@ import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -33,6 +36,7 @@ import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
@@ -40,6 +44,7 @@ import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -56,11 +61,16 @@ public class AuthentikOAuthService implements OAuthServiceProvider {
   private final String rootUrl;
   private final boolean linkExistingGerrit;
   private final String extIdScheme;
+  private final Optional<Cache<String, ImmutableSet<String>>> groupCache;
 
   @Inject
   AuthentikOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      @Named(AuthentikModule.GROUP_CACHE)
+          Optional<Cache<String, ImmutableSet<String>>> groupCache) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
+    this.groupCache = groupCache;
 
     rootUrl = cfg.getString(InitOAuth.ROOT_URL);
     if (!URI.create(rootUrl).isAbsolute()) {
@@ -102,6 +112,10 @@ public class AuthentikOAuthService implements OAuthServiceProvider {
       JsonElement username = jsonObject.get("preferred_username");
       JsonElement email = jsonObject.get("email");
       JsonElement name = jsonObject.get("name");
+      if (groupCache.isPresent()) {
+        // Replaces the groups of the previous login, also if the user left all groups since.
+        groupCache.get().put(id.getAsString(), extractGroups(jsonObject));
+      }
       return new OAuthUserInfo(
           extIdScheme + ":" + id.getAsString(),
           asString(username),
@@ -113,6 +127,25 @@ public class AuthentikOAuthService implements OAuthServiceProvider {
     }
   }
 
+  /**
+   * Returns the names of the groups from the {@code groups} claim, which Authentik adds for the
+   * {@code profile} scope.
+   */
+  @VisibleForTesting
+  static ImmutableSet<String> extractGroups(JsonObject claims) {
+    JsonElement groups = claims.get("groups");
+    if (isNull(groups) || !groups.isJsonArray()) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    for (JsonElement group : groups.getAsJsonArray()) {
+      if (group.isJsonPrimitive() && !group.getAsString().isEmpty()) {
+        names.add(group.getAsString());
+      }
+    }
+    return names.build();
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier verifier) {
     try {
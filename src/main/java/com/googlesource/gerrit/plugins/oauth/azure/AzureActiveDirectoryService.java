@@ -17,16 +17,16 @@ package com.googlesource.gerrit.plugins.oauth.azure;
 import static com.google.gerrit.json.OutputFormat.JSON;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.jwtPayloadJson;
 
 import com.github.scribejava.apis.MicrosoftAzureActiveDirectory20Api;
-import com.github.scribejava.core.exceptions.OAuthException;
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -37,12 +37,14 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -57,15 +59,26 @@ public class AzureActiveDirectoryService implements OAuthServiceProvider {
   // Deprecated provider name kept for backward compatibility
   private static final String PROVIDER_DEPRECATED_NAME = "office365";
   private static final String PROTECTED_RESOURCE_URL = "https://graph.microsoft.com/v1.0/me";
+  private static final String MEMBER_OBJECTS_URL =
+      "https://graph.microsoft.com/v1.0/me/getMemberObjects";
+  private static final String MEMBER_OBJECTS_REQUEST = "{\"securityEnabledOnly\":%s}";
   private static final String SCOPE =
       "openid offline_access https://graph.microsoft.com/user.readbasic.all";
+  private static final String GROUPS_SCOPE = "https://graph.microsoft.com/GroupMember.Read.All";
   public static final String DEFAULT_TENANT = "organizations";
+  static final String USE_ID_TOKEN_CLAIMS = "use-id-token-claims";
+  static final String ALLOWED_TENANT = "allowed-tenant";
   private static final ImmutableSet<String> TENANTS_WITHOUT_VALIDATION =
       ImmutableSet.<String>builder().add(DEFAULT_TENANT).add("common").add("consumers").build();
   private final OAuth20Service service;
   private final Gson gson;
   private final boolean useEmailAsUsername;
+  private final boolean useIdTokenClaims;
+  private final boolean groupsEnabled;
+  private final String memberObjectsRequest;
+  private final Cache<String, ImmutableSet<String>> groupCache;
   private final String tenant;
+  private final AzureTenants allowedTenants;
   private final String clientId;
   private final boolean linkOffice365Id;
   private final String extIdScheme;
@@ -75,72 +88,90 @@ public class AzureActiveDirectoryService implements OAuthServiceProvider {
 
   @Inject
   AzureActiveDirectoryService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      @Named(AzureModule.GROUP_CACHE) Cache<String, ImmutableSet<String>> groupCache) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
+    this.groupCache = groupCache;
+    this.groupsEnabled = cfg.getBoolean(AzureModule.ENABLE_GROUPS, false);
+    this.memberObjectsRequest =
+        String.format(
+            MEMBER_OBJECTS_REQUEST, cfg.getBoolean(AzureModule.SECURITY_GROUPS_ONLY, true));
     this.extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
     this.extIdDeprecatedScheme =
         OAuthServiceProviderExternalIdScheme.create(PROVIDER_DEPRECATED_NAME);
     this.useEmailAsUsername = cfg.getBoolean(InitOAuth.USE_EMAIL_AS_USERNAME, false);
+    this.useIdTokenClaims = cfg.getBoolean(USE_ID_TOKEN_CLAIMS, false);
     this.tenant = cfg.getString(InitOAuth.TENANT, DEFAULT_TENANT);
     this.clientId = cfg.getString(InitOAuth.CLIENT_ID);
     this.service =
         oauth20ServiceFactory.create(
-            PROVIDER_NAME, MicrosoftAzureActiveDirectory20Api.custom(tenant), SCOPE);
+            PROVIDER_NAME,
+            MicrosoftAzureActiveDirectory20Api.custom(tenant),
+            groupsEnabled ? SCOPE + " " + GROUPS_SCOPE : SCOPE);
+    this.allowedTenants =
+        new AzureTenants(service, Arrays.asList(cfg.getStringList(ALLOWED_TENANT)));
     this.gson = JSON.newGson();
     if (log.isDebugEnabled()) {
       log.debug("OAuth2: scope={}", SCOPE);
       log.debug("OAuth2: useEmailAsUsername={}", useEmailAsUsername);
+      log.debug("OAuth2: useIdTokenClaims={}", useIdTokenClaims);
+      log.debug("OAuth2: allowedTenants={}", allowedTenants.getAllowed());
     }
     this.linkOffice365Id = cfg.getBoolean(InitOAuth.LINK_TO_EXISTING_OFFICE365_ACCOUNT, false);
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    AzureIdTokenClaims claims = AzureIdTokenClaims.parse(gson, token.getRaw());
+
     // ?: Have we set a custom tenant and is this a tenant other than the one set in
     // TENANTS_WITHOUT_VALIDATION
     if (!TENANTS_WITHOUT_VALIDATION.contains(tenant)) {
-      // -> Yes, we are using a tenant that should be validated, so verify that is issued for the
-      // same one that we
-      // have set.
-      String tid = getTokenJson(token.getToken()).get("tid").getAsString();
-
       // ?: Verify that this token has the same tenant as we are currently using
-      if (!tenant.equals(tid)) {
+      if (!tenant.equals(claims.tid())) {
         // -> No, this tenant does not equals the one in the token. So we should stop processing
         log.warn(
             String.format(
                 "The token was issued by the tenant [%s] while we are set to use [%s]",
-                tid, tenant));
+                claims.tid(), tenant));
         // Return null so the user will be shown Unauthorized.
         return null;
       }
     }
 
-    // Due to scribejava does not expose the id_token we need to do this a bit convoluted way to
-    // extract this our self
-    // see <a href="https://github.com/scribejava/scribejava/issues/968">Obtaining id_token from
-    // access_token</a> for
-    // the scribejava issue on this.
-    String rawToken = token.getRaw();
-    JsonObject jwtJson = gson.fromJson(rawToken, JsonObject.class);
-    String idTokenBase64 = jwtJson.get("id_token").getAsString();
-    String aud = getTokenJson(idTokenBase64).get("aud").getAsString();
-
     // ?: Does this token have the same clientId set in the 'aud' part of the id_token as we are
-    // using.
-    // If not we should reject it
-    // see <a href="https://docs.microsoft.com/en-us/azure/active-directory/develop/id-tokens">id
-    // tokens Payload claims></a>
-    // for information on the aud claim.
-    if (!clientId.equals(aud)) {
+    // using. If not we should reject it.
+    if (!clientId.equals(claims.aud())) {
       log.warn(
           String.format(
               "The id_token had aud [%s] while we expected it to be equal to the clientId [%s]",
-              aud, clientId));
+              claims.aud(), clientId));
       // Return null so the user will be shown Unauthorized.
       return null;
     }
 
+    // ?: Is this a multi-tenant app restricted to a set of tenants? Then the id_token must be
+    // issued and signed by one of them.
+    if (allowedTenants.isEnabled()) {
+      try {
+        allowedTenants.verify(claims.idToken(), claims.tid(), clientId);
+      } catch (IOException e) {
+        log.warn("Rejected id_token of tenant [{}]: {}", claims.tid(), e.getMessage());
+        // Return null so the user will be shown Unauthorized.
+        return null;
+      }
+    }
+
+    if (groupsEnabled) {
+      updateGroups(token, claims);
+    }
+
+    if (useIdTokenClaims && claims.isComplete()) {
+      // The object ID of the user is the same as the id returned by Microsoft Graph.
+      return toUserInfo(claims.oid(), claims.email(), claims.name());
+    }
+
     OAuthRequest request = new OAuthRequest(Verb.GET, PROTECTED_RESOURCE_URL);
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
     service.signRequest(t, request);
@@ -154,7 +185,7 @@ public class AzureActiveDirectoryService implements OAuthServiceProvider {
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
-      userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
+      userJson = gson.fromJson(response.getBody(), JsonElement.class);
       if (log.isDebugEnabled()) {
         log.debug("User info response: {}", response.getBody());
       }
@@ -164,20 +195,10 @@ public class AzureActiveDirectoryService implements OAuthServiceProvider {
         if (isNull(id)) {
           throw new IOException("Response doesn't contain id field");
         }
-        JsonElement email = jsonObject.get("mail");
-        JsonElement name = jsonObject.get("displayName");
-        String login = null;
-
-        if (useEmailAsUsername && !email.isJsonNull()) {
-          login = email.getAsString().split("@")[0];
-        }
-
-        return new OAuthUserInfo(
-            extIdScheme + ":" + id.getAsString(),
-            login,
-            asString(email),
-            asString(name),
-            linkOffice365Id ? extIdDeprecatedScheme + ":" + id.getAsString() : null);
+        return toUserInfo(
+            id.getAsString(),
+            asString(jsonObject.get("mail")),
+            asString(jsonObject.get("displayName")));
       }
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
@@ -186,6 +207,64 @@ public class AzureActiveDirectoryService implements OAuthServiceProvider {
     throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
   }
 
+  /**
+   * Caches the groups of the user from the groups claim of the id_token. If the user is a member
+   * of too many groups to fit into the token, they are fetched from Microsoft Graph with a single
+   * getMemberObjects request instead, so that the groups are refreshed on every sign-in either way.
+   */
+  private void updateGroups(OAuthToken token, AzureIdTokenClaims claims) throws IOException {
+    if (claims.oid() == null) {
+      return;
+    }
+    if (!claims.groupsOverage()) {
+      groupCache.put(claims.oid(), claims.groups());
+    } else {
+      groupCache.put(claims.oid(), fetchMemberObjects(token));
+    }
+  }
+
+  private ImmutableSet<String> fetchMemberObjects(OAuthToken token) throws IOException {
+    OAuthRequest request = new OAuthRequest(Verb.POST, MEMBER_OBJECTS_URL);
+    request.addHeader("Content-Type", "application/json");
+    request.setPayload(memberObjectsRequest);
+    service.signRequest(new OAuth2AccessToken(token.getToken(), token.getRaw()), request);
+
+    try (Response response = service.execute(request)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        throw new IOException(
+            String.format(
+                "Status %s (%s) for request %s",
+                response.getCode(), response.getBody(), request.getUrl()));
+      }
+      JsonElement json = gson.fromJson(response.getBody(), JsonElement.class);
+      JsonElement value =
+          json != null && json.isJsonObject() ? json.getAsJsonObject().get("value") : null;
+      if (isNull(value) || !value.isJsonArray()) {
+        throw new IOException("getMemberObjects response doesn't contain value field");
+      }
+      ImmutableSet.Builder<String> groups = ImmutableSet.builder();
+      for (JsonElement group : value.getAsJsonArray()) {
+        groups.add(group.getAsString());
+      }
+      return groups.build();
+    } catch (ExecutionException | InterruptedException e) {
+      throw new RuntimeException("Cannot retrieve group memberships", e);
+    }
+  }
+
+  private OAuthUserInfo toUserInfo(String id, @Nullable String email, @Nullable String name) {
+    String login = null;
+    if (useEmailAsUsername && email != null) {
+      login = email.split("@")[0];
+    }
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id,
+        login,
+        email,
+        name,
+        linkOffice365Id ? extIdDeprecatedScheme + ":" + id : null);
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
@@ -214,13 +293,4 @@ public class AzureActiveDirectoryService implements OAuthServiceProvider {
   public String getName() {
     return "Office365 OAuth2";
   }
-
-  /** Get the {@link JsonObject} of a given token. */
-  private JsonObject getTokenJson(String tokenBase64) {
-    try {
-      return gson.fromJson(jwtPayloadJson(tokenBase64), JsonObject.class);
-    } catch (IOException e) {
-      throw new OAuthException("Invalid token payload encoding", e);
-    }
-  }
 }
@@ -0,0 +1,44 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthGroupBackend;
+
+/**
+ * Azure AD groups of the users that signed in with Azure, identified by {@code azure:<object id
+ * of the group>}.
+ */
+@Singleton
+class AzureGroupBackend extends OAuthGroupBackend {
+  private final Cache<String, ImmutableSet<String>> groupCache;
+
+  @Inject
+  AzureGroupBackend(
+      @Named(AzureModule.GROUP_CACHE) Cache<String, ImmutableSet<String>> groupCache) {
+    super(AzureActiveDirectoryService.PROVIDER_NAME);
+    this.groupCache = groupCache;
+  }
+
+  @Override
+  protected ImmutableSet<String> getGroupIds(String userId) {
+    ImmutableSet<String> groups = groupCache.getIfPresent(userId);
+    return groups != null ? groups : ImmutableSet.of();
+  }
+}
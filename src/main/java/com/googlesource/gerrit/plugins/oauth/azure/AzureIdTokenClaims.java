@@ -0,0 +1,92 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
+import java.io.IOException;
+
+/**
+ * The claims of the ID token that are used to sign in, extracted in a single pass over the token
+ * response.
+ *
+ * <p>Scribejava doesn't expose the ID token, see <a
+ * href="https://github.com/scribejava/scribejava/issues/968">Obtaining id_token from
+ * access_token</a>, so it is taken from the raw token response. See <a
+ * href="https://learn.microsoft.com/en-us/entra/identity-platform/id-token-claims-reference">ID
+ * token claims</a> for the meaning of the claims.
+ */
+record AzureIdTokenClaims(
+    SignedJwt idToken,
+    @Nullable String tid,
+    @Nullable String aud,
+    @Nullable String oid,
+    @Nullable String email,
+    @Nullable String name,
+    ImmutableSet<String> groups,
+    boolean groupsOverage) {
+
+  static AzureIdTokenClaims parse(Gson gson, String rawTokenResponse) throws IOException {
+    JsonElement tokenResponse = gson.fromJson(rawTokenResponse, JsonElement.class);
+    JsonElement idToken =
+        tokenResponse != null && tokenResponse.isJsonObject()
+            ? tokenResponse.getAsJsonObject().get("id_token")
+            : null;
+    if (isNull(idToken)) {
+      throw new IOException("Token response doesn't contain id_token");
+    }
+    SignedJwt jwt = SignedJwt.parse(idToken.getAsString());
+    JsonObject c = jwt.getClaims();
+    ImmutableSet.Builder<String> groups = ImmutableSet.builder();
+    JsonElement groupsClaim = c.get("groups");
+    if (!isNull(groupsClaim) && groupsClaim.isJsonArray()) {
+      for (JsonElement group : groupsClaim.getAsJsonArray()) {
+        groups.add(group.getAsString());
+      }
+    }
+    // If the user is a member of too many groups, the groups claim is replaced by a reference to
+    // Microsoft Graph in _claim_names.
+    JsonElement claimNames = c.get("_claim_names");
+    boolean groupsOverage =
+        !isNull(claimNames)
+            && claimNames.isJsonObject()
+            && claimNames.getAsJsonObject().has("groups");
+    return new AzureIdTokenClaims(
+        jwt,
+        asString(c.get("tid")),
+        asString(c.get("aud")),
+        asString(c.get("oid")),
+        asString(c.get("email")),
+        asString(c.get("name")),
+        groups.build(),
+        groupsOverage);
+  }
+
+  /**
+   * Whether the claims identify the user completely, so that no profile needs to be fetched. The
+   * {@code preferred_username} isn't used as email, as it is the user principal name, which is not
+   * necessarily a mailbox.
+   */
+  boolean isComplete() {
+    return oid != null && name != null && email != null;
+  }
+}
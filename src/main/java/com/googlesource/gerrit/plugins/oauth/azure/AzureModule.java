@@ -0,0 +1,54 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.server.account.GroupBackend;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.inject.TypeLiteral;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+
+public class AzureModule extends CacheModule {
+  static final String GROUP_CACHE = "azure_groups";
+  static final String ENABLE_GROUPS = "enable-groups";
+  static final String SECURITY_GROUPS_ONLY = "security-groups-only";
+  static final String GROUP_CACHE_TTL = "group-cache-ttl";
+  // Matches the default lifetime of Gerrit web sessions.
+  private static final long DEFAULT_GROUP_CACHE_TTL = TimeUnit.HOURS.toSeconds(12);
+
+  private final boolean groupsEnabled;
+  private final Duration groupCacheTtl;
+
+  public AzureModule(Config cfg, String section) {
+    groupsEnabled = cfg.getBoolean("plugin", section, ENABLE_GROUPS, false);
+    groupCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin", section, GROUP_CACHE_TTL, DEFAULT_GROUP_CACHE_TTL, TimeUnit.SECONDS));
+  }
+
+  @Override
+  protected void configure() {
+    cache(GROUP_CACHE, String.class, new TypeLiteral<ImmutableSet<String>>() {})
+        .maximumWeight(4096)
+        .expireAfterWrite(groupCacheTtl);
+    if (groupsEnabled) {
+      DynamicSet.bind(binder(), GroupBackend.class).to(AzureGroupBackend.class);
+    }
+  }
+}
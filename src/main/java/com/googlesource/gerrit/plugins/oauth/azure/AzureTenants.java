@@ -0,0 +1,72 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.googlesource.gerrit.plugins.oauth.OpenIdIssuer;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The tenants whose users are allowed to sign in.
+ *
+ * <p>The id_token of a user must name an allowed tenant in its {@code tid} claim, be issued by that
+ * tenant and be signed with one of its keys. Each tenant is an {@link OpenIdIssuer}, whose
+ * metadata is fetched once when the first user of the tenant signs in, without holding up the
+ * sign-ins of the other tenants.
+ */
+class AzureTenants {
+  private static final String METADATA_URL =
+      "https://login.microsoftonline.com/%s/v2.0/.well-known/openid-configuration";
+
+  private final ImmutableMap<String, OpenIdIssuer> issuers;
+
+  AzureTenants(OAuth20Service service, Iterable<String> tenantIds) {
+    ImmutableMap.Builder<String, OpenIdIssuer> issuers = ImmutableMap.builder();
+    for (String tenantId : tenantIds) {
+      String tid = tenantId.trim().toLowerCase(Locale.ROOT);
+      issuers.put(tid, new OpenIdIssuer(service, String.format(METADATA_URL, tid)));
+    }
+    this.issuers = issuers.buildKeepingLast();
+  }
+
+  boolean isEnabled() {
+    return !issuers.isEmpty();
+  }
+
+  boolean isAllowed(@Nullable String tid) {
+    return tid != null && issuers.containsKey(tid.toLowerCase(Locale.ROOT));
+  }
+
+  ImmutableSet<String> getAllowed() {
+    return issuers.keySet();
+  }
+
+  /**
+   * Verifies that {@code idToken} was issued for {@code clientId} by the allowed tenant {@code
+   * tid}, is signed by it and is not expired.
+   */
+  void verify(SignedJwt idToken, String tid, String clientId) throws IOException {
+    OpenIdIssuer issuer = tid != null ? issuers.get(tid.toLowerCase(Locale.ROOT)) : null;
+    if (issuer == null) {
+      throw new IOException(String.format("Tenant %s is not allowed", tid));
+    }
+    issuer.verify(idToken, clientId);
+  }
+}
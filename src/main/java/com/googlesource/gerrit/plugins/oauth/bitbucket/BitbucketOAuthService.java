@@ -15,7 +15,7 @@
 package com.googlesource.gerrit.plugins.oauth.bitbucket;
 
 import static com.google.gerrit.json.OutputFormat.JSON;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -24,6 +24,7 @@ import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -36,10 +37,15 @@ import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthRequestExecutor;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.PrimaryEmails;
 import java.io.IOException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 
 @Singleton
@@ -47,14 +53,20 @@ import org.slf4j.Logger;
 public class BitbucketOAuthService implements OAuthServiceProvider {
   private static final Logger log = getLogger(BitbucketOAuthService.class);
   public static final String PROVIDER_NAME = "bitbucket";
-  private static final String PROTECTED_RESOURCE_URL = "https://bitbucket.org/api/1.0/user/";
+  private static final String USER_URL = "https://api.bitbucket.org/2.0/user";
+  private static final String EMAILS_URL = USER_URL + "/emails";
+  private static final int EMAIL_TIMEOUT_SECONDS = 10;
   private final boolean fixLegacyUserId;
   private final OAuth20Service service;
   private final String extIdScheme;
+  private final OAuthRequestExecutor executor;
 
   @Inject
   BitbucketOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      OAuthRequestExecutor executor) {
+    this.executor = executor;
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
     fixLegacyUserId = cfg.getBoolean(InitOAuth.FIX_LEGACY_USER_ID, false);
     service = oauth20ServiceFactory.create(PROVIDER_NAME, new BitbucketApi());
@@ -63,45 +75,84 @@ public class BitbucketOAuthService implements OAuthServiceProvider {
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
-    OAuthRequest request = new OAuthRequest(Verb.GET, PROTECTED_RESOURCE_URL);
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
+    // The emails are a separate resource, request them alongside the profile.
+    Future<String> primaryEmail = executor.submit(() -> fetchPrimaryEmail(t));
+    OAuthRequest request = new OAuthRequest(Verb.GET, USER_URL);
     service.signRequest(t, request);
-
-    JsonElement userJson = null;
     try (Response response = service.execute(request)) {
-
       if (response.getCode() != SC_OK) {
         throw new IOException(
             String.format(
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
-      userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
       if (log.isDebugEnabled()) {
         log.debug("User info response: {}", response.getBody());
       }
-      if (userJson.isJsonObject()) {
-        JsonObject jsonObject = userJson.getAsJsonObject();
-        JsonObject userObject = jsonObject.getAsJsonObject("user");
-        if (isNull(userObject)) {
-          throw new IOException("Response doesn't contain 'user' field");
-        }
-        JsonElement usernameElement = userObject.get("username");
-        String username = usernameElement.getAsString();
-
-        JsonElement displayName = jsonObject.get("display_name");
-        return new OAuthUserInfo(
-            extIdScheme + ":" + username,
-            username,
-            null,
-            displayName == null || displayName.isJsonNull() ? null : displayName.getAsString(),
-            fixLegacyUserId ? username : null);
-      }
+      return withEmail(toUserInfo(response.getBody()), primaryEmail);
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
+    } finally {
+      primaryEmail.cancel(true);
+    }
+  }
+
+  OAuthUserInfo toUserInfo(String body) throws IOException {
+    JsonElement userJson = JSON.newGson().fromJson(body, JsonElement.class);
+    if (userJson == null || !userJson.isJsonObject()) {
+      throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
+    }
+    JsonObject userObject = userJson.getAsJsonObject();
+    String username = asString(userObject.get("username"));
+    if (username == null) {
+      throw new IOException("Response doesn't contain 'username' field");
+    }
+    return new OAuthUserInfo(
+        extIdScheme + ":" + username,
+        username,
+        null,
+        asString(userObject.get("display_name")),
+        fixLegacyUserId ? username : null);
+  }
+
+  private OAuthUserInfo withEmail(OAuthUserInfo userInfo, Future<String> primaryEmail) {
+    String email = null;
+    try {
+      email = primaryEmail.get(EMAIL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      log.warn("Cannot retrieve primary email of Bitbucket user {}", userInfo.getUserName(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return PrimaryEmails.withEmail(userInfo, email);
+  }
+
+  @Nullable
+  private String fetchPrimaryEmail(OAuth2AccessToken token)
+      throws IOException, InterruptedException, ExecutionException {
+    OAuthRequest request = new OAuthRequest(Verb.GET, EMAILS_URL);
+    service.signRequest(token, request);
+    try (Response response = service.execute(request)) {
+      if (response.getCode() != SC_OK) {
+        log.warn("Status {} for request {}", response.getCode(), request.getUrl());
+        return null;
+      }
+      return parsePrimaryEmail(response.getBody());
     }
+  }
 
-    throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
+  /**
+   * Returns the confirmed primary address from a page of {@code /2.0/user/emails}. It is always on
+   * the first page, as a user has only a handful of addresses.
+   */
+  @Nullable
+  static String parsePrimaryEmail(String body) {
+    JsonElement page = JSON.newGson().fromJson(body, JsonElement.class);
+    if (page == null || !page.isJsonObject()) {
+      return null;
+    }
+    return PrimaryEmails.find(page.getAsJsonObject().get("values"), "is_primary", "is_confirmed");
   }
 
   @Override
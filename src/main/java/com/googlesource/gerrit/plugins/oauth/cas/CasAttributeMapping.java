@@ -0,0 +1,145 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.cas;
+
+import static com.googlesource.gerrit.plugins.oauth.UserInfoExtractor.readFirstScalar;
+
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the user profile returned by the CAS {@code oauth2.0/profile} endpoint in a single
+ * streaming pass, mapping the configured CAS attributes to the login, email and display name of
+ * the user.
+ *
+ * <p>All the profile formats of CAS are supported: attributes as an array of single-valued objects,
+ * as a nested {@code attributes} object, and flattened into the profile itself. The attributes in
+ * the {@code attributes} member take precedence over the ones next to the id. An attribute that
+ * occurs several times takes its last value, while an attribute whose value is a list takes the
+ * first value of the list. Attributes that are not mapped are skipped without being parsed into
+ * objects.
+ */
+class CasAttributeMapping {
+  static final String LOGIN_ATTRIBUTE = "login-attribute";
+  static final String EMAIL_ATTRIBUTE = "email-attribute";
+  static final String NAME_ATTRIBUTE = "name-attribute";
+
+  private static final String ID = "id";
+  private static final String ATTRIBUTES = "attributes";
+
+  record Profile(
+      String id, @Nullable String login, @Nullable String email, @Nullable String name) {}
+
+  private final String loginAttribute;
+  private final String emailAttribute;
+  private final String nameAttribute;
+
+  CasAttributeMapping(PluginConfig cfg) {
+    loginAttribute = cfg.getString(LOGIN_ATTRIBUTE, "login");
+    emailAttribute = cfg.getString(EMAIL_ATTRIBUTE, "email");
+    nameAttribute = cfg.getString(NAME_ATTRIBUTE, "name");
+  }
+
+  /** The values of the mapped attributes. The last value read for an attribute wins. */
+  private static class Values {
+    String login;
+    String email;
+    String name;
+  }
+
+  Profile read(Reader profile) throws IOException {
+    JsonReader reader = new JsonReader(profile);
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      throw new IOException("Invalid CAS profile: not a JSON Object");
+    }
+    String id = null;
+    Values attributes = new Values();
+    Values flat = new Values();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (name.equals(ID)) {
+        id = readFirstScalar(reader);
+      } else if (name.equals(ATTRIBUTES)) {
+        readAttributes(reader, attributes);
+      } else {
+        readAttribute(reader, name, flat);
+      }
+    }
+    reader.endObject();
+    if (id == null) {
+      throw new IOException("CAS profile missing id");
+    }
+    // Nested attributes take precedence over the ones of a flat profile.
+    return new Profile(
+        id,
+        attributes.login != null ? attributes.login : flat.login,
+        attributes.email != null ? attributes.email : flat.email,
+        attributes.name != null ? attributes.name : flat.name);
+  }
+
+  private void readAttributes(JsonReader reader, Values values) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_ARRAY -> {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IOException("Invalid CAS attribute: not a JSON Object");
+          }
+          readAttributeObject(reader, values);
+        }
+        reader.endArray();
+      }
+      case BEGIN_OBJECT -> readAttributeObject(reader, values);
+      default -> reader.skipValue();
+    }
+  }
+
+  private void readAttributeObject(JsonReader reader, Values values) throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      readAttribute(reader, reader.nextName(), values);
+    }
+    reader.endObject();
+  }
+
+  private void readAttribute(JsonReader reader, String name, Values values) throws IOException {
+    // The same attribute can be mapped to several fields.
+    boolean login = name.equals(loginAttribute);
+    boolean email = name.equals(emailAttribute);
+    boolean displayName = name.equals(nameAttribute);
+    if (!login && !email && !displayName) {
+      reader.skipValue();
+      return;
+    }
+    String value = readFirstScalar(reader);
+    if (value == null) {
+      return;
+    }
+    if (login) {
+      values.login = value;
+    }
+    if (email) {
+      values.email = value;
+    }
+    if (displayName) {
+      values.name = value;
+    }
+  }
+}
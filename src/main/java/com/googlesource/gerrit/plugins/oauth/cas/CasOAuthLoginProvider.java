@@ -0,0 +1,76 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.cas;
+
+import com.google.common.cache.Cache;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Authenticates git over HTTP with CAS access tokens, such as the ones obtained by automation with
+ * a proxy ticket.
+ *
+ * <p>A token is validated by requesting the profile of its user from {@code oauth2.0/profile}. The
+ * identity is cached, keyed by a hash of the token, for {@code token-cache-ttl}. Concurrent
+ * requests with a token that isn't cached yet share a single validation.
+ */
+@Singleton
+@OAuthServiceProviderConfig(name = CasOAuthService.PROVIDER_NAME)
+public class CasOAuthLoginProvider implements OAuthLoginProvider {
+  private final CasOAuthService service;
+  private final Cache<String, OAuthUserInfo> tokenCache;
+
+  @Inject
+  CasOAuthLoginProvider(
+      CasOAuthService service,
+      @Named(CasModule.TOKEN_CACHE) Cache<String, OAuthUserInfo> tokenCache) {
+    this.service = service;
+    this.tokenCache = tokenCache;
+  }
+
+  @Override
+  public OAuthUserInfo login(String username, String secret) throws IOException {
+    if (secret == null) {
+      throw new IOException("Authentication error");
+    }
+    String key = Hashing.sha256().hashString(secret, StandardCharsets.UTF_8).toString();
+    OAuthUserInfo userInfo;
+    try {
+      // The cache runs a single validation for concurrent requests with the same token.
+      userInfo = tokenCache.get(key, () -> service.validateToken(secret));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Authentication error", e.getCause());
+    }
+
+    // As for the web login, the external ID is derived from the CAS user ID, the username is only
+    // checked for consistency if one was provided.
+    if (username != null && !username.equals(userInfo.getUserName())) {
+      throw new IOException("Authentication error: username does not match");
+    }
+    return userInfo;
+  }
+}
@@ -15,8 +15,6 @@
 package com.googlesource.gerrit.plugins.oauth.cas;
 
 import static com.google.common.base.Strings.nullToEmpty;
-import static com.google.gerrit.json.OutputFormat.JSON;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
 
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuthRequest;
@@ -28,9 +26,6 @@ import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
 import com.google.gerrit.extensions.auth.oauth.OAuthVerifier;
 import com.google.gerrit.server.config.PluginConfig;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
@@ -40,7 +35,10 @@ import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -58,6 +56,7 @@ public class CasOAuthService implements OAuthServiceProvider {
   private final boolean fixLegacyUserId;
   private final OAuth20Service service;
   private final String extIdScheme;
+  private final CasAttributeMapping attributeMapping;
 
   @Inject
   CasOAuthService(
@@ -68,6 +67,7 @@ public class CasOAuthService implements OAuthServiceProvider {
       throw new ProvisionException("Root URL must be absolute URL");
     }
     fixLegacyUserId = cfg.getBoolean(InitOAuth.FIX_LEGACY_USER_ID, false);
+    attributeMapping = new CasAttributeMapping(cfg);
     boolean useJsonExtractor = cfg.getBoolean(USE_JSON_EXTRACTOR, false);
     service = oauth20ServiceFactory.create(PROVIDER_NAME, new CasApi(rootUrl, useJsonExtractor));
 
@@ -77,10 +77,7 @@ public class CasOAuthService implements OAuthServiceProvider {
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
     OAuthRequest request =
-        new OAuthRequest(Verb.GET, String.format(PROTECTED_RESOURCE_URL, rootUrl));
-    OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
-    service.signRequest(t, request);
-
+        newProfileRequest(new OAuth2AccessToken(token.getToken(), token.getRaw()));
     try (Response response = service.execute(request)) {
       if (response.getCode() != HttpServletResponse.SC_OK) {
         throw new IOException(
@@ -88,77 +85,57 @@ public class CasOAuthService implements OAuthServiceProvider {
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
+      return readUserInfo(response);
+    } catch (ExecutionException | InterruptedException e) {
+      throw new RuntimeException("Cannot retrieve user info resource", e);
+    }
+  }
 
-      if (log.isDebugEnabled()) {
-        log.debug("User info response: {}", response.getBody());
-      }
-
-      JsonElement userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
-      if (!userJson.isJsonObject()) {
-        throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
-      }
-      JsonObject jsonObject = userJson.getAsJsonObject();
-
-      JsonElement id = jsonObject.get("id");
-      if (isNull(id)) {
-        throw new IOException(String.format("CAS response missing id: %s", response.getBody()));
-      }
-
-      JsonElement attrListJson = jsonObject.get("attributes");
-      if (attrListJson == null) {
-        throw new IOException(
-            String.format("CAS response missing attributes: %s", response.getBody()));
-      }
-
-      String email = null, name = null, login = null;
-      if (attrListJson.isJsonArray()) {
-        // It is possible for CAS to be configured to not return any attributes (email, name,
-        // login),
-        // in which case,
-        // CAS returns an empty JSON object "attributes":{}, rather than "null" or an empty JSON
-        // array
-        // "attributes": []
-
-        JsonArray attrJson = attrListJson.getAsJsonArray();
-        for (JsonElement elem : attrJson) {
-          if (elem == null || !elem.isJsonObject()) {
-            throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", elem));
-          }
-          JsonObject obj = elem.getAsJsonObject();
-
-          String property = getStringElement(obj, "email");
-          if (property != null) {
-            email = property;
-          }
-          property = getStringElement(obj, "name");
-          if (property != null) {
-            name = property;
-          }
-          property = getStringElement(obj, "login");
-          if (property != null) {
-            login = property;
-          }
-        }
+  /**
+   * Returns the user owning {@code accessToken}, which can be any access token issued by CAS,
+   * including the ones obtained with a proxy ticket.
+   */
+  OAuthUserInfo validateToken(String accessToken) throws IOException {
+    OAuthRequest request = newProfileRequest(new OAuth2AccessToken(accessToken));
+    try (Response response = service.execute(request)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        // The token is part of the request URL, keep it out of the logs.
+        log.debug("CAS rejected token with status {}", response.getCode());
+        throw new IOException("Authentication error");
       }
-
-      return new OAuthUserInfo(
-          extIdScheme + ":" + id.getAsString(),
-          login,
-          email,
-          name,
-          fixLegacyUserId ? id.getAsString() : null);
+      return readUserInfo(response);
     } catch (ExecutionException | InterruptedException e) {
-      throw new RuntimeException("Cannot retrieve user info resource", e);
+      throw new IOException("Cannot retrieve user info resource", e);
     }
   }
 
-  private String getStringElement(JsonObject o, String name) {
-    JsonElement elem = o.get(name);
-    if (isNull(elem)) {
-      return null;
+  private OAuthRequest newProfileRequest(OAuth2AccessToken token) {
+    OAuthRequest request =
+        new OAuthRequest(Verb.GET, String.format(PROTECTED_RESOURCE_URL, rootUrl));
+    service.signRequest(token, request);
+    return request;
+  }
+
+  private OAuthUserInfo readUserInfo(Response response) throws IOException {
+    CasAttributeMapping.Profile profile;
+    try (Reader body = new InputStreamReader(response.getStream(), StandardCharsets.UTF_8)) {
+      profile = attributeMapping.read(body);
+    } catch (IllegalStateException e) {
+      throw new IOException("Invalid CAS profile", e);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("User info response: {}", profile);
     }
+    return toUserInfo(profile);
+  }
 
-    return elem.getAsString();
+  private OAuthUserInfo toUserInfo(CasAttributeMapping.Profile profile) {
+    return new OAuthUserInfo(
+        extIdScheme + ":" + profile.id(),
+        profile.login(),
+        profile.email(),
+        profile.name(),
+        fixLegacyUserId ? profile.id() : null);
   }
 
   @Override
@@ -16,13 +16,13 @@ package com.googlesource.gerrit.plugins.oauth.cognito;
 
 import static com.google.gerrit.json.OutputFormat.JSON;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
 
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -30,18 +30,24 @@ import com.google.gerrit.extensions.auth.oauth.OAuthVerifier;
 import com.google.gerrit.server.config.PluginConfig;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.inject.Inject;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.JsonWebKeySet;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
 import com.googlesource.gerrit.plugins.oauth.github.GitHubOAuthService;
 import java.io.IOException;
 import java.net.URI;
+import java.time.Instant;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,11 +58,18 @@ public class CognitoOAuthService implements OAuthServiceProvider {
   private static final Logger log = LoggerFactory.getLogger(GitHubOAuthService.class);
   public static final String PROVIDER_NAME = "cognito";
   private static final String PROTECTED_RESOURCE_URL = "%s/oauth2/userInfo";
+  static final String USER_POOL_ID = "user-pool-id";
+  private static final Pattern USER_POOL_ID_PATTERN = Pattern.compile("([a-z0-9-]+)_[A-Za-z0-9]+");
+  private static final String ISSUER_URL = "https://cognito-idp.%s.amazonaws.com/%s";
+  private static final String JWKS_PATH = "/.well-known/jwks.json";
   private final String rootUrl;
   private final OAuth20Service service;
   private final String serviceName;
   private final boolean linkExistingGerrit;
   private final String extIdScheme;
+  private final String clientId;
+  @Nullable private final String issuer;
+  @Nullable private final JsonWebKeySet userPoolKeys;
 
   @Inject
   CognitoOAuthService(
@@ -75,10 +88,35 @@ public class CognitoOAuthService implements OAuthServiceProvider {
         oauth20ServiceFactory.create(
             PROVIDER_NAME, new CognitoApi(rootUrl), "openid profile email");
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
+
+    clientId = cfg.getString(InitOAuth.CLIENT_ID);
+    String userPoolId = cfg.getString(USER_POOL_ID);
+    if (userPoolId != null) {
+      Matcher m = USER_POOL_ID_PATTERN.matcher(userPoolId);
+      if (!m.matches()) {
+        throw new ProvisionException(
+            String.format("Invalid %s '%s': expected <region>_<id>", USER_POOL_ID, userPoolId));
+      }
+      // The region is the prefix of the user pool ID.
+      issuer = String.format(ISSUER_URL, m.group(1), userPoolId);
+      userPoolKeys = new JsonWebKeySet(service, issuer + JWKS_PATH);
+    } else {
+      issuer = null;
+      userPoolKeys = null;
+    }
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    if (userPoolKeys != null) {
+      SignedJwt idToken = parseIdToken(token.getRaw());
+      if (idToken != null) {
+        verify(idToken);
+        return toUserInfo(idToken.getClaims());
+      }
+      log.debug("Token response doesn't contain id_token, requesting user info");
+    }
+
     OAuthRequest request =
         new OAuthRequest(Verb.GET, String.format(PROTECTED_RESOURCE_URL, rootUrl));
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
@@ -97,25 +135,63 @@ public class CognitoOAuthService implements OAuthServiceProvider {
         log.debug("User info response: {}", response.getBody());
       }
 
-      JsonObject jsonObject = userJson.getAsJsonObject();
-      if (isNull(jsonObject)) {
-        throw new IOException("Response doesn't contain 'user' field" + jsonObject);
+      if (userJson == null || !userJson.isJsonObject()) {
+        throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
       }
-      JsonElement id = jsonObject.get("sub");
-      JsonElement username = jsonObject.get("preferred_username");
-      JsonElement email = jsonObject.get("email");
-      JsonElement name = jsonObject.get("name");
-      return new OAuthUserInfo(
-          extIdScheme + ":" + id.getAsString(),
-          asString(username),
-          asString(email),
-          asString(name),
-          linkExistingGerrit ? "gerrit:" + username.getAsString() : null /*claimedIdentity*/);
+      return toUserInfo(userJson.getAsJsonObject());
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
     }
   }
 
+  /**
+   * Maps the claims of the id_token or the user info response to the user. The username is the
+   * preferred username, which is only set if the user has chosen one.
+   */
+  OAuthUserInfo toUserInfo(JsonObject claims) throws IOException {
+    String id = asString(claims.get("sub"));
+    if (id == null) {
+      throw new IOException("Response doesn't contain sub field");
+    }
+    String username = asString(claims.get("preferred_username"));
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id,
+        username,
+        asString(claims.get("email")),
+        asString(claims.get("name")),
+        linkExistingGerrit && username != null ? "gerrit:" + username : null /*claimedIdentity*/);
+  }
+
+  /**
+   * Verifies that the id_token is signed by one of the keys of the user pool, was issued by the
+   * user pool to this client and hasn't expired.
+   */
+  void verify(SignedJwt idToken) throws IOException {
+    userPoolKeys.verify(idToken);
+    idToken.checkClaims(issuer, clientId, Instant.now());
+    if (!"id".equals(idToken.getClaim("token_use"))) {
+      throw new IOException("JWT is not an id_token");
+    }
+  }
+
+  @Nullable
+  private static SignedJwt parseIdToken(@Nullable String tokenResponse) throws IOException {
+    if (tokenResponse == null) {
+      return null;
+    }
+    JsonElement json;
+    try {
+      json = JSON.newGson().fromJson(tokenResponse, JsonElement.class);
+    } catch (JsonParseException e) {
+      return null;
+    }
+    if (json == null || !json.isJsonObject()) {
+      return null;
+    }
+    String idToken = asString(json.getAsJsonObject().get("id_token"));
+    return idToken != null ? SignedJwt.parse(idToken) : null;
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
@@ -15,11 +15,12 @@
 package com.googlesource.gerrit.plugins.oauth.dex;
 
 import static com.google.gerrit.json.OutputFormat.JSON;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.jwtPayloadJson;
 
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -35,9 +36,14 @@ import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.OpenIdIssuer;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +52,17 @@ import org.slf4j.LoggerFactory;
 public class DexOAuthService implements OAuthServiceProvider {
   private static final Logger log = LoggerFactory.getLogger(DexOAuthService.class);
   public static final String PROVIDER_NAME = "dex";
+  static final String USE_FEDERATED_ID = "use-federated-id";
+  private static final String SCOPE = "openid profile email offline_access";
+  private static final String FEDERATED_ID_SCOPE = "federated:id";
+  private static final String METADATA_URL = "%s/dex/.well-known/openid-configuration";
 
   private final OAuth20Service service;
   private final String rootUrl;
-  private final String domain;
+  @Nullable private final Pattern domainSuffix;
+  private final boolean useFederatedId;
+  private final String clientId;
+  private final OpenIdIssuer issuer;
   private final String serviceName;
   private final String extIdScheme;
 
@@ -62,52 +75,88 @@ public class DexOAuthService implements OAuthServiceProvider {
     if (!URI.create(rootUrl).isAbsolute()) {
       throw new ProvisionException("Root URL must be absolute URL");
     }
-    domain = cfg.getString(InitOAuth.DOMAIN, null);
+    domainSuffix = compileDomainSuffix(cfg.getStringList(InitOAuth.DOMAIN));
+    useFederatedId = cfg.getBoolean(USE_FEDERATED_ID, false);
+    clientId = cfg.getString(InitOAuth.CLIENT_ID);
     serviceName = cfg.getString(InitOAuth.SERVICE_NAME, "Dex OAuth2");
 
     service =
         oauth20ServiceFactory.create(
-            PROVIDER_NAME, new DexApi(rootUrl), "openid profile email offline_access");
+            PROVIDER_NAME,
+            new DexApi(rootUrl),
+            useFederatedId ? SCOPE + " " + FEDERATED_ID_SCOPE : SCOPE);
+    issuer = new OpenIdIssuer(service, String.format(METADATA_URL, rootUrl));
 
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
   }
 
+  /** Returns a pattern matching {@code @domain} at the end of an email, for any of the domains. */
+  @Nullable
+  static Pattern compileDomainSuffix(String[] domains) {
+    List<String> quoted = new ArrayList<>();
+    for (String domain : domains) {
+      if (!domain.isEmpty()) {
+        quoted.add(Pattern.quote(domain));
+      }
+    }
+    if (quoted.isEmpty()) {
+      return null;
+    }
+    return Pattern.compile("@(?:" + String.join("|", quoted) + ")$", Pattern.CASE_INSENSITIVE);
+  }
+
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
     JsonElement tokenJson = JSON.newGson().fromJson(token.getRaw(), JsonElement.class);
-    JsonObject tokenObject = tokenJson.getAsJsonObject();
-    JsonElement id_token = tokenObject.get("id_token");
-    String jwt = jwtPayloadJson(id_token.getAsString());
-
-    JsonElement claimJson = JSON.newGson().fromJson(jwt, JsonElement.class);
-
-    // Dex does not support basic profile currently (2017-09), extracting info
-    // from access token claim
+    String idToken =
+        tokenJson != null && tokenJson.isJsonObject()
+            ? asString(tokenJson.getAsJsonObject().get("id_token"))
+            : null;
+    if (idToken == null) {
+      throw new IOException("Token response doesn't contain id_token field");
+    }
+    // Dex doesn't need a user info request, the claims of the id_token describe the user.
+    SignedJwt jwt = SignedJwt.parse(idToken);
+    issuer.verify(jwt, clientId);
+    return toUserInfo(jwt.getClaims());
+  }
 
-    JsonObject claimObject = claimJson.getAsJsonObject();
-    JsonElement emailElement = claimObject.get("email");
-    JsonElement nameElement = claimObject.get("name");
-    if (isNull(emailElement)) {
+  OAuthUserInfo toUserInfo(JsonObject claims) throws IOException {
+    String email = asString(claims.get("email"));
+    String name = asString(claims.get("name"));
+    if (email == null) {
       throw new IOException("Response doesn't contain email field");
     }
-    if (nameElement == null || nameElement.isJsonNull()) {
+    if (name == null) {
       throw new IOException("Response doesn't contain name field");
     }
-    String email = emailElement.getAsString();
-    String name = nameElement.getAsString();
-    String username = email;
-    if (domain != null && domain.length() > 0) {
-      username = email.replace("@" + domain, "");
-    }
+    String username = domainSuffix != null ? domainSuffix.matcher(email).replaceFirst("") : email;
 
     return new OAuthUserInfo(
-        extIdScheme + ":" + email /*externalId*/,
+        extIdScheme + ":" + (useFederatedId ? federatedId(claims) : email) /*externalId*/,
         username /*username*/,
         email /*email*/,
         name /*displayName*/,
         null /*claimedIdentity*/);
   }
 
+  /**
+   * Returns the ID of the user at the upstream identity provider, qualified with the ID of the Dex
+   * connector. Unlike the email, it doesn't change when the user's email changes.
+   */
+  private static String federatedId(JsonObject claims) throws IOException {
+    JsonElement federated = claims.get("federated_claims");
+    if (isNull(federated) || !federated.isJsonObject()) {
+      throw new IOException("Response doesn't contain federated_claims field");
+    }
+    String connectorId = asString(federated.getAsJsonObject().get("connector_id"));
+    String userId = asString(federated.getAsJsonObject().get("user_id"));
+    if (connectorId == null || userId == null) {
+      throw new IOException("Response doesn't contain federated connector_id and user_id");
+    }
+    return connectorId + "/" + userId;
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
@@ -0,0 +1,208 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.facebook;
+
+import static com.googlesource.gerrit.plugins.oauth.UserInfoExtractor.readScalar;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.inject.ProvisionException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the Graph API request for the user profile and reads its response.
+ *
+ * <p>The profile is projected to the configured fields. If permissions are required, the profile
+ * and the granted permissions are fetched with a single batch request. Responses are read as a
+ * stream and only the projected fields are kept.
+ */
+class FacebookGraph {
+  static final String FIELDS = "fields";
+  static final String USERNAME_FIELD = "username-field";
+  static final String REQUIRED_PERMISSION = "required-permission";
+
+  private static final Pattern FIELD_NAME = Pattern.compile("[a-z_]+");
+  private static final ImmutableSet<String> DEFAULT_FIELDS = ImmutableSet.of("id", "email", "name");
+  // The username field is deprecated since Graph API v2.0.
+  private static final String DEFAULT_USERNAME_FIELD = "email";
+  private static final String PERMISSIONS_PATH = "me/permissions";
+
+  record Profile(ImmutableMap<String, String> fields, ImmutableSet<String> grantedPermissions) {}
+
+  private final ImmutableSet<String> fields;
+  private final String usernameField;
+  private final ImmutableSet<String> requiredPermissions;
+  private final String profilePath;
+
+  FacebookGraph(PluginConfig cfg) {
+    ImmutableSet.Builder<String> fields = ImmutableSet.<String>builder().addAll(DEFAULT_FIELDS);
+    for (String value : cfg.getStringList(FIELDS)) {
+      for (String field : value.split(",")) {
+        fields.add(checkFieldName(FIELDS, field.trim()));
+      }
+    }
+    usernameField =
+        checkFieldName(USERNAME_FIELD, cfg.getString(USERNAME_FIELD, DEFAULT_USERNAME_FIELD));
+    this.fields = fields.add(usernameField).build();
+    requiredPermissions =
+        ImmutableSet.copyOf(cfg.getStringList(REQUIRED_PERMISSION)).stream()
+            .map(p -> checkFieldName(REQUIRED_PERMISSION, p.trim()))
+            .collect(ImmutableSet.toImmutableSet());
+    profilePath = "me?fields=" + Joiner.on(',').join(this.fields);
+  }
+
+  private static String checkFieldName(String option, String name) {
+    if (!FIELD_NAME.matcher(name).matches()) {
+      throw new ProvisionException(String.format("Invalid %s '%s'", option, name));
+    }
+    return name;
+  }
+
+  String getUsernameField() {
+    return usernameField;
+  }
+
+  ImmutableSet<String> getRequiredPermissions() {
+    return requiredPermissions;
+  }
+
+  /** Whether the profile must be fetched with a batch request. */
+  boolean isBatch() {
+    return !requiredPermissions.isEmpty();
+  }
+
+  /** Returns the path of the profile, relative to the Graph API root. */
+  String getProfilePath() {
+    return profilePath;
+  }
+
+  /** Returns the {@code batch} parameter requesting the profile and the permissions. */
+  String getBatch() {
+    JsonArray batch = new JsonArray();
+    for (String path : new String[] {profilePath, PERMISSIONS_PATH}) {
+      JsonObject request = new JsonObject();
+      request.addProperty("method", "GET");
+      request.addProperty("relative_url", path);
+      batch.add(request);
+    }
+    return batch.toString();
+  }
+
+  /** Reads the response of the profile request. */
+  Profile readProfile(Reader response) throws IOException {
+    return new Profile(readFields(new JsonReader(response)), ImmutableSet.of());
+  }
+
+  /**
+   * Reads the response of the batch request. Each response of the batch carries its status code
+   * and its body as a JSON encoded string.
+   */
+  Profile readBatch(Reader response) throws IOException {
+    ImmutableMap<String, String> profile = null;
+    ImmutableSet<String> permissions = null;
+    JsonReader reader = new JsonReader(response);
+    reader.beginArray();
+    for (int i = 0; reader.hasNext(); i++) {
+      if (reader.peek() == JsonToken.NULL) {
+        // Facebook returns null for the requests it didn't complete in time.
+        throw new IOException("Graph API batch request " + i + " didn't complete");
+      }
+      int code = 0;
+      String body = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "code" -> code = reader.nextInt();
+          case "body" -> body = reader.nextString();
+          default -> reader.skipValue();
+        }
+      }
+      reader.endObject();
+      if (code != 200 || body == null) {
+        throw new IOException(
+            String.format("Status %s (%s) for Graph API batch request %d", code, body, i));
+      }
+      if (i == 0) {
+        profile = readFields(new JsonReader(new StringReader(body)));
+      } else if (i == 1) {
+        permissions = readGrantedPermissions(new JsonReader(new StringReader(body)));
+      }
+    }
+    reader.endArray();
+    if (profile == null || permissions == null) {
+      throw new IOException("Incomplete Graph API batch response");
+    }
+    return new Profile(profile, permissions);
+  }
+
+  private ImmutableMap<String, String> readFields(JsonReader reader) throws IOException {
+    ImmutableMap.Builder<String, String> values = ImmutableMap.builder();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (!fields.contains(name)) {
+        reader.skipValue();
+        continue;
+      }
+      String value = readScalar(reader);
+      if (value != null) {
+        values.put(name, value);
+      }
+    }
+    reader.endObject();
+    return values.buildKeepingLast();
+  }
+
+  private static ImmutableSet<String> readGrantedPermissions(JsonReader reader)
+      throws IOException {
+    ImmutableSet.Builder<String> granted = ImmutableSet.builder();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (!reader.nextName().equals("data")) {
+        reader.skipValue();
+        continue;
+      }
+      reader.beginArray();
+      while (reader.hasNext()) {
+        String permission = null;
+        String status = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          switch (reader.nextName()) {
+            case "permission" -> permission = reader.nextString();
+            case "status" -> status = reader.nextString();
+            default -> reader.skipValue();
+          }
+        }
+        reader.endObject();
+        if (permission != null && "granted".equals(status)) {
+          granted.add(permission);
+        }
+      }
+      reader.endArray();
+    }
+    reader.endObject();
+    return granted.build();
+  }
+}
@@ -14,27 +14,30 @@
 
 package com.googlesource.gerrit.plugins.oauth.facebook;
 
-import static com.google.gerrit.json.OutputFormat.JSON;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
-
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
 import com.google.gerrit.extensions.auth.oauth.OAuthVerifier;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -44,29 +47,38 @@ import org.slf4j.LoggerFactory;
 @OAuthServiceProviderConfig(name = FacebookOAuthService.PROVIDER_NAME)
 public class FacebookOAuthService implements OAuthServiceProvider {
   private static final Logger log = LoggerFactory.getLogger(FacebookOAuthService.class);
-  private static final String PROTECTED_RESOURCE_URL = "https://graph.facebook.com/me";
+  private static final String GRAPH_URL = "https://graph.facebook.com/";
   public static final String PROVIDER_NAME = "facebook";
   private static final String SCOPE = "email";
-  private static final String FIELDS_QUERY = "fields";
-  private static final String FIELDS = "email,name";
   private final OAuth20Service service;
+  private final FacebookGraph graph;
   private final String extIdScheme;
 
   @Inject
-  FacebookOAuthService(OAuth20ServiceFactory oauth20ServiceFactory) {
-    service = oauth20ServiceFactory.create(PROVIDER_NAME, new Facebook2Api(), SCOPE);
+  FacebookOAuthService(
+      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+    graph = new FacebookGraph(cfgFactory.create(PROVIDER_NAME));
+    // Facebook permissions are requested as scopes.
+    Set<String> scopes = Sets.union(ImmutableSet.of(SCOPE), graph.getRequiredPermissions());
+    String scope = Joiner.on(',').join(scopes);
+    service = oauth20ServiceFactory.create(PROVIDER_NAME, new Facebook2Api(), scope);
 
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
-    OAuthRequest request = new OAuthRequest(Verb.GET, PROTECTED_RESOURCE_URL);
-    request.addQuerystringParameter(FIELDS_QUERY, FIELDS);
+    OAuthRequest request;
+    if (graph.isBatch()) {
+      request = new OAuthRequest(Verb.POST, GRAPH_URL);
+      request.addBodyParameter("batch", graph.getBatch());
+      request.addBodyParameter("include_headers", "false");
+    } else {
+      request = new OAuthRequest(Verb.GET, GRAPH_URL + graph.getProfilePath());
+    }
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
     service.signRequest(t, request);
 
-    JsonElement userJson = null;
     try (Response response = service.execute(request)) {
       if (response.getCode() != HttpServletResponse.SC_OK) {
         throw new IOException(
@@ -74,36 +86,42 @@ public class FacebookOAuthService implements OAuthServiceProvider {
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
-      userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
-
+      FacebookGraph.Profile profile;
+      try (Reader body = new InputStreamReader(response.getStream(), StandardCharsets.UTF_8)) {
+        profile = graph.isBatch() ? graph.readBatch(body) : graph.readProfile(body);
+      } catch (IllegalStateException | NumberFormatException e) {
+        throw new IOException("Invalid Graph API response", e);
+      }
       if (log.isDebugEnabled()) {
-        log.debug("User info response: {}", response.getBody());
+        log.debug("User info response: {}", profile);
       }
-      if (userJson.isJsonObject()) {
-        JsonObject jsonObject = userJson.getAsJsonObject();
-        JsonElement id = jsonObject.get("id");
-        if (isNull(id)) {
-          throw new IOException("Response doesn't contain id field");
-        }
-        JsonElement email = jsonObject.get("email");
-        JsonElement name = jsonObject.get("name");
-        // Heads up!
-        // Lets keep `login` equal to `email`, since `username` field is
-        // deprecated for Facebook API versions v2.0 and higher
-        JsonElement login = jsonObject.get("email");
-
-        return new OAuthUserInfo(
-            extIdScheme + ":" + id.getAsString(),
-            asString(login),
-            asString(email),
-            asString(name),
-            null);
+      Set<String> missing =
+          Sets.difference(graph.getRequiredPermissions(), profile.grantedPermissions());
+      if (!missing.isEmpty()) {
+        log.warn(
+            "Facebook user {} didn't grant the permissions {}",
+            profile.fields().get("id"),
+            missing);
+        // Return null so the user will be shown Unauthorized.
+        return null;
       }
+      return toUserInfo(profile.fields());
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
     }
+  }
 
-    throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
+  private OAuthUserInfo toUserInfo(Map<String, String> profile) throws IOException {
+    String id = profile.get("id");
+    if (id == null) {
+      throw new IOException("Response doesn't contain id field");
+    }
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id,
+        profile.get(graph.getUsernameField()),
+        profile.get("email"),
+        profile.get("name"),
+        null);
   }
 
   @Override
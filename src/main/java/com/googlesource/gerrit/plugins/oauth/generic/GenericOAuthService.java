@@ -0,0 +1,234 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.generic;
+
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
+import com.google.gerrit.extensions.auth.oauth.OAuthToken;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.extensions.auth.oauth.OAuthVerifier;
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.Inject;
+import com.google.inject.ProvisionException;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.UserInfoExtractor;
+import com.googlesource.gerrit.plugins.oauth.UserInfoExtractor.Field;
+import com.googlesource.gerrit.plugins.oauth.discovery.DiscoveryApi;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An OAuth 2.0 provider that is described by configuration only: the URLs of its endpoints and the
+ * JSON Pointers of the user fields in its user info response.
+ *
+ * <p>The pointers are compiled once into a {@link UserInfoExtractor}, which reads the user info
+ * response in a single streaming pass.
+ */
+@Singleton
+@OAuthServiceProviderConfig(name = GenericOAuthService.PROVIDER_NAME)
+public class GenericOAuthService implements OAuthServiceProvider {
+  private static final Logger log = LoggerFactory.getLogger(GenericOAuthService.class);
+  public static final String PROVIDER_NAME = "generic";
+  static final String AUTHORIZE_URL = "authorize-url";
+  static final String TOKEN_URL = "token-url";
+  static final String USERINFO_URL = "userinfo-url";
+  static final String SCOPE = "scope";
+  static final String ID_CLAIM = "id-claim";
+  static final String USERNAME_CLAIM = "username-claim";
+  static final String EMAIL_CLAIM = "email-claim";
+  static final String NAME_CLAIM = "name-claim";
+  private static final String DEFAULT_SCOPE = "openid profile email";
+  private static final ImmutableMap<Field, String> CLAIM_OPTIONS =
+      ImmutableMap.of(
+          Field.ID, ID_CLAIM,
+          Field.USERNAME, USERNAME_CLAIM,
+          Field.EMAIL, EMAIL_CLAIM,
+          Field.NAME, NAME_CLAIM);
+  // The standard claims of OpenID Connect.
+  private static final ImmutableMap<Field, String> DEFAULT_CLAIMS =
+      ImmutableMap.of(
+          Field.ID, "/sub",
+          Field.USERNAME, "/preferred_username",
+          Field.EMAIL, "/email",
+          Field.NAME, "/name");
+
+  private final OAuth20Service service;
+  private final String serviceName;
+  private final String userInfoUrl;
+  private final String extIdScheme;
+  private final UserInfoExtractor extractor;
+  private final Timer0 userInfoLatency;
+  private final Counter0 userInfoFailures;
+
+  @Inject
+  GenericOAuthService(
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      MetricMaker metricMaker) {
+    PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
+    String authorizeUrl = getAbsoluteUrl(cfg, AUTHORIZE_URL);
+    String tokenUrl = getAbsoluteUrl(cfg, TOKEN_URL);
+    userInfoUrl = getAbsoluteUrl(cfg, USERINFO_URL);
+    serviceName = cfg.getString(InitOAuth.SERVICE_NAME, "OAuth");
+    extractor = createExtractor(cfg);
+
+    service =
+        oauth20ServiceFactory.create(
+            PROVIDER_NAME,
+            new DiscoveryApi(authorizeUrl, tokenUrl),
+            cfg.getString(SCOPE, DEFAULT_SCOPE));
+
+    extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
+    userInfoLatency =
+        metricMaker.newTimer(
+            "generic/userinfo_latency",
+            new Description("Latency of the user info requests to the generic OAuth provider")
+                .setCumulative()
+                .setUnit(Description.Units.MILLISECONDS));
+    userInfoFailures =
+        metricMaker.newCounter(
+            "generic/userinfo_failures",
+            new Description("Failed user info requests to the generic OAuth provider")
+                .setRate()
+                .setUnit("requests"));
+  }
+
+  private static String getAbsoluteUrl(PluginConfig cfg, String name) {
+    String url = cfg.getString(name);
+    if (url == null || !URI.create(url).isAbsolute()) {
+      throw new ProvisionException(String.format("%s must be an absolute URL", name));
+    }
+    return url;
+  }
+
+  /**
+   * Compiles the JSON Pointer of each field. An empty pointer option leaves the field unset, the ID
+   * is required.
+   */
+  @VisibleForTesting
+  static UserInfoExtractor createExtractor(PluginConfig cfg) {
+    ImmutableMap.Builder<Field, List<String>> paths = ImmutableMap.builder();
+    for (Map.Entry<Field, String> option : CLAIM_OPTIONS.entrySet()) {
+      String pointer = cfg.getString(option.getValue(), DEFAULT_CLAIMS.get(option.getKey()));
+      if (pointer.isEmpty()) {
+        if (option.getKey() == Field.ID) {
+          throw new ProvisionException(ID_CLAIM + " must not be empty");
+        }
+        continue;
+      }
+      try {
+        paths.put(option.getKey(), UserInfoExtractor.parseJsonPointer(pointer));
+      } catch (IllegalArgumentException e) {
+        throw new ProvisionException(
+            String.format("Invalid %s: %s", option.getValue(), e.getMessage()), e);
+      }
+    }
+    return new UserInfoExtractor(paths.buildOrThrow());
+  }
+
+  @Override
+  public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    OAuthRequest request = new OAuthRequest(Verb.GET, userInfoUrl);
+    OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
+    service.signRequest(t, request);
+
+    try (Timer0.Context ctx = userInfoLatency.start();
+        Response response = service.execute(request)) {
+      if (response.getCode() != SC_OK) {
+        throw new IOException(
+            String.format(
+                "Status %s (%s) for request %s",
+                response.getCode(), response.getBody(), request.getUrl()));
+      }
+      try (Reader body = new InputStreamReader(response.getStream(), StandardCharsets.UTF_8)) {
+        return toUserInfo(body);
+      }
+    } catch (IOException e) {
+      userInfoFailures.increment();
+      throw e;
+    } catch (ExecutionException | InterruptedException e) {
+      userInfoFailures.increment();
+      throw new RuntimeException("Cannot retrieve user info resource", e);
+    }
+  }
+
+  @VisibleForTesting
+  OAuthUserInfo toUserInfo(Reader body) throws IOException {
+    UserInfoExtractor.Profile profile = extractor.read(body);
+    String id = profile.get(Field.ID);
+    if (id == null) {
+      throw new IOException("User info doesn't contain the id claim");
+    }
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id,
+        profile.get(Field.USERNAME),
+        profile.get(Field.EMAIL),
+        profile.get(Field.NAME),
+        null);
+  }
+
+  @Override
+  public OAuthToken getAccessToken(OAuthVerifier verifier) {
+    try {
+      OAuth2AccessToken accessToken = service.getAccessToken(verifier.getValue());
+      return new OAuthToken(
+          accessToken.getAccessToken(), accessToken.getTokenType(), accessToken.getRawResponse());
+    } catch (InterruptedException | ExecutionException | IOException e) {
+      String msg = "Cannot retrieve access token";
+      log.error(msg, e);
+      throw new RuntimeException(msg, e);
+    }
+  }
+
+  @Override
+  public String getAuthorizationUrl() {
+    return service.getAuthorizationUrl();
+  }
+
+  @Override
+  public String getVersion() {
+    return service.getVersion();
+  }
+
+  @Override
+  public String getName() {
+    return serviceName;
+  }
+}
@@ -0,0 +1,228 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static com.google.gerrit.json.OutputFormat.JSON;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Sets;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.inject.ProvisionException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Restricts logins to members of the configured GitHub organizations and teams.
+ *
+ * <p>The GraphQL query that fetches the profile of the user together with the membership in all
+ * configured organizations and teams is built once from the configuration. It returns the first
+ * 100 teams of the user in each organization; further teams are fetched page by page only if none
+ * of the first ones is allowed.
+ */
+class GitHubMembership {
+  static final String ALLOWED_ORGANIZATION = "allowed-organization";
+  static final String ALLOWED_TEAM = "allowed-team";
+  static final String ORG_SCOPE = "read:org";
+
+  private static final Pattern LOGIN = Pattern.compile("[a-z0-9](?:[a-z0-9-]*[a-z0-9])?");
+  private static final String TEAMS_SELECTION =
+      "nodes { slug } pageInfo { hasNextPage endCursor }";
+  private static final String TEAMS_QUERY =
+      "query($org: String!, $cursor: String) { organization(login: $org) {"
+          + " teams(first: 100, after: $cursor, role: MEMBER) { "
+          + TEAMS_SELECTION
+          + " } } }";
+
+  private final ImmutableSet<String> organizations;
+  private final ImmutableSetMultimap<String, String> teams;
+  private final ImmutableList<String> queriedOrganizations;
+  private final String query;
+
+  GitHubMembership(PluginConfig cfg) {
+    ImmutableSet.Builder<String> orgs = ImmutableSet.builder();
+    for (String org : cfg.getStringList(ALLOWED_ORGANIZATION)) {
+      orgs.add(checkLogin(ALLOWED_ORGANIZATION, org));
+    }
+    organizations = orgs.build();
+
+    ImmutableSetMultimap.Builder<String, String> orgTeams = ImmutableSetMultimap.builder();
+    for (String team : cfg.getStringList(ALLOWED_TEAM)) {
+      int slash = team.indexOf('/');
+      if (slash <= 0 || slash == team.length() - 1) {
+        throw new ProvisionException(
+            String.format(
+                "Invalid %s '%s': expected <organization>/<team-slug>", ALLOWED_TEAM, team));
+      }
+      orgTeams.put(
+          checkLogin(ALLOWED_TEAM, team.substring(0, slash)),
+          team.substring(slash + 1).toLowerCase(Locale.US));
+    }
+    teams = orgTeams.build();
+
+    queriedOrganizations = ImmutableList.copyOf(Sets.union(organizations, teams.keySet()));
+    query = buildQuery();
+  }
+
+  boolean isEnabled() {
+    return !queriedOrganizations.isEmpty();
+  }
+
+  /** Returns the GraphQL query for the viewer profile and membership. */
+  String getQuery() {
+    return query;
+  }
+
+  /** Returns whether the {@code data} of the GraphQL response grants access to the viewer. */
+  boolean isAllowed(JsonObject data) {
+    if (!isEnabled()) {
+      return true;
+    }
+    for (int i = 0; i < queriedOrganizations.size(); i++) {
+      JsonElement orgJson = data.get(alias(i));
+      if (isNull(orgJson) || !orgJson.isJsonObject()) {
+        continue;
+      }
+      JsonObject org = orgJson.getAsJsonObject();
+      String login = queriedOrganizations.get(i);
+      if (organizations.contains(login) && isTrue(org.get("viewerIsAMember"))) {
+        return true;
+      }
+      ImmutableSet<String> allowedTeams = teams.get(login);
+      if (!allowedTeams.isEmpty() && isMemberOfAny(org.get("teams"), allowedTeams)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the end cursors of the team lists in {@code data} that continue on a next page, keyed
+   * by the login of their organization. Only organizations with allowed teams are returned.
+   */
+  ImmutableMap<String, String> getNextTeamPages(JsonObject data) {
+    ImmutableMap.Builder<String, String> pages = ImmutableMap.builder();
+    for (int i = 0; i < queriedOrganizations.size(); i++) {
+      String login = queriedOrganizations.get(i);
+      JsonElement org = data.get(alias(i));
+      if (!teams.containsKey(login) || isNull(org) || !org.isJsonObject()) {
+        continue;
+      }
+      String cursor = getNextCursor(org.getAsJsonObject().get("teams"));
+      if (cursor != null) {
+        pages.put(login, cursor);
+      }
+    }
+    return pages.buildOrThrow();
+  }
+
+  /** Returns the GraphQL request for the teams of {@code organization} after {@code cursor}. */
+  String getTeamsRequest(String organization, String cursor) {
+    return JSON.newGson()
+        .toJson(
+            ImmutableMap.of(
+                "query",
+                TEAMS_QUERY,
+                "variables",
+                ImmutableMap.of("org", organization, "cursor", cursor)));
+  }
+
+  /** Returns the teams of the {@code data} of a response to {@link #getTeamsRequest}. */
+  @Nullable
+  static JsonElement getTeams(JsonObject data) {
+    JsonElement org = data.get("organization");
+    return isNull(org) || !org.isJsonObject() ? null : org.getAsJsonObject().get("teams");
+  }
+
+  /** Returns whether {@code teamsJson} contains an allowed team of {@code organization}. */
+  boolean isMemberOfAllowedTeam(String organization, @Nullable JsonElement teamsJson) {
+    return isMemberOfAny(teamsJson, teams.get(organization));
+  }
+
+  /** Returns the cursor of the next page of {@code teamsJson}, or null if it is the last one. */
+  @Nullable
+  static String getNextCursor(@Nullable JsonElement teamsJson) {
+    if (isNull(teamsJson) || !teamsJson.isJsonObject()) {
+      return null;
+    }
+    JsonElement pageInfo = teamsJson.getAsJsonObject().get("pageInfo");
+    if (isNull(pageInfo) || !pageInfo.isJsonObject()) {
+      return null;
+    }
+    JsonObject p = pageInfo.getAsJsonObject();
+    JsonElement cursor = p.get("endCursor");
+    return isTrue(p.get("hasNextPage")) && !isNull(cursor) ? cursor.getAsString() : null;
+  }
+
+  private String buildQuery() {
+    StringBuilder q = new StringBuilder("query { viewer { databaseId login name email }");
+    for (int i = 0; i < queriedOrganizations.size(); i++) {
+      String login = queriedOrganizations.get(i);
+      q.append(' ')
+          .append(alias(i))
+          .append(": organization(login: \"")
+          .append(login)
+          .append("\") { viewerIsAMember");
+      if (teams.containsKey(login)) {
+        q.append(" teams(first: 100, role: MEMBER) { ").append(TEAMS_SELECTION).append(" }");
+      }
+      q.append(" }");
+    }
+    return q.append(" }").toString();
+  }
+
+  private static boolean isMemberOfAny(
+      @Nullable JsonElement teamsJson, ImmutableSet<String> allowedTeams) {
+    if (isNull(teamsJson) || !teamsJson.isJsonObject()) {
+      return false;
+    }
+    JsonElement nodes = teamsJson.getAsJsonObject().get("nodes");
+    if (isNull(nodes) || !nodes.isJsonArray()) {
+      return false;
+    }
+    for (JsonElement node : nodes.getAsJsonArray()) {
+      if (node.isJsonObject()) {
+        JsonElement slug = node.getAsJsonObject().get("slug");
+        if (!isNull(slug) && allowedTeams.contains(slug.getAsString().toLowerCase(Locale.US))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isTrue(JsonElement e) {
+    return !isNull(e) && e.isJsonPrimitive() && e.getAsBoolean();
+  }
+
+  private static String alias(int i) {
+    return "o" + i;
+  }
+
+  private static String checkLogin(String key, String value) {
+    String login = value.trim().toLowerCase(Locale.US);
+    if (!LOGIN.matcher(login).matches()) {
+      throw new ProvisionException(
+          String.format("Invalid %s '%s': not a GitHub organization", key, value));
+    }
+    return login;
+  }
+}
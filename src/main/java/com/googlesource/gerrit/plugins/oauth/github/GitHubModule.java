@@ -0,0 +1,71 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import com.google.gerrit.extensions.annotations.Exports;
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.server.cache.CacheModule;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+
+public class GitHubModule extends CacheModule {
+  static final String USER_CACHE = "github_users";
+  static final String MEMBERSHIP_CACHE = "github_membership";
+  static final String EMAIL_CACHE = "github_emails";
+  static final String RATE_LIMIT_CACHE = "github_rate_limits";
+  static final String RATE_LIMIT_ACCOUNT_CACHE = "github_rate_limit_accounts";
+  static final String MEMBERSHIP_CACHE_TTL = "membership-cache-ttl";
+  private static final long DEFAULT_MEMBERSHIP_CACHE_TTL = TimeUnit.HOURS.toSeconds(1);
+
+  private final Duration membershipCacheTtl;
+
+  public GitHubModule(Config cfg, String section) {
+    membershipCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin",
+                section,
+                MEMBERSHIP_CACHE_TTL,
+                DEFAULT_MEMBERSHIP_CACHE_TTL,
+                TimeUnit.SECONDS));
+  }
+
+  @Override
+  protected void configure() {
+    String extIdScheme =
+        OAuthServiceProviderExternalIdScheme.create(GitHubOAuthService.PROVIDER_NAME);
+    cache(USER_CACHE, String.class, GitHubOAuthLoginProvider.CachedUser.class)
+        .maximumWeight(1024)
+        .expireAfterWrite(Duration.ofDays(1));
+    cache(MEMBERSHIP_CACHE, String.class, Boolean.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(membershipCacheTtl);
+    cache(EMAIL_CACHE, String.class, String.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(Duration.ofHours(1));
+    // GitHub resets the rate limit every hour.
+    cache(RATE_LIMIT_CACHE, String.class, GitHubRateLimit.Budget.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(Duration.ofHours(1));
+    cache(RATE_LIMIT_ACCOUNT_CACHE, String.class, String.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(Duration.ofDays(1));
+    bind(OAuthLoginProvider.class)
+        .annotatedWith(Exports.named(extIdScheme))
+        .to(GitHubOAuthLoginProvider.class);
+  }
+}
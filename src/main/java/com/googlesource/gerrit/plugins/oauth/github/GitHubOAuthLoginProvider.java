@@ -0,0 +1,136 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import com.github.scribejava.core.model.Response;
+import com.google.common.cache.Cache;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.Priority;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Authenticates git over HTTP with GitHub OAuth or personal access tokens.
+ *
+ * <p>The profile returned by {@code GET /user} is cached together with its ETag, keyed by a hash
+ * of the token. Subsequent logins with the same token send a conditional request, which GitHub
+ * answers with {@code 304 Not Modified} without counting it against the rate limit. When the
+ * rate limit runs low or GitHub reports it as exceeded, cached identities are served without
+ * contacting GitHub.
+ */
+@Singleton
+@OAuthServiceProviderConfig(name = GitHubOAuthService.PROVIDER_NAME)
+public class GitHubOAuthLoginProvider implements OAuthLoginProvider {
+  private static final Logger log = LoggerFactory.getLogger(GitHubOAuthLoginProvider.class);
+  private static final String ETAG = "ETag";
+
+  record CachedUser(String etag, OAuthUserInfo userInfo) {}
+
+  private final GitHubOAuthService service;
+  private final GitHubRateLimit rateLimit;
+  private final Cache<String, CachedUser> userCache;
+
+  @Inject
+  GitHubOAuthLoginProvider(
+      GitHubOAuthService service,
+      GitHubRateLimit rateLimit,
+      @Named(GitHubModule.USER_CACHE) Cache<String, CachedUser> userCache) {
+    this.service = service;
+    this.rateLimit = rateLimit;
+    this.userCache = userCache;
+  }
+
+  @Override
+  public OAuthUserInfo login(String username, String secret) throws IOException {
+    if (secret == null) {
+      throw new IOException("Authentication error");
+    }
+    String key = Hashing.sha256().hashString(secret, StandardCharsets.UTF_8).toString();
+    CachedUser cached = userCache.getIfPresent(key);
+    if (cached != null) {
+      rateLimit.bind(secret, cached.userInfo());
+    }
+
+    OAuthUserInfo userInfo;
+    if (!rateLimit.admit(secret, GitHubRateLimit.CORE_RESOURCE, Priority.BACKGROUND)) {
+      // Keep the remaining budget for interactive logins. Tokens that were validated before are
+      // trusted until the rate limit window is reset.
+      if (cached == null) {
+        throw service.rateLimitExceeded(secret);
+      }
+      userInfo = cached.userInfo();
+    } else {
+      userInfo = fetchUserInfo(key, secret, cached);
+    }
+
+    // As for the web login, the external ID is derived from the GitHub user ID, the
+    // username is only checked for consistency if one was provided.
+    if (username != null && !username.equals(userInfo.getUserName())) {
+      throw new IOException("Authentication error: username does not match");
+    }
+    if (!service.isAllowed(userInfo, secret)) {
+      throw new IOException(
+          "Authentication error: not a member of an allowed organization or team");
+    }
+    return userInfo;
+  }
+
+  private OAuthUserInfo fetchUserInfo(String key, String secret, @Nullable CachedUser cached)
+      throws IOException {
+    OAuthUserInfo userInfo;
+    try (Response response =
+        service.executeUserRequest(secret, cached != null ? cached.etag() : null)) {
+      if (response.getCode() == SC_NOT_MODIFIED && cached != null) {
+        userInfo = cached.userInfo();
+      } else if (response.getCode() == SC_OK) {
+        userInfo = service.toUserInfo(response.getBody());
+        rateLimit.bind(secret, userInfo);
+        userInfo = service.withPrimaryEmail(userInfo, secret, Priority.BACKGROUND);
+        String etag = GitHubOAuthService.getHeader(response, ETAG);
+        if (etag != null) {
+          userCache.put(key, new CachedUser(etag, userInfo));
+        } else {
+          userCache.invalidate(key);
+        }
+      } else if (rateLimit.isExhausted(secret, GitHubRateLimit.CORE_RESOURCE)) {
+        // GitHub rejected the request because of the rate limit, not because of the token.
+        if (cached == null) {
+          throw service.rateLimitExceeded(secret);
+        }
+        userInfo = cached.userInfo();
+      } else {
+        userCache.invalidate(key);
+        log.debug("GitHub rejected token with status {}", response.getCode());
+        throw new IOException("Authentication error");
+      }
+    } catch (ExecutionException | InterruptedException e) {
+      throw new IOException("Cannot retrieve user info resource", e);
+    }
+    return userInfo;
+  }
+}
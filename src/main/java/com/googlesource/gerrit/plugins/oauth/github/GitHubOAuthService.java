@@ -24,6 +24,9 @@ import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
 import com.google.common.base.CharMatcher;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -33,12 +36,17 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.PrimaryEmails;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.Priority;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -51,29 +59,52 @@ public class GitHubOAuthService implements OAuthServiceProvider {
   public static final String PROVIDER_NAME = "github";
   private static final String GITHUB_API_ENDPOINT_URL = "https://api.github.com/";
   private static final String GHE_API_ENDPOINT_URL = "%sapi/v3/";
+  private static final String GITHUB_GRAPHQL_URL = "https://api.github.com/graphql";
+  private static final String GHE_GRAPHQL_URL = "%sapi/graphql";
   static final String GITHUB_ROOT_URL = "https://github.com/";
   private final String rootUrl;
 
   static final String SCOPE = "user:email";
+  private static final String IF_NONE_MATCH = "If-None-Match";
   private final boolean fixLegacyUserId;
   private final OAuth20Service service;
+  private final GitHubRateLimit rateLimit;
+  private final GitHubMembership membership;
+  private final String graphQlRequest;
+  private final Cache<String, Boolean> membershipCache;
+  private final Cache<String, String> emailCache;
   private final String extIdScheme;
 
+  record Viewer(OAuthUserInfo userInfo, boolean allowed) {}
+
   @Inject
   GitHubOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      GitHubRateLimit rateLimit,
+      @Named(GitHubModule.MEMBERSHIP_CACHE) Cache<String, Boolean> membershipCache,
+      @Named(GitHubModule.EMAIL_CACHE) Cache<String, String> emailCache) {
+    this.rateLimit = rateLimit;
+    this.membershipCache = membershipCache;
+    this.emailCache = emailCache;
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
     fixLegacyUserId = cfg.getBoolean(InitOAuth.FIX_LEGACY_USER_ID, false);
     rootUrl =
         CharMatcher.is('/').trimTrailingFrom(cfg.getString(InitOAuth.ROOT_URL, GITHUB_ROOT_URL))
             + "/";
 
-    service = oauth20ServiceFactory.create(PROVIDER_NAME, new GitHub2Api(rootUrl), SCOPE);
+    membership = new GitHubMembership(cfg);
+    graphQlRequest = JSON.newGson().toJson(Map.of("query", membership.getQuery()));
+    service =
+        oauth20ServiceFactory.create(
+            PROVIDER_NAME,
+            new GitHub2Api(rootUrl),
+            membership.isEnabled() ? SCOPE + " " + GitHubMembership.ORG_SCOPE : SCOPE);
 
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
   }
 
-  private String getApiUrl() {
+  String getApiUrl() {
     return GITHUB_ROOT_URL.equals(rootUrl)
         ? GITHUB_API_ENDPOINT_URL
         : String.format(GHE_API_ENDPOINT_URL, rootUrl);
@@ -83,47 +114,283 @@ public class GitHubOAuthService implements OAuthServiceProvider {
     return getApiUrl() + "user";
   }
 
+  private String getGraphQlUrl() {
+    return GITHUB_ROOT_URL.equals(rootUrl)
+        ? GITHUB_GRAPHQL_URL
+        : String.format(GHE_GRAPHQL_URL, rootUrl);
+  }
+
+  private String getEmailsUrl() {
+    return getApiUrl() + "user/emails";
+  }
+
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    if (membership.isEnabled()) {
+      Viewer viewer = queryViewer(token.getToken(), Priority.INTERACTIVE);
+      rateLimit.bind(token.getToken(), viewer.userInfo());
+      if (!viewer.allowed()) {
+        log.warn(
+            "GitHub user {} is not a member of an allowed organization or team",
+            viewer.userInfo().getUserName());
+        // Return null so the user will be shown Unauthorized.
+        return null;
+      }
+      return withPrimaryEmail(viewer.userInfo(), token.getToken(), Priority.INTERACTIVE);
+    }
+
+    if (!rateLimit.admit(token.getToken(), GitHubRateLimit.CORE_RESOURCE, Priority.INTERACTIVE)) {
+      throw rateLimitExceeded(token.getToken());
+    }
     OAuthRequest request = new OAuthRequest(Verb.GET, getProtectedResourceUrl());
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
     service.signRequest(t, request);
 
-    JsonElement userJson = null;
-    try (Response response = service.execute(request)) {
+    OAuthUserInfo userInfo;
+    try (Response response = execute(request, token.getToken())) {
       if (response.getCode() != HttpServletResponse.SC_OK) {
+        if (rateLimit.isExhausted(token.getToken(), GitHubRateLimit.CORE_RESOURCE)) {
+          throw rateLimitExceeded(token.getToken());
+        }
         throw new IOException(
             String.format(
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
-      userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
-      if (log.isDebugEnabled()) {
-        log.debug("User info response: {}", response.getBody());
+      userInfo = toUserInfo(response.getBody());
+    } catch (ExecutionException | InterruptedException e) {
+      throw new RuntimeException("Cannot retrieve user info resource", e);
+    }
+    rateLimit.bind(token.getToken(), userInfo);
+    return withPrimaryEmail(userInfo, token.getToken(), Priority.INTERACTIVE);
+  }
+
+  /**
+   * Completes {@code userInfo} with the verified primary email of the user if GitHub didn't
+   * include it in the profile because the user keeps it private. The email is taken from the cache
+   * if possible, and only otherwise requested from {@code /user/emails}. Failing to resolve the
+   * email doesn't fail the login.
+   */
+  OAuthUserInfo withPrimaryEmail(OAuthUserInfo userInfo, String accessToken, Priority priority) {
+    if (userInfo.getEmailAddress() != null) {
+      return userInfo;
+    }
+    String id = userInfo.getExternalId().substring(extIdScheme.length() + 1);
+    String email = emailCache.getIfPresent(id);
+    if (email == null) {
+      try {
+        email = fetchPrimaryEmail(accessToken, priority);
+      } catch (IOException | ExecutionException e) {
+        log.warn("Cannot retrieve primary email of GitHub user {}", userInfo.getUserName(), e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
-      if (userJson.isJsonObject()) {
-        JsonObject jsonObject = userJson.getAsJsonObject();
-        JsonElement id = jsonObject.get("id");
-        if (isNull(id)) {
-          throw new IOException("Response doesn't contain id field");
-        }
-        JsonElement email = jsonObject.get("email");
-        JsonElement name = jsonObject.get("name");
-        JsonElement login = jsonObject.get("login");
-        return new OAuthUserInfo(
+      if (email == null) {
+        return userInfo;
+      }
+      emailCache.put(id, email);
+    }
+    return PrimaryEmails.withEmail(userInfo, email);
+  }
+
+  @Nullable
+  private String fetchPrimaryEmail(String accessToken, Priority priority)
+      throws IOException, InterruptedException, ExecutionException {
+    if (!rateLimit.admit(accessToken, GitHubRateLimit.CORE_RESOURCE, priority)) {
+      log.debug("Not requesting the primary email, the GitHub API rate limit is low");
+      return null;
+    }
+    OAuthRequest request = new OAuthRequest(Verb.GET, getEmailsUrl());
+    service.signRequest(accessToken, request);
+    try (Response response = execute(request, accessToken)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        log.warn("Status {} for request {}", response.getCode(), request.getUrl());
+        return null;
+      }
+      return PrimaryEmails.find(
+          JSON.newGson().fromJson(response.getBody(), JsonElement.class), "primary", "verified");
+    }
+  }
+
+  /**
+   * Returns whether the user may log in. The membership is looked up in the cache first, and only
+   * queried from GitHub if it is unknown or expired.
+   */
+  boolean isAllowed(OAuthUserInfo userInfo, String accessToken) throws IOException {
+    if (!membership.isEnabled()) {
+      return true;
+    }
+    String id = userInfo.getExternalId().substring(extIdScheme.length() + 1);
+    Boolean allowed = membershipCache.getIfPresent(id);
+    if (allowed == null) {
+      allowed = queryViewer(accessToken, Priority.BACKGROUND).allowed();
+    }
+    return allowed;
+  }
+
+  /**
+   * Fetches the profile of the user owning {@code accessToken} together with the membership in the
+   * allowed organizations and teams with a single GraphQL request. Only users in more than 100
+   * teams of an organization need further requests for the next pages of their teams.
+   */
+  Viewer queryViewer(String accessToken, Priority priority) throws IOException {
+    JsonObject data = postGraphQl(accessToken, graphQlRequest, priority);
+    JsonElement viewerJson = data.get("viewer");
+    if (isNull(viewerJson) || !viewerJson.isJsonObject()) {
+      throw new IOException("GraphQL response doesn't contain viewer field");
+    }
+    JsonObject viewer = viewerJson.getAsJsonObject();
+    JsonElement id = viewer.get("databaseId");
+    if (isNull(id)) {
+      throw new IOException("Response doesn't contain id field");
+    }
+    OAuthUserInfo userInfo =
+        new OAuthUserInfo(
             extIdScheme + ":" + id.getAsString(),
-            asString(login),
-            asString(email),
-            asString(name),
+            asString(viewer.get("login")),
+            // The GraphQL API returns an empty string instead of a private email
+            Strings.emptyToNull(asString(viewer.get("email"))),
+            asString(viewer.get("name")),
             fixLegacyUserId ? id.getAsString() : null);
+    boolean allowed =
+        membership.isAllowed(data)
+            || isMemberOfAllowedTeam(accessToken, membership.getNextTeamPages(data), priority);
+    membershipCache.put(id.getAsString(), allowed);
+    return new Viewer(userInfo, allowed);
+  }
+
+  /** Looks for an allowed team on the next pages of the teams of the user. */
+  private boolean isMemberOfAllowedTeam(
+      String accessToken, Map<String, String> nextPages, Priority priority) throws IOException {
+    for (Map.Entry<String, String> page : nextPages.entrySet()) {
+      String organization = page.getKey();
+      String cursor = page.getValue();
+      while (cursor != null) {
+        JsonElement teams =
+            GitHubMembership.getTeams(
+                postGraphQl(
+                    accessToken, membership.getTeamsRequest(organization, cursor), priority));
+        if (membership.isMemberOfAllowedTeam(organization, teams)) {
+          return true;
+        }
+        cursor = GitHubMembership.getNextCursor(teams);
+      }
+    }
+    return false;
+  }
+
+  /** Sends a GraphQL request and returns the {@code data} of the response. */
+  private JsonObject postGraphQl(String accessToken, String payload, Priority priority)
+      throws IOException {
+    if (!rateLimit.admit(accessToken, GitHubRateLimit.GRAPHQL_RESOURCE, priority)) {
+      throw rateLimitExceeded(accessToken, GitHubRateLimit.GRAPHQL_RESOURCE);
+    }
+    OAuthRequest request = new OAuthRequest(Verb.POST, getGraphQlUrl());
+    request.addHeader("Content-Type", "application/json");
+    request.setPayload(payload);
+    service.signRequest(accessToken, request);
+
+    try (Response response = execute(request, accessToken)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        if (rateLimit.isExhausted(accessToken, GitHubRateLimit.GRAPHQL_RESOURCE)) {
+          throw rateLimitExceeded(accessToken, GitHubRateLimit.GRAPHQL_RESOURCE);
+        }
+        throw new IOException(
+            String.format(
+                "Status %s (%s) for request %s",
+                response.getCode(), response.getBody(), request.getUrl()));
       }
+      if (log.isDebugEnabled()) {
+        log.debug("GraphQL response: {}", response.getBody());
+      }
+      JsonElement responseJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
+      JsonElement data =
+          responseJson.isJsonObject() ? responseJson.getAsJsonObject().get("data") : null;
+      if (isNull(data) || !data.isJsonObject()) {
+        throw new IOException(
+            String.format("GraphQL response doesn't contain data: %s", response.getBody()));
+      }
+      return data.getAsJsonObject();
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
     }
+  }
+
+  /**
+   * Requests the profile of the user owning {@code accessToken}. When {@code etag} is set the
+   * request is made conditional, so that GitHub can answer with {@code 304 Not Modified}.
+   */
+  Response executeUserRequest(String accessToken, @Nullable String etag)
+      throws IOException, InterruptedException, ExecutionException {
+    OAuthRequest request = new OAuthRequest(Verb.GET, getProtectedResourceUrl());
+    if (etag != null) {
+      request.addHeader(IF_NONE_MATCH, etag);
+    }
+    service.signRequest(accessToken, request);
+    return execute(request, accessToken);
+  }
 
+  private Response execute(OAuthRequest request, String accessToken)
+      throws IOException, InterruptedException, ExecutionException {
+    Response response = service.execute(request);
+    rateLimit.update(accessToken, response);
+    return response;
+  }
+
+  OAuthUserInfo toUserInfo(String body) throws IOException {
+    JsonElement userJson = JSON.newGson().fromJson(body, JsonElement.class);
+    if (log.isDebugEnabled()) {
+      log.debug("User info response: {}", body);
+    }
+    if (userJson.isJsonObject()) {
+      JsonObject jsonObject = userJson.getAsJsonObject();
+      JsonElement id = jsonObject.get("id");
+      if (isNull(id)) {
+        throw new IOException("Response doesn't contain id field");
+      }
+      JsonElement email = jsonObject.get("email");
+      JsonElement name = jsonObject.get("name");
+      JsonElement login = jsonObject.get("login");
+      return new OAuthUserInfo(
+          extIdScheme + ":" + id.getAsString(),
+          asString(login),
+          asString(email),
+          asString(name),
+          fixLegacyUserId ? id.getAsString() : null);
+    }
     throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
   }
 
+  /**
+   * Returns the error for a request that isn't sent because the rate limit of {@code accessToken}
+   * is used up. The first such error of each rate limit window is logged as a warning.
+   */
+  IOException rateLimitExceeded(String accessToken) {
+    return rateLimitExceeded(accessToken, GitHubRateLimit.CORE_RESOURCE);
+  }
+
+  private IOException rateLimitExceeded(String accessToken, String resource) {
+    Instant reset = rateLimit.getReset(accessToken, resource);
+    String msg = String.format("GitHub API rate limit exceeded, resets at %s", reset);
+    if (rateLimit.shouldWarn(accessToken, resource)) {
+      log.warn(msg);
+    } else {
+      log.debug(msg);
+    }
+    return new IOException(msg);
+  }
+
+  /** Returns the value of a response header, matching its name case-insensitively. */
+  @Nullable
+  static String getHeader(Response response, String name) {
+    for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+      if (name.equalsIgnoreCase(header.getKey())) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
@@ -0,0 +1,234 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static javax.servlet.http.HttpServletResponse.SC_UNAUTHORIZED;
+
+import com.github.scribejava.core.model.Response;
+import com.google.common.cache.Cache;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the GitHub API rate limit as reported by the GitHub responses and decides which
+ * requests are still admitted when the budget runs low.
+ *
+ * <p>GitHub accounts the requests made with OAuth and personal access tokens to the user owning
+ * the token, so the budget is tracked per user and API resource. Until the user of a token is
+ * known, which is after its first {@code GET /user}, the budget is tracked per token. This way,
+ * background requests made with the personal access token of a user see the budget used by the
+ * web logins of the same user, and stop at the reserve that is left for them.
+ *
+ * <p>Interactive web logins are admitted as long as there is any budget left, whereas background
+ * requests, such as the validation of tokens used for git over HTTP, are deferred once the
+ * remaining budget drops to the configured reserve.
+ */
+@Singleton
+public class GitHubRateLimit {
+  private static final Logger log = LoggerFactory.getLogger(GitHubRateLimit.class);
+  static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+  static final String RESET_HEADER = "X-RateLimit-Reset";
+  static final String RESOURCE_HEADER = "X-RateLimit-Resource";
+  static final String CORE_RESOURCE = "core";
+  static final String GRAPHQL_RESOURCE = "graphql";
+  static final String RATE_LIMIT_RESERVE = "rate-limit-reserve";
+  static final int DEFAULT_RATE_LIMIT_RESERVE = 100;
+
+  enum Priority {
+    INTERACTIVE,
+    BACKGROUND
+  }
+
+  record Budget(long remaining, long resetEpochSecond, boolean warned) {
+    boolean isCurrent() {
+      return Instant.now().getEpochSecond() < resetEpochSecond;
+    }
+  }
+
+  private final long reserve;
+  private final Cache<String, Budget> budgets;
+  private final Cache<String, String> accounts;
+  private final AtomicLong lastRemaining = new AtomicLong(-1);
+  private final Counter0 deferred;
+
+  @Inject
+  GitHubRateLimit(
+      OAuthPluginConfigFactory cfgFactory,
+      MetricMaker metricMaker,
+      @Named(GitHubModule.RATE_LIMIT_CACHE) Cache<String, Budget> budgets,
+      @Named(GitHubModule.RATE_LIMIT_ACCOUNT_CACHE) Cache<String, String> accounts) {
+    this.budgets = budgets;
+    this.accounts = accounts;
+    reserve =
+        cfgFactory
+            .create(GitHubOAuthService.PROVIDER_NAME)
+            .getInt(RATE_LIMIT_RESERVE, DEFAULT_RATE_LIMIT_RESERVE);
+    metricMaker.newCallbackMetric(
+        "github/rate_limit_remaining",
+        Long.class,
+        new Description("Requests left in the most recently reported GitHub API rate limit")
+            .setGauge()
+            .setUnit("requests"),
+        lastRemaining::get);
+    deferred =
+        metricMaker.newCounter(
+            "github/rate_limit_deferred",
+            new Description("GitHub API requests not admitted because of a low rate limit")
+                .setRate()
+                .setUnit("requests"));
+  }
+
+  /**
+   * Records the budget reported by a response to a request made with {@code accessToken}, including
+   * the {@code 403} and {@code 429} responses to requests that exceeded it. Only {@code 401}
+   * responses are ignored: GitHub answers requests with an invalid token with the budget of
+   * unauthenticated requests, which isn't the one of the token.
+   */
+  void update(String accessToken, Response response) {
+    if (response.getCode() == SC_UNAUTHORIZED) {
+      return;
+    }
+    String resource = GitHubOAuthService.getHeader(response, RESOURCE_HEADER);
+    if (resource == null) {
+      resource = CORE_RESOURCE;
+    }
+    Long left = parse(response, REMAINING_HEADER);
+    Long reset = parse(response, RESET_HEADER);
+    if (left == null || reset == null) {
+      return;
+    }
+    String key = key(resource, accessToken);
+    Budget previous = budgets.getIfPresent(key);
+    boolean warned =
+        previous != null && previous.warned() && previous.resetEpochSecond() == reset;
+    budgets.put(key, new Budget(left, reset, warned));
+    if (CORE_RESOURCE.equals(resource)) {
+      lastRemaining.set(left);
+    }
+  }
+
+  /**
+   * Associates {@code accessToken} with the user owning it, so that its budget is shared with the
+   * other tokens of the user. The budget reported so far for the token is taken over by the user
+   * if it is more recent, which is the case if it is of a later window or lower.
+   */
+  void bind(String accessToken, OAuthUserInfo userInfo) {
+    String token = hash(accessToken);
+    String account = userInfo.getExternalId();
+    if (account.equals(accounts.getIfPresent(token))) {
+      return;
+    }
+    accounts.put(token, account);
+    for (String resource : new String[] {CORE_RESOURCE, GRAPHQL_RESOURCE}) {
+      Budget budget = budgets.getIfPresent(resource + ":" + token);
+      if (budget == null) {
+        continue;
+      }
+      Budget shared = budgets.getIfPresent(resource + ":" + account);
+      if (shared == null
+          || budget.resetEpochSecond() > shared.resetEpochSecond()
+          || (budget.resetEpochSecond() == shared.resetEpochSecond()
+              && budget.remaining() < shared.remaining())) {
+        budgets.put(resource + ":" + account, budget);
+      }
+      budgets.invalidate(resource + ":" + token);
+    }
+  }
+
+  /**
+   * Returns whether a request of the given priority may be sent to the {@code resource} API of
+   * GitHub with {@code accessToken}. Requests are always admitted if the budget is unknown or the
+   * rate limit window has been reset since the last response.
+   */
+  boolean admit(String accessToken, String resource, Priority priority) {
+    Budget budget = budgets.getIfPresent(key(resource, accessToken));
+    if (budget == null || !budget.isCurrent()) {
+      return true;
+    }
+    long threshold = priority == Priority.INTERACTIVE ? 0 : reserve;
+    if (budget.remaining() > threshold) {
+      return true;
+    }
+    deferred.increment();
+    return false;
+  }
+
+  /** Returns whether the budget of {@code accessToken} for {@code resource} is used up. */
+  boolean isExhausted(String accessToken, String resource) {
+    Budget budget = budgets.getIfPresent(key(resource, accessToken));
+    return budget != null && budget.isCurrent() && budget.remaining() == 0;
+  }
+
+  /**
+   * Returns the time at which the rate limit window of {@code accessToken} for {@code resource}
+   * is reset, or {@code null} if unknown.
+   */
+  @Nullable
+  Instant getReset(String accessToken, String resource) {
+    Budget budget = budgets.getIfPresent(key(resource, accessToken));
+    return budget != null ? Instant.ofEpochSecond(budget.resetEpochSecond()) : null;
+  }
+
+  /**
+   * Returns whether the exhausted budget of {@code accessToken} for {@code resource} should be
+   * logged, which is the case only once per rate limit window of the budget.
+   */
+  boolean shouldWarn(String accessToken, String resource) {
+    String key = key(resource, accessToken);
+    Budget budget = budgets.getIfPresent(key);
+    if (budget == null) {
+      return true;
+    }
+    Budget warned = new Budget(budget.remaining(), budget.resetEpochSecond(), true);
+    return !budget.warned() && budgets.asMap().replace(key, budget, warned);
+  }
+
+  private String key(String resource, String accessToken) {
+    String token = hash(accessToken);
+    String account = accounts.getIfPresent(token);
+    return resource + ":" + (account != null ? account : token);
+  }
+
+  private static String hash(String accessToken) {
+    return Hashing.sha256().hashString(accessToken, StandardCharsets.UTF_8).toString();
+  }
+
+  @Nullable
+  private static Long parse(Response response, String header) {
+    String value = GitHubOAuthService.getHeader(response, header);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      log.debug("Ignoring invalid {} header: {}", header, value);
+      return null;
+    }
+  }
+}
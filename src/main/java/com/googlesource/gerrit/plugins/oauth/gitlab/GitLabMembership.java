@@ -0,0 +1,108 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.gitlab;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.inject.ProvisionException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Restricts logins to members of the configured GitLab groups.
+ *
+ * <p>The groups of the user are listed with {@code GET /groups}, filtered by GitLab to the ones in
+ * which the user has at least {@code min-access-level}. The pages are parsed as a stream and the
+ * listing stops with the first allowed group.
+ */
+class GitLabMembership {
+  static final String ALLOWED_GROUP = "allowed-group";
+  static final String MIN_ACCESS_LEVEL = "min-access-level";
+  // Guest
+  private static final int DEFAULT_MIN_ACCESS_LEVEL = 10;
+  private static final int PAGE_SIZE = 100;
+  private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
+
+  private final ImmutableSet<String> groups;
+  private final String groupsPath;
+
+  GitLabMembership(PluginConfig cfg) {
+    ImmutableSet.Builder<String> groups = ImmutableSet.builder();
+    for (String group : cfg.getStringList(ALLOWED_GROUP)) {
+      String path = group.trim();
+      if (path.isEmpty() || path.startsWith("/") || path.endsWith("/")) {
+        throw new ProvisionException(
+            String.format(
+                "Invalid %s '%s': expected the full path of a group", ALLOWED_GROUP, group));
+      }
+      groups.add(path.toLowerCase(Locale.ROOT));
+    }
+    this.groups = groups.build();
+    // GitLab only supports keyset pagination of groups for anonymous requests, so the groups are
+    // paged with offsets, following the next page link of each response.
+    this.groupsPath =
+        String.format(
+            "groups?min_access_level=%d&per_page=%d&order_by=name&sort=asc",
+            cfg.getInt(MIN_ACCESS_LEVEL, DEFAULT_MIN_ACCESS_LEVEL), PAGE_SIZE);
+  }
+
+  boolean isEnabled() {
+    return !groups.isEmpty();
+  }
+
+  /** Returns the API path of the first page of groups of the user. */
+  String getGroupsPath() {
+    return groupsPath;
+  }
+
+  /**
+   * Reads a page of groups and returns whether it contains an allowed group. Reading stops as soon
+   * as one is found.
+   */
+  boolean containsAllowedGroup(Reader page) throws IOException {
+    JsonReader reader = new JsonReader(page);
+    reader.beginArray();
+    while (reader.hasNext()) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        if (reader.nextName().equals("full_path") && reader.peek() == JsonToken.STRING) {
+          if (groups.contains(reader.nextString().toLowerCase(Locale.ROOT))) {
+            return true;
+          }
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+    return false;
+  }
+
+  /** Returns the URL of the next page from the {@code Link} header, if there is one. */
+  @Nullable
+  static String getNextPageUrl(@Nullable String link) {
+    if (link == null) {
+      return null;
+    }
+    Matcher m = NEXT_LINK.matcher(link);
+    return m.find() ? m.group(1) : null;
+  }
+}
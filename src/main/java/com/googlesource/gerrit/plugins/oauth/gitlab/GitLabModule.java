@@ -0,0 +1,65 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.gitlab;
+
+import com.google.gerrit.extensions.annotations.Exports;
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.server.cache.CacheModule;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+
+public class GitLabModule extends CacheModule {
+  static final String TOKEN_CACHE = "gitlab_tokens";
+  static final String TOKEN_CACHE_TTL = "token-cache-ttl";
+  static final String MEMBERSHIP_CACHE = "gitlab_membership";
+  static final String MEMBERSHIP_CACHE_TTL = "membership-cache-ttl";
+  private static final long DEFAULT_TOKEN_CACHE_TTL = TimeUnit.HOURS.toSeconds(1);
+  private static final long DEFAULT_MEMBERSHIP_CACHE_TTL = TimeUnit.HOURS.toSeconds(1);
+
+  private final Duration tokenCacheTtl;
+  private final Duration membershipCacheTtl;
+
+  public GitLabModule(Config cfg, String section) {
+    tokenCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin", section, TOKEN_CACHE_TTL, DEFAULT_TOKEN_CACHE_TTL, TimeUnit.SECONDS));
+    membershipCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin",
+                section,
+                MEMBERSHIP_CACHE_TTL,
+                DEFAULT_MEMBERSHIP_CACHE_TTL,
+                TimeUnit.SECONDS));
+  }
+
+  @Override
+  protected void configure() {
+    String extIdScheme =
+        OAuthServiceProviderExternalIdScheme.create(GitLabOAuthService.PROVIDER_NAME);
+    cache(TOKEN_CACHE, String.class, GitLabOAuthLoginProvider.CachedToken.class)
+        .maximumWeight(1024)
+        .expireAfterWrite(tokenCacheTtl);
+    cache(MEMBERSHIP_CACHE, String.class, Boolean.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(membershipCacheTtl);
+    bind(OAuthLoginProvider.class)
+        .annotatedWith(Exports.named(extIdScheme))
+        .to(GitLabOAuthLoginProvider.class);
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.gitlab;
+
+import static com.google.gerrit.json.OutputFormat.JSON;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import com.github.scribejava.core.model.Response;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Authenticates git over HTTP with GitLab personal, project or group access tokens.
+ *
+ * <p>A token is validated with {@code GET /personal_access_tokens/self} and mapped to the user
+ * owning it with {@code GET /user}. The identity is cached, keyed by a hash of the token, until the
+ * token expires or the {@code token-cache-ttl} elapses, whichever comes first. GitLab is not asked
+ * again in the meantime, so a token that is revoked keeps working until its cache entry expires.
+ */
+@Singleton
+@OAuthServiceProviderConfig(name = GitLabOAuthService.PROVIDER_NAME)
+public class GitLabOAuthLoginProvider implements OAuthLoginProvider {
+  private static final Logger log = LoggerFactory.getLogger(GitLabOAuthLoginProvider.class);
+  static final String TOKEN_PATH = "personal_access_tokens/self";
+  static final String USER_PATH = "user";
+
+  record CachedToken(OAuthUserInfo userInfo, @Nullable Instant expiresAt) {}
+
+  private final GitLabOAuthService service;
+  private final Cache<String, CachedToken> tokenCache;
+  private final Clock clock;
+
+  @Inject
+  GitLabOAuthLoginProvider(
+      GitLabOAuthService service,
+      @Named(GitLabModule.TOKEN_CACHE) Cache<String, CachedToken> tokenCache) {
+    this(service, tokenCache, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  GitLabOAuthLoginProvider(
+      GitLabOAuthService service, Cache<String, CachedToken> tokenCache, Clock clock) {
+    this.service = service;
+    this.tokenCache = tokenCache;
+    this.clock = clock;
+  }
+
+  @Override
+  public OAuthUserInfo login(String username, String secret) throws IOException {
+    if (secret == null) {
+      throw new IOException("Authentication error");
+    }
+    String key = Hashing.sha256().hashString(secret, StandardCharsets.UTF_8).toString();
+    CachedToken cached = tokenCache.getIfPresent(key);
+    if (cached != null && isExpired(cached.expiresAt())) {
+      tokenCache.invalidate(key);
+      cached = null;
+    }
+    if (cached == null) {
+      cached = validate(key, secret);
+    }
+
+    OAuthUserInfo userInfo = cached.userInfo();
+    // As for the web login, the external ID is derived from the GitLab user ID, the
+    // username is only checked for consistency if one was provided.
+    if (username != null && !username.equals(userInfo.getUserName())) {
+      throw new IOException("Authentication error: username does not match");
+    }
+    return userInfo;
+  }
+
+  private CachedToken validate(String key, String secret) throws IOException {
+    try {
+      JsonObject token = get(TOKEN_PATH, secret);
+      JsonElement active = token.get("active");
+      if (isNull(active) || !active.getAsBoolean()) {
+        throw new IOException("Authentication error: token is not active");
+      }
+      Instant expiresAt = parseExpiry(asString(token.get("expires_at")));
+      if (isExpired(expiresAt)) {
+        throw new IOException("Authentication error: token is expired");
+      }
+      OAuthUserInfo userInfo;
+      try (Response response = service.executeApiRequest(USER_PATH, secret)) {
+        checkStatus(response);
+        userInfo = service.toUserInfo(response.getBody());
+      }
+      if (!service.isAllowed(userInfo, secret)) {
+        throw new IOException("Authentication error: not a member of an allowed group");
+      }
+      CachedToken validated = new CachedToken(userInfo, expiresAt);
+      tokenCache.put(key, validated);
+      return validated;
+    } catch (ExecutionException | InterruptedException e) {
+      throw new IOException("Cannot retrieve user info resource", e);
+    }
+  }
+
+  private JsonObject get(String path, String secret)
+      throws IOException, InterruptedException, ExecutionException {
+    try (Response response = service.executeApiRequest(path, secret)) {
+      checkStatus(response);
+      JsonElement json = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
+      if (json == null || !json.isJsonObject()) {
+        throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", json));
+      }
+      return json.getAsJsonObject();
+    }
+  }
+
+  private static void checkStatus(Response response) throws IOException {
+    if (response.getCode() == SC_OK) {
+      return;
+    }
+    log.debug("GitLab rejected token with status {}", response.getCode());
+    throw new IOException("Authentication error");
+  }
+
+  private boolean isExpired(@Nullable Instant expiresAt) {
+    return expiresAt != null && !clock.instant().isBefore(expiresAt);
+  }
+
+  /** GitLab access tokens expire at the start of their {@code expires_at} date (UTC). */
+  @Nullable
+  static Instant parseExpiry(@Nullable String expiresAt) throws IOException {
+    if (expiresAt == null) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(expiresAt).atStartOfDay(ZoneOffset.UTC).toInstant();
+    } catch (DateTimeParseException e) {
+      throw new IOException("Invalid token expiry: " + expiresAt, e);
+    }
+  }
+}
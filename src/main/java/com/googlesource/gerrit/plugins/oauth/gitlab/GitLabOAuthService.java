@@ -25,6 +25,8 @@ import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.cache.Cache;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -35,13 +37,18 @@ import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
 
@@ -50,15 +57,22 @@ import org.slf4j.Logger;
 public class GitLabOAuthService implements OAuthServiceProvider {
   private static final Logger log = getLogger(GitLabOAuthService.class);
   private static final String PROTECTED_RESOURCE_URL = "%s/api/v3/user";
+  private static final String API_URL = "%s/api/v4/%s";
   public static final String PROVIDER_NAME = "gitlab";
   private final OAuth20Service service;
   private final String rootUrl;
   private final String extIdScheme;
+  private final GitLabMembership membership;
+  private final Cache<String, Boolean> membershipCache;
 
   @Inject
   GitLabOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      @Named(GitLabModule.MEMBERSHIP_CACHE) Cache<String, Boolean> membershipCache) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
+    this.membershipCache = membershipCache;
+    membership = new GitLabMembership(cfg);
     rootUrl = cfg.getString(InitOAuth.ROOT_URL);
     if (!URI.create(rootUrl).isAbsolute()) {
       throw new ProvisionException("Root URL must be absolute URL");
@@ -82,29 +96,114 @@ public class GitLabOAuthService implements OAuthServiceProvider {
                 "Status %s (%s) for request %s",
                 response.getCode(), response.getBody(), request.getUrl()));
       }
-      JsonElement userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
-      if (log.isDebugEnabled()) {
-        log.debug("User info response: {}", response.getBody());
+      OAuthUserInfo userInfo = toUserInfo(response.getBody());
+      if (!isAllowed(userInfo, token.getToken())) {
+        // Return null so the user will be shown Unauthorized.
+        return null;
       }
-      JsonObject jsonObject = userJson.getAsJsonObject();
-      if (isNull(jsonObject)) {
-        throw new IOException("Response doesn't contain 'user' field" + jsonObject);
-      }
-      JsonElement id = jsonObject.get("id");
-      JsonElement username = jsonObject.get("username");
-      JsonElement email = jsonObject.get("email");
-      JsonElement name = jsonObject.get("name");
-      return new OAuthUserInfo(
-          extIdScheme + ":" + id.getAsString(),
-          asString(username),
-          asString(email),
-          asString(name),
-          null);
+      return userInfo;
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
     }
   }
 
+  OAuthUserInfo toUserInfo(String body) throws IOException {
+    JsonElement userJson = JSON.newGson().fromJson(body, JsonElement.class);
+    if (log.isDebugEnabled()) {
+      log.debug("User info response: {}", body);
+    }
+    if (userJson == null || !userJson.isJsonObject()) {
+      throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
+    }
+    JsonObject jsonObject = userJson.getAsJsonObject();
+    JsonElement id = jsonObject.get("id");
+    if (isNull(id)) {
+      throw new IOException("Response doesn't contain id field");
+    }
+    JsonElement username = jsonObject.get("username");
+    JsonElement email = jsonObject.get("email");
+    JsonElement name = jsonObject.get("name");
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id.getAsString(),
+        asString(username),
+        asString(email),
+        asString(name),
+        null);
+  }
+
+  /**
+   * Requests {@code path} of the GitLab REST API v4, authenticated with an OAuth token or a
+   * personal, project or group access token.
+   */
+  Response executeApiRequest(String path, String accessToken)
+      throws IOException, InterruptedException, ExecutionException {
+    return executeRequest(String.format(API_URL, rootUrl, path), accessToken);
+  }
+
+  private Response executeRequest(String url, String accessToken)
+      throws IOException, InterruptedException, ExecutionException {
+    OAuthRequest request = new OAuthRequest(Verb.GET, url);
+    // GitLab accepts all kinds of access tokens as bearer tokens.
+    request.addHeader("Authorization", "Bearer " + accessToken);
+    return service.execute(request);
+  }
+
+  /**
+   * Returns whether the user may log in. Members of an allowed group are cached per user. Otherwise
+   * the groups of the user are listed page by page until an allowed group is found, so that users
+   * added to an allowed group since their last attempt aren't kept out.
+   */
+  boolean isAllowed(OAuthUserInfo userInfo, String accessToken) throws IOException {
+    if (!membership.isEnabled()) {
+      return true;
+    }
+    String id = userInfo.getExternalId().substring(extIdScheme.length() + 1);
+    if (membershipCache.getIfPresent(id) != null) {
+      return true;
+    }
+    if (!isMemberOfAllowedGroup(accessToken)) {
+      log.warn("GitLab user {} is not a member of an allowed group", userInfo.getUserName());
+      return false;
+    }
+    membershipCache.put(id, true);
+    return true;
+  }
+
+  private boolean isMemberOfAllowedGroup(String accessToken) throws IOException {
+    String url = String.format(API_URL, rootUrl, membership.getGroupsPath());
+    try {
+      while (url != null) {
+        try (Response response = executeRequest(url, accessToken)) {
+          if (response.getCode() != SC_OK) {
+            throw new IOException(
+                String.format(
+                    "Status %s (%s) for request %s", response.getCode(), response.getBody(), url));
+          }
+          try (Reader page =
+              new InputStreamReader(response.getStream(), StandardCharsets.UTF_8)) {
+            if (membership.containsAllowedGroup(page)) {
+              return true;
+            }
+          }
+          url = GitLabMembership.getNextPageUrl(getHeader(response, "Link"));
+        }
+      }
+      return false;
+    } catch (ExecutionException | InterruptedException e) {
+      throw new IOException("Cannot retrieve groups", e);
+    }
+  }
+
+  @Nullable
+  private static String getHeader(Response response, String name) {
+    for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+      if (name.equalsIgnoreCase(header.getKey())) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
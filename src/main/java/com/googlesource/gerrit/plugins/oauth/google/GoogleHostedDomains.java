@@ -0,0 +1,98 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.google;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import java.util.Locale;
+
+/**
+ * Hosted domains that are allowed to sign in with Google.
+ *
+ * <p>Each configured domain is either a domain name, which matches exactly, a {@code *.} prefixed
+ * domain name, which matches all its sub-domains, or {@code *}, which matches any hosted domain.
+ * Domain names are compared case-insensitively, so they are case-folded once when the rules are
+ * compiled. Matching takes one set lookup per label of the {@code hd} claim.
+ */
+class GoogleHostedDomains {
+  private static final String ANY = "*";
+  private static final String SUB_DOMAINS = "*.";
+
+  private final ImmutableSet<String> exact;
+  private final ImmutableSet<String> parents;
+  private final boolean any;
+
+  GoogleHostedDomains(String[] domains) {
+    ImmutableSet.Builder<String> exact = ImmutableSet.builder();
+    ImmutableSet.Builder<String> parents = ImmutableSet.builder();
+    boolean any = false;
+    for (String domain : domains) {
+      String d = domain.trim().toLowerCase(Locale.ROOT);
+      if (d.equals(ANY)) {
+        any = true;
+      } else if (d.startsWith(SUB_DOMAINS)) {
+        parents.add(d.substring(SUB_DOMAINS.length()));
+      } else if (!d.isEmpty()) {
+        exact.add(d);
+      }
+    }
+    this.exact = exact.build();
+    this.parents = parents.build();
+    this.any = any;
+  }
+
+  boolean isEnabled() {
+    return any || !exact.isEmpty() || !parents.isEmpty();
+  }
+
+  /**
+   * Returns the value of the {@code hd} authorization parameter: the domain itself if exactly one
+   * domain is allowed, otherwise {@code *}, which restricts the account chooser to hosted accounts.
+   */
+  @Nullable
+  String getAuthorizationHint() {
+    if (!isEnabled()) {
+      return null;
+    }
+    if (!any && parents.isEmpty() && exact.size() == 1) {
+      return exact.iterator().next();
+    }
+    return ANY;
+  }
+
+  boolean matches(@Nullable String hd) {
+    if (hd == null || hd.isEmpty()) {
+      return false;
+    }
+    if (any) {
+      return true;
+    }
+    String d = hd.toLowerCase(Locale.ROOT);
+    if (exact.contains(d)) {
+      return true;
+    }
+    for (int i = d.indexOf('.'); i >= 0; i = d.indexOf('.', i + 1)) {
+      if (parents.contains(d.substring(i + 1))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "exact=" + exact + ", sub-domains of=" + parents + ", any=" + any;
+  }
+}
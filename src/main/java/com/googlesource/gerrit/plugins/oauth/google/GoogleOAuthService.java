@@ -25,6 +25,7 @@ import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
 import com.google.common.base.Strings;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -40,11 +41,8 @@ import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -58,9 +56,11 @@ public class GoogleOAuthService implements OAuthServiceProvider {
   private static final String PROTECTED_RESOURCE_URL =
       "https://www.googleapis.com/oauth2/v2/userinfo";
   private static final String SCOPE = "email profile";
+  static final String USE_ID_TOKEN_CLAIMS = "use-id-token-claims";
   private final OAuth20Service service;
-  private final List<String> domains;
+  private final GoogleHostedDomains domains;
   private final boolean useEmailAsUsername;
+  private final boolean useIdTokenClaims;
   private final boolean fixLegacyUserId;
   private final String extIdScheme;
 
@@ -74,20 +74,38 @@ public class GoogleOAuthService implements OAuthServiceProvider {
               "The support for: %s is disconinued", InitOAuth.LINK_TO_EXISTING_OPENID_ACCOUNT));
     }
     fixLegacyUserId = cfg.getBoolean(InitOAuth.FIX_LEGACY_USER_ID, false);
-    this.domains = Arrays.asList(cfg.getStringList(InitOAuth.DOMAIN));
+    this.domains = new GoogleHostedDomains(cfg.getStringList(InitOAuth.DOMAIN));
     this.useEmailAsUsername = cfg.getBoolean(InitOAuth.USE_EMAIL_AS_USERNAME, false);
+    this.useIdTokenClaims = cfg.getBoolean(USE_ID_TOKEN_CLAIMS, false);
     this.service = oauth20ServiceFactory.create(PROVIDER_NAME, new Google2Api(), SCOPE);
 
     if (log.isDebugEnabled()) {
       log.debug("OAuth2: scope={}", SCOPE);
       log.debug("OAuth2: domains={}", domains);
       log.debug("OAuth2: useEmailAsUsername={}", useEmailAsUsername);
+      log.debug("OAuth2: useIdTokenClaims={}", useIdTokenClaims);
     }
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    JsonObject claims =
+        domains.isEnabled() || useIdTokenClaims ? parseIdTokenClaims(token.getRaw()) : null;
+    if (domains.isEnabled()) {
+      String hd = asString(claims != null ? claims.get("hd") : null);
+      log.debug("OAuth2: hd={}", hd);
+      if (!domains.matches(hd)) {
+        // TODO(davido): improve error reporting in OAuth extension point
+        log.error("Error: hosted domain validation failed: {}", Strings.nullToEmpty(hd));
+        return null;
+      }
+    }
+    if (useIdTokenClaims && claims != null && !isNull(claims.get("sub"))) {
+      // The userinfo id is the same as the subject of the ID token.
+      return toUserInfo(claims.get("sub"), claims.get("email"), claims.get("name"));
+    }
+
     OAuthRequest request = new OAuthRequest(Verb.GET, PROTECTED_RESOURCE_URL);
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
     service.signRequest(t, request);
@@ -110,35 +128,7 @@ public class GoogleOAuthService implements OAuthServiceProvider {
         if (isNull(id)) {
           throw new IOException("Response doesn't contain id field");
         }
-        JsonElement email = jsonObject.get("email");
-        JsonElement name = jsonObject.get("name");
-        String login = null;
-
-        if (domains.size() > 0) {
-          boolean domainMatched = false;
-          JsonObject jwtToken = retrieveJWTToken(token);
-          String hdClaim = retrieveHostedDomain(jwtToken);
-          for (String domain : domains) {
-            if (domain.equalsIgnoreCase(hdClaim)) {
-              domainMatched = true;
-              break;
-            }
-          }
-          if (!domainMatched) {
-            // TODO(davido): improve error reporting in OAuth extension point
-            log.error("Error: hosted domain validation failed: {}", Strings.nullToEmpty(hdClaim));
-            return null;
-          }
-        }
-        if (useEmailAsUsername && !email.isJsonNull()) {
-          login = email.getAsString().split("@")[0];
-        }
-        return new OAuthUserInfo(
-            extIdScheme + ":" + id.getAsString(),
-            login,
-            asString(email),
-            asString(name),
-            fixLegacyUserId ? id.getAsString() : null /*claimedIdentity*/);
+        return toUserInfo(id, jsonObject.get("email"), jsonObject.get("name"));
       }
     } catch (ExecutionException | InterruptedException e) {
       throw new RuntimeException("Cannot retrieve user info resource", e);
@@ -147,37 +137,37 @@ public class GoogleOAuthService implements OAuthServiceProvider {
     throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
   }
 
-  private JsonObject retrieveJWTToken(OAuthToken token) throws IOException {
-    JsonElement idToken = JSON.newGson().fromJson(token.getRaw(), JsonElement.class);
-    if (idToken != null && idToken.isJsonObject()) {
-      JsonObject idTokenObj = idToken.getAsJsonObject();
-      JsonElement idTokenElement = idTokenObj.get("id_token");
-      if (idTokenElement != null && !idTokenElement.isJsonNull()) {
-        String payload = jwtPayloadJson(idTokenElement.getAsString());
-        if (!Strings.isNullOrEmpty(payload)) {
-          JsonElement tokenJsonElement = JSON.newGson().fromJson(payload, JsonElement.class);
-          if (tokenJsonElement.isJsonObject()) {
-            return tokenJsonElement.getAsJsonObject();
-          }
-        }
-      }
+  private OAuthUserInfo toUserInfo(JsonElement id, JsonElement email, JsonElement name) {
+    String login = null;
+    if (useEmailAsUsername && !isNull(email)) {
+      login = email.getAsString().split("@")[0];
     }
-    return null;
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id.getAsString(),
+        login,
+        asString(email),
+        asString(name),
+        fixLegacyUserId ? id.getAsString() : null /*claimedIdentity*/);
   }
 
-  private static String retrieveHostedDomain(JsonObject jwtToken) {
-    if (jwtToken == null) {
-      log.debug("OAuth2: JWT token is null");
+  /** Returns the claims of the ID token contained in the raw token response, if any. */
+  @Nullable
+  static JsonObject parseIdTokenClaims(String rawTokenResponse) throws IOException {
+    JsonElement tokenResponse = JSON.newGson().fromJson(rawTokenResponse, JsonElement.class);
+    if (tokenResponse == null || !tokenResponse.isJsonObject()) {
       return null;
     }
-    JsonElement hdClaim = jwtToken.get("hd");
-    if (!isNull(hdClaim)) {
-      String hd = hdClaim.getAsString();
-      log.debug("OAuth2: hd={}", hd);
-      return hd;
+    JsonElement idToken = tokenResponse.getAsJsonObject().get("id_token");
+    if (isNull(idToken)) {
+      log.debug("OAuth2: token response doesn't contain an ID token");
+      return null;
     }
-    log.debug("OAuth2: JWT doesn't contain hd element");
-    return null;
+    String payload = jwtPayloadJson(idToken.getAsString());
+    if (Strings.isNullOrEmpty(payload)) {
+      return null;
+    }
+    JsonElement claims = JSON.newGson().fromJson(payload, JsonElement.class);
+    return claims != null && claims.isJsonObject() ? claims.getAsJsonObject() : null;
   }
 
   @Override
@@ -196,15 +186,10 @@ public class GoogleOAuthService implements OAuthServiceProvider {
   @Override
   public String getAuthorizationUrl() {
     StringBuilder urlBuilder = new StringBuilder(service.getAuthorizationUrl());
-    try {
-      if (domains.size() == 1) {
-        urlBuilder.append("&hd=");
-        urlBuilder.append(URLEncoder.encode(domains.get(0), StandardCharsets.UTF_8.name()));
-      } else if (domains.size() > 1) {
-        urlBuilder.append("&hd=*");
-      }
-    } catch (UnsupportedEncodingException e) {
-      throw new IllegalArgumentException(e);
+    String hd = domains.getAuthorizationHint();
+    if (hd != null) {
+      urlBuilder.append("&hd=");
+      urlBuilder.append(URLEncoder.encode(hd, StandardCharsets.UTF_8));
     }
     if (log.isDebugEnabled()) {
       log.debug("OAuth2: authorization URL={}", urlBuilder);
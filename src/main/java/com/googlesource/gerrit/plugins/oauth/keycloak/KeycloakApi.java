@@ -19,6 +19,7 @@ import com.github.scribejava.core.oauth2.bearersignature.BearerSignature;
 import com.github.scribejava.core.oauth2.bearersignature.BearerSignatureURIQueryParameter;
 import com.github.scribejava.core.oauth2.clientauthentication.ClientAuthentication;
 import com.github.scribejava.core.oauth2.clientauthentication.RequestBodyAuthenticationScheme;
+import com.google.common.base.CharMatcher;
 
 public class KeycloakApi extends DefaultApi20 {
 
@@ -28,7 +29,7 @@ public class KeycloakApi extends DefaultApi20 {
   private final String realm;
 
   public KeycloakApi(String rootUrl, String realm) {
-    this.rootUrl = rootUrl;
+    this.rootUrl = CharMatcher.is('/').trimTrailingFrom(rootUrl);
     this.realm = realm;
   }
 
@@ -0,0 +1,44 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.keycloak;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthGroupBackend;
+
+/**
+ * Keycloak roles of the users that signed in with Keycloak, identified by {@code
+ * keycloak:<realm role>} and {@code keycloak:<client id>/<client role>}.
+ */
+@Singleton
+class KeycloakGroupBackend extends OAuthGroupBackend {
+  private final Cache<String, ImmutableSet<String>> roleCache;
+
+  @Inject
+  KeycloakGroupBackend(
+      @Named(KeycloakModule.ROLE_CACHE) Cache<String, ImmutableSet<String>> roleCache) {
+    super(KeycloakOAuthService.PROVIDER_NAME);
+    this.roleCache = roleCache;
+  }
+
+  @Override
+  protected ImmutableSet<String> getGroupIds(String userId) {
+    ImmutableSet<String> roles = roleCache.getIfPresent(userId);
+    return roles != null ? roles : ImmutableSet.of();
+  }
+}
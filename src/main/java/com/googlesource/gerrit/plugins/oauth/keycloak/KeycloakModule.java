@@ -0,0 +1,69 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.keycloak;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.extensions.annotations.Exports;
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.server.account.GroupBackend;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.cache.serialize.StringCacheSerializer;
+import com.google.inject.TypeLiteral;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.StringSetSerializer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+
+public class KeycloakModule extends CacheModule {
+  static final String ROLE_CACHE = "keycloak_roles";
+  static final String ENABLE_GROUPS = "enable-groups";
+  static final String GROUP_CACHE_TTL = "group-cache-ttl";
+  // Matches the default lifetime of Gerrit web sessions.
+  private static final long DEFAULT_GROUP_CACHE_TTL = TimeUnit.HOURS.toSeconds(12);
+
+  private final boolean groupsEnabled;
+  private final Duration groupCacheTtl;
+
+  public KeycloakModule(Config cfg, String section) {
+    groupsEnabled = cfg.getBoolean("plugin", section, ENABLE_GROUPS, false);
+    groupCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin", section, GROUP_CACHE_TTL, DEFAULT_GROUP_CACHE_TTL, TimeUnit.SECONDS));
+  }
+
+  @Override
+  public void configure() {
+    String extIdScheme =
+        OAuthServiceProviderExternalIdScheme.create(KeycloakOAuthService.PROVIDER_NAME);
+    // The roles are only known from the tokens of a login, so an entry evicted from memory would
+    // drop the Keycloak groups of the user until their next login. Entries are kept on disk, also
+    // across restarts, but expire so that revoked roles aren't granted forever.
+    persist(ROLE_CACHE, String.class, new TypeLiteral<ImmutableSet<String>>() {})
+        .version(1)
+        .keySerializer(StringCacheSerializer.INSTANCE)
+        .valueSerializer(StringSetSerializer.INSTANCE)
+        .maximumWeight(4096)
+        .expireAfterWrite(groupCacheTtl);
+    if (groupsEnabled) {
+      DynamicSet.bind(binder(), GroupBackend.class).to(KeycloakGroupBackend.class);
+    }
+    bind(OAuthLoginProvider.class)
+        .annotatedWith(Exports.named(extIdScheme))
+        .to(KeycloakOAuthLoginProvider.class);
+  }
+}
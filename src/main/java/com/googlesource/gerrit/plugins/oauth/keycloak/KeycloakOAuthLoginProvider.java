@@ -0,0 +1,72 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.keycloak;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthLoginProvider;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Authenticates git over HTTP with Keycloak access tokens.
+ *
+ * <p>The tokens are validated locally with the public keys of the realm, so that no request to
+ * Keycloak is needed for each git request.
+ */
+@Singleton
+@OAuthServiceProviderConfig(name = KeycloakOAuthService.PROVIDER_NAME)
+public class KeycloakOAuthLoginProvider implements OAuthLoginProvider {
+  private static final Logger log = LoggerFactory.getLogger(KeycloakOAuthLoginProvider.class);
+  private static final String ACCESS_TOKEN_TYPE = "Bearer";
+
+  private final KeycloakOAuthService service;
+
+  @Inject
+  KeycloakOAuthLoginProvider(KeycloakOAuthService service) {
+    this.service = service;
+  }
+
+  @Override
+  public OAuthUserInfo login(String username, String secret) throws IOException {
+    if (secret == null) {
+      throw new IOException("Authentication error");
+    }
+    SignedJwt token;
+    try {
+      token = SignedJwt.parse(secret);
+      // Keycloak signs ID and refresh tokens as well, only access tokens are accepted.
+      String type = token.getClaim("typ");
+      if (type != null && !type.equals(ACCESS_TOKEN_TYPE)) {
+        throw new IOException(String.format("Unexpected token type %s", type));
+      }
+      service.verify(token);
+    } catch (IOException e) {
+      log.debug("Rejected Keycloak token: {}", e.getMessage());
+      throw new IOException("Authentication error", e);
+    }
+    OAuthUserInfo userInfo = service.toUserInfo(token.getClaims());
+    // A username does not have to be provided, but if it is, it should match
+    // the username provided by the IDP to prevent confusion.
+    if (username != null && !username.equals(userInfo.getUserName())) {
+      throw new IOException("Authentication error: username does not match");
+    }
+    return userInfo;
+  }
+}
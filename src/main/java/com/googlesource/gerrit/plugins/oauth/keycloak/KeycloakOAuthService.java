@@ -16,10 +16,13 @@ package com.googlesource.gerrit.plugins.oauth.keycloak;
 
 import static com.google.gerrit.json.OutputFormat.JSON;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
-import static com.googlesource.gerrit.plugins.oauth.JsonUtil.jwtPayloadJson;
 
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -30,13 +33,18 @@ import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.JsonWebKeySet;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
 import java.io.IOException;
 import java.net.URI;
+import java.time.Instant;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,21 +55,33 @@ public class KeycloakOAuthService implements OAuthServiceProvider {
 
   private static final Logger log = LoggerFactory.getLogger(KeycloakOAuthService.class);
   public static final String PROVIDER_NAME = "keycloak";
+  static final String ISSUER = "issuer";
+  private static final String CERTS_PATH = "/protocol/openid-connect/certs";
 
   private final OAuth20Service service;
   private final String serviceName;
   private final boolean usePreferredUsername;
   private final String extIdScheme;
+  private final String clientId;
+  private final String issuer;
+  private final JsonWebKeySet realmKeys;
+  private final boolean groupsEnabled;
+  private final Cache<String, ImmutableSet<String>> roleCache;
 
   @Inject
   KeycloakOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      @Named(KeycloakModule.ROLE_CACHE) Cache<String, ImmutableSet<String>> roleCache) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
+    this.roleCache = roleCache;
+    groupsEnabled = cfg.getBoolean(KeycloakModule.ENABLE_GROUPS, false);
 
     String rootUrl = cfg.getString(InitOAuth.ROOT_URL);
     if (!URI.create(rootUrl).isAbsolute()) {
       throw new ProvisionException("Root URL must be absolute URL");
     }
+    rootUrl = CharMatcher.is('/').trimTrailingFrom(rootUrl);
     String realm = cfg.getString(InitOAuth.REALM);
     serviceName = cfg.getString(InitOAuth.SERVICE_NAME, "Keycloak OAuth2");
     usePreferredUsername = cfg.getBoolean(InitOAuth.USE_PREFERRED_USERNAME, true);
@@ -70,6 +90,17 @@ public class KeycloakOAuthService implements OAuthServiceProvider {
         oauth20ServiceFactory.create(PROVIDER_NAME, new KeycloakApi(rootUrl, realm), "openid");
 
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
+    clientId = cfg.getString(InitOAuth.CLIENT_ID);
+    String realmUrl = String.format("%s/realms/%s", rootUrl, realm);
+    // Keycloak issues tokens with its frontend URL, which may differ from the root URL that
+    // Gerrit uses to reach it.
+    issuer = cfg.getString(ISSUER, realmUrl);
+    realmKeys = new JsonWebKeySet(service, realmUrl + CERTS_PATH);
+  }
+
+  @VisibleForTesting
+  String getIssuer() {
+    return issuer;
   }
 
   @Override
@@ -77,11 +108,35 @@ public class KeycloakOAuthService implements OAuthServiceProvider {
     JsonElement tokenJson = JSON.newGson().fromJson(token.getRaw(), JsonElement.class);
     JsonObject tokenObject = tokenJson.getAsJsonObject();
     JsonElement id_token = tokenObject.get("id_token");
-    String jwt = jwtPayloadJson(id_token.getAsString());
+    if (isNull(id_token)) {
+      throw new IOException("Response doesn't contain id_token field");
+    }
+    SignedJwt jwt = SignedJwt.parse(id_token.getAsString());
+    verify(jwt);
+    return toUserInfo(jwt.getClaims());
+  }
 
-    JsonElement claimJson = JSON.newGson().fromJson(jwt, JsonElement.class);
+  /**
+   * Verifies that {@code jwt} is signed with a key of the realm, is issued by the realm for this
+   * client and is not expired.
+   *
+   * <p>Access tokens are only intended for this client if Keycloak adds it as audience, otherwise
+   * the client must have requested them ({@code azp} claim).
+   */
+  void verify(SignedJwt jwt) throws IOException {
+    realmKeys.verify(jwt);
+    jwt.checkClaims(issuer, null, Instant.now());
+    if (!jwt.hasAudience(clientId) && !clientId.equals(jwt.getClaim("azp"))) {
+      throw new IOException(String.format("Token is not issued for client %s", clientId));
+    }
+  }
 
-    JsonObject claimObject = claimJson.getAsJsonObject();
+  /**
+   * Maps the claims of a verified token to the user. The realm and client roles of the user are
+   * recorded for the group backend if they differ from the ones of the previous login, so that
+   * logins for git over HTTP don't write to the persisted cache on every request.
+   */
+  OAuthUserInfo toUserInfo(JsonObject claimObject) throws IOException {
     if (log.isDebugEnabled()) {
       log.debug("Claim object: {}", claimObject);
     }
@@ -103,6 +158,12 @@ public class KeycloakOAuthService implements OAuthServiceProvider {
       username = usernameAsString;
     }
     String externalId = extIdScheme + ":" + usernameAsString;
+    if (groupsEnabled) {
+      ImmutableSet<String> roles = extractRoles(claimObject);
+      if (!roles.equals(roleCache.getIfPresent(usernameAsString))) {
+        roleCache.put(usernameAsString, roles);
+      }
+    }
     String email = emailElement.getAsString();
     String name = nameElement.getAsString();
 
@@ -114,6 +175,38 @@ public class KeycloakOAuthService implements OAuthServiceProvider {
         null /*claimedIdentity*/);
   }
 
+  /**
+   * Returns the realm roles from the {@code realm_access} claim as {@code <role>} and the client
+   * roles from the {@code resource_access} claim as {@code <client id>/<role>}.
+   */
+  static ImmutableSet<String> extractRoles(JsonObject claims) {
+    ImmutableSet.Builder<String> roles = ImmutableSet.builder();
+    addRoles(roles, "", claims.get("realm_access"));
+    JsonElement resourceAccess = claims.get("resource_access");
+    if (!isNull(resourceAccess) && resourceAccess.isJsonObject()) {
+      for (Map.Entry<String, JsonElement> client : resourceAccess.getAsJsonObject().entrySet()) {
+        addRoles(roles, client.getKey() + "/", client.getValue());
+      }
+    }
+    return roles.build();
+  }
+
+  private static void addRoles(
+      ImmutableSet.Builder<String> roles, String prefix, JsonElement access) {
+    if (isNull(access) || !access.isJsonObject()) {
+      return;
+    }
+    JsonElement names = access.getAsJsonObject().get("roles");
+    if (isNull(names) || !names.isJsonArray()) {
+      return;
+    }
+    for (JsonElement role : names.getAsJsonArray()) {
+      if (!isNull(role)) {
+        roles.add(prefix + role.getAsString());
+      }
+    }
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
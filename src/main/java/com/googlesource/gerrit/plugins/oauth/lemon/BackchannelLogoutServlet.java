@@ -0,0 +1,71 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the logout tokens that LemonLDAP::NG posts when a session ends, as defined by <a
+ * href="https://openid.net/specs/openid-connect-backchannel-1_0.html">OpenID Connect Back-Channel
+ * Logout</a>.
+ */
+@Singleton
+class BackchannelLogoutServlet extends HttpServlet {
+  private static final long serialVersionUID = 1L;
+  private static final Logger log = LoggerFactory.getLogger(BackchannelLogoutServlet.class);
+  private static final String LOGOUT_TOKEN = "logout_token";
+
+  private final LemonLDAPOAuthService service;
+  private final LemonLDAPSessions sessions;
+
+  @Inject
+  BackchannelLogoutServlet(LemonLDAPOAuthService service, LemonLDAPSessions sessions) {
+    this.service = service;
+    this.sessions = sessions;
+  }
+
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse rsp) throws IOException {
+    rsp.setHeader("Cache-Control", "no-cache, no-store");
+    String logoutToken = req.getParameter(LOGOUT_TOKEN);
+    if (logoutToken == null) {
+      sendInvalidRequest(rsp);
+      return;
+    }
+    String sid;
+    try {
+      sid = service.verifyLogoutToken(logoutToken);
+    } catch (IOException e) {
+      log.warn("Rejected LemonLDAP::NG logout token: {}", e.getMessage());
+      sendInvalidRequest(rsp);
+      return;
+    }
+    sessions.logout(sid);
+    rsp.setStatus(HttpServletResponse.SC_OK);
+  }
+
+  private static void sendInvalidRequest(HttpServletResponse rsp) throws IOException {
+    rsp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    rsp.setContentType("application/json");
+    rsp.getWriter().write("{\"error\":\"invalid_request\"}");
+  }
+}
@@ -0,0 +1,40 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.httpd.AllRequestFilter;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.servlet.ServletModule;
+
+public class LemonLDAPHttpModule extends ServletModule {
+  static final String BACKCHANNEL_LOGOUT_PATH = "/lemonldap/backchannel-logout";
+
+  private final boolean backchannelLogout;
+
+  public LemonLDAPHttpModule(PluginConfig cfg) {
+    backchannelLogout = cfg.getBoolean(LemonLDAPModule.ENABLE_BACKCHANNEL_LOGOUT, false);
+  }
+
+  @Override
+  protected void configureServlets() {
+    // Without back-channel logout, no request needs to be filtered.
+    if (!backchannelLogout) {
+      return;
+    }
+    serve(BACKCHANNEL_LOGOUT_PATH).with(BackchannelLogoutServlet.class);
+    DynamicSet.bind(binder(), AllRequestFilter.class).to(LemonLDAPLogoutFilter.class);
+  }
+}
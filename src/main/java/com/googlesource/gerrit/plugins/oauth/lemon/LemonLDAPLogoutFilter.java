@@ -0,0 +1,63 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.httpd.AllRequestFilter;
+import com.google.gerrit.httpd.WebSession;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * Closes the Gerrit web sessions whose LemonLDAP::NG session was logged out, and links the web
+ * sessions opened by a LemonLDAP::NG login to its session.
+ */
+@Singleton
+class LemonLDAPLogoutFilter extends AllRequestFilter {
+  private final DynamicItem<WebSession> webSession;
+  private final LemonLDAPSessions sessions;
+
+  @Inject
+  LemonLDAPLogoutFilter(DynamicItem<WebSession> webSession, LemonLDAPSessions sessions) {
+    this.webSession = webSession;
+    this.sessions = sessions;
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    WebSession session = webSession.get();
+    String sessionId = session.getSessionId();
+    if (sessionId != null && sessions.takeLoggedOut(sessionId)) {
+      session.logout();
+    }
+
+    chain.doFilter(request, response);
+
+    // The sid is set by the LemonLDAP::NG service during a login.
+    Object sid = request.getAttribute(LemonLDAPSessions.SID_ATTRIBUTE);
+    if (sid != null) {
+      String openedSessionId = webSession.get().getSessionId();
+      if (openedSessionId != null) {
+        sessions.addWebSession(openedSessionId, (String) sid);
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.server.cache.CacheModule;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+
+public class LemonLDAPModule extends CacheModule {
+  static final String USERINFO_CACHE = "lemonldap_userinfo";
+  static final String USERINFO_CACHE_TTL = "userinfo-cache-ttl";
+  static final String WEB_SESSION_CACHE = "lemonldap_web_sessions";
+  static final String LOGGED_OUT_CACHE = "lemonldap_logged_out";
+  static final String LOGOUT_TOKEN_CACHE = "lemonldap_logout_tokens";
+  static final String ENABLE_BACKCHANNEL_LOGOUT = "enable-backchannel-logout";
+  static final long DEFAULT_USERINFO_CACHE_TTL = TimeUnit.HOURS.toSeconds(1);
+  // Same default as the maxAge of the web_sessions cache of Gerrit.
+  private static final long DEFAULT_WEB_SESSION_MAX_AGE = TimeUnit.HOURS.toSeconds(12);
+
+  private final Duration userInfoCacheTtl;
+  private final Duration webSessionMaxAge;
+
+  public LemonLDAPModule(Config cfg, String section) {
+    userInfoCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin",
+                section,
+                USERINFO_CACHE_TTL,
+                DEFAULT_USERINFO_CACHE_TTL,
+                TimeUnit.SECONDS));
+    // The web sessions must be tracked for as long as Gerrit keeps them.
+    webSessionMaxAge =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "cache", "web_sessions", "maxAge", DEFAULT_WEB_SESSION_MAX_AGE, TimeUnit.SECONDS));
+  }
+
+  @Override
+  protected void configure() {
+    cache(USERINFO_CACHE, String.class, OAuthUserInfo.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(userInfoCacheTtl);
+    cache(WEB_SESSION_CACHE, String.class, String.class)
+        .maximumWeight(16384)
+        .expireAfterWrite(webSessionMaxAge);
+    cache(LOGGED_OUT_CACHE, String.class, Boolean.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(webSessionMaxAge);
+    // Accepted logout tokens expire within the maximum lifetime, give or take the clock skew.
+    cache(LOGOUT_TOKEN_CACHE, String.class, Boolean.class)
+        .maximumWeight(4096)
+        .expireAfterWrite(
+            LemonLDAPOAuthService.MAX_LOGOUT_TOKEN_LIFETIME.plus(
+                LemonLDAPOAuthService.CLOCK_SKEW.multipliedBy(2)));
+    bind(LemonLDAPSessions.class);
+  }
+}
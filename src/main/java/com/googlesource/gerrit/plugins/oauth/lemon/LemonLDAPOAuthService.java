@@ -24,21 +24,31 @@ import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
 import com.google.gerrit.extensions.auth.oauth.OAuthVerifier;
+import com.google.gerrit.server.config.ConfigUtil;
 import com.google.gerrit.server.config.PluginConfig;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
+import com.googlesource.gerrit.plugins.oauth.OpenIdIssuer;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 
@@ -48,22 +58,97 @@ public class LemonLDAPOAuthService implements OAuthServiceProvider {
   private static final Logger log = getLogger(LemonLDAPOAuthService.class);
   public static final String PROVIDER_NAME = "lemonldap";
   private static final String PROTECTED_RESOURCE_URL = "%s/oauth2/userinfo";
+  private static final String METADATA_URL = "%s/.well-known/openid-configuration";
   private static final String LEMONLDAP_PROVIDER_PREFIX = "llng-oauth:";
+  private static final String BACKCHANNEL_LOGOUT_EVENT =
+      "http://schemas.openid.net/event/backchannel-logout";
+  static final Duration CLOCK_SKEW = Duration.ofMinutes(2);
+  // Longer-lived logout tokens are rejected, so that their jti is remembered while they are valid.
+  static final Duration MAX_LOGOUT_TOKEN_LIFETIME = Duration.ofHours(1);
   private final OAuth20Service service;
   private final String rootUrl;
+  private final String clientId;
+  private final OpenIdIssuer issuer;
+  private final boolean backchannelLogout;
+  private final boolean userInfoCached;
+  private final LemonLDAPSessions sessions;
+  private final Provider<HttpServletRequest> httpRequest;
 
   @Inject
   LemonLDAPOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      LemonLDAPSessions sessions,
+      Provider<HttpServletRequest> httpRequest) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
     rootUrl = cfg.getString(InitOAuth.ROOT_URL);
+    clientId = cfg.getString(InitOAuth.CLIENT_ID);
     service =
         oauth20ServiceFactory.create(
             PROVIDER_NAME, new LemonLDAPApi(rootUrl), "openid profile email");
+    issuer = new OpenIdIssuer(service, String.format(METADATA_URL, rootUrl));
+    backchannelLogout = cfg.getBoolean(LemonLDAPModule.ENABLE_BACKCHANNEL_LOGOUT, false);
+    userInfoCached =
+        ConfigUtil.getTimeUnit(
+                cfg.getString(LemonLDAPModule.USERINFO_CACHE_TTL),
+                LemonLDAPModule.DEFAULT_USERINFO_CACHE_TTL,
+                TimeUnit.SECONDS)
+            > 0;
+    this.sessions = sessions;
+    this.httpRequest = httpRequest;
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
+    if (!backchannelLogout && !userInfoCached) {
+      return fetchUserInfo(token);
+    }
+    String sid = getSessionId(token);
+    if (sid == null) {
+      return fetchUserInfo(token);
+    }
+    if (backchannelLogout) {
+      // Remembered for the filter, which links the web session to the LemonLDAP::NG session.
+      httpRequest.get().setAttribute(LemonLDAPSessions.SID_ATTRIBUTE, sid);
+    }
+    if (!userInfoCached) {
+      return fetchUserInfo(token);
+    }
+    OAuthUserInfo userInfo = sessions.getUserInfo(sid);
+    if (userInfo == null) {
+      userInfo = fetchUserInfo(token);
+      sessions.putUserInfo(sid, userInfo);
+    }
+    return userInfo;
+  }
+
+  /**
+   * Returns the {@code sid} claim of the id_token, which identifies the LemonLDAP::NG session of
+   * the user, or {@code null} if the id_token doesn't contain it or can't be verified. Only the
+   * session of a verified id_token is trusted, but the login doesn't depend on it: the user info
+   * is then requested without caching it, and the session can't be logged out.
+   */
+  @Nullable
+  private String getSessionId(OAuthToken token) {
+    JsonElement tokenJson = JSON.newGson().fromJson(token.getRaw(), JsonElement.class);
+    String idToken =
+        tokenJson != null && tokenJson.isJsonObject()
+            ? asString(tokenJson.getAsJsonObject().get("id_token"))
+            : null;
+    if (idToken == null) {
+      return null;
+    }
+    try {
+      SignedJwt jwt = SignedJwt.parse(idToken);
+      issuer.verify(jwt, clientId);
+      return jwt.getClaim("sid");
+    } catch (IOException e) {
+      log.warn("Cannot verify the id_token, not using its session: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private OAuthUserInfo fetchUserInfo(OAuthToken token) throws IOException {
     OAuthRequest request =
         new OAuthRequest(Verb.GET, String.format(PROTECTED_RESOURCE_URL, rootUrl));
     OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
@@ -99,6 +184,86 @@ public class LemonLDAPOAuthService implements OAuthServiceProvider {
     }
   }
 
+  /**
+   * Verifies a logout token posted by LemonLDAP::NG to the back-channel logout endpoint and
+   * returns the session that it ends.
+   *
+   * @throws IOException if the token isn't a valid logout token for Gerrit
+   */
+  String verifyLogoutToken(String logoutToken) throws IOException {
+    SignedJwt jwt = SignedJwt.parse(logoutToken);
+    LogoutToken token =
+        checkLogoutToken(jwt, issuer.verifySignature(jwt), clientId, Instant.now());
+    if (!sessions.addLogoutToken(token.jti())) {
+      throw new IOException("Logout token was already used: " + token.jti());
+    }
+    return token.sid();
+  }
+
+  /** The claims of a logout token that Gerrit uses. */
+  record LogoutToken(String sid, String jti) {}
+
+  /**
+   * Checks the claims of a logout token, as specified by OpenID Connect Back-Channel Logout.
+   * Logout tokens without {@code sid} are rejected, as Gerrit keeps track of the sessions only.
+   * Logout tokens valid for more than {@link #MAX_LOGOUT_TOKEN_LIFETIME}, or issued longer ago
+   * than that if they don't expire, are rejected too.
+   */
+  @VisibleForTesting
+  static LogoutToken checkLogoutToken(SignedJwt jwt, String issuer, String clientId, Instant now)
+      throws IOException {
+    if (!issuer.equals(jwt.getClaim("iss"))) {
+      throw new IOException(String.format("Invalid logout token issuer: %s", jwt.getClaim("iss")));
+    }
+    if (!jwt.hasAudience(clientId)) {
+      throw new IOException("Logout token is not intended for " + clientId);
+    }
+    JsonObject claims = jwt.getClaims();
+    Instant iat = getInstant(jwt, "iat");
+    if (iat == null) {
+      throw new IOException("Logout token doesn't contain iat claim");
+    }
+    Instant exp = getInstant(jwt, "exp");
+    Instant expiry = exp != null ? exp : iat.plus(MAX_LOGOUT_TOKEN_LIFETIME);
+    if (now.minus(CLOCK_SKEW).isAfter(expiry)) {
+      throw new IOException("Logout token is expired");
+    }
+    if (expiry.isAfter(now.plus(MAX_LOGOUT_TOKEN_LIFETIME).plus(CLOCK_SKEW))) {
+      throw new IOException("Logout token is valid for too long");
+    }
+    String jti = jwt.getClaim("jti");
+    if (jti == null) {
+      throw new IOException("Logout token doesn't contain jti claim");
+    }
+    JsonElement events = claims.get("events");
+    if (isNull(events)
+        || !events.isJsonObject()
+        || !events.getAsJsonObject().has(BACKCHANNEL_LOGOUT_EVENT)) {
+      throw new IOException("Logout token doesn't contain the back-channel logout event");
+    }
+    if (claims.has("nonce")) {
+      throw new IOException("Logout token must not contain nonce claim");
+    }
+    String sid = jwt.getClaim("sid");
+    if (sid == null) {
+      throw new IOException("Logout token doesn't contain sid claim");
+    }
+    return new LogoutToken(sid, jti);
+  }
+
+  @Nullable
+  private static Instant getInstant(SignedJwt jwt, String claim) throws IOException {
+    String value = jwt.getClaim(claim);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Instant.ofEpochSecond(Long.parseLong(value));
+    } catch (NumberFormatException e) {
+      throw new IOException(String.format("Invalid logout token %s claim: %s", claim, value), e);
+    }
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier rv) {
     try {
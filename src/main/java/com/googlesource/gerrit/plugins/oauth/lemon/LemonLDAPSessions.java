@@ -0,0 +1,97 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import com.google.common.cache.Cache;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * The LemonLDAP::NG sessions, identified by the {@code sid} claim of the id_token, with which
+ * users logged in to Gerrit.
+ *
+ * <p>The user of a session is cached so that further logins with the same session don't request
+ * the user info again. The Gerrit web sessions opened with a session are tracked, so that they can
+ * be closed when LemonLDAP::NG reports the logout of the session. The identifiers of the logout
+ * tokens are remembered to reject replayed tokens.
+ */
+@Singleton
+class LemonLDAPSessions {
+  /** Request attribute holding the sid of a login, until the web session is opened. */
+  static final String SID_ATTRIBUTE = LemonLDAPSessions.class.getName() + ".sid";
+
+  private final Cache<String, OAuthUserInfo> userInfoCache;
+  private final Cache<String, String> webSessions;
+  private final Cache<String, Boolean> loggedOut;
+  private final Cache<String, Boolean> logoutTokens;
+
+  @Inject
+  LemonLDAPSessions(
+      @Named(LemonLDAPModule.USERINFO_CACHE) Cache<String, OAuthUserInfo> userInfoCache,
+      @Named(LemonLDAPModule.WEB_SESSION_CACHE) Cache<String, String> webSessions,
+      @Named(LemonLDAPModule.LOGGED_OUT_CACHE) Cache<String, Boolean> loggedOut,
+      @Named(LemonLDAPModule.LOGOUT_TOKEN_CACHE) Cache<String, Boolean> logoutTokens) {
+    this.userInfoCache = userInfoCache;
+    this.webSessions = webSessions;
+    this.loggedOut = loggedOut;
+    this.logoutTokens = logoutTokens;
+  }
+
+  @Nullable
+  OAuthUserInfo getUserInfo(String sid) {
+    return userInfoCache.getIfPresent(sid);
+  }
+
+  void putUserInfo(String sid, OAuthUserInfo userInfo) {
+    userInfoCache.put(sid, userInfo);
+  }
+
+  /** Records that the Gerrit web session {@code webSessionId} was opened with {@code sid}. */
+  void addWebSession(String webSessionId, String sid) {
+    webSessions.put(webSessionId, sid);
+  }
+
+  /**
+   * Records the {@code jti} of a logout token, and returns whether it was not seen before. The
+   * {@code jti} is remembered for longer than logout tokens are accepted.
+   */
+  boolean addLogoutToken(String jti) {
+    return logoutTokens.asMap().putIfAbsent(jti, true) == null;
+  }
+
+  /**
+   * Evicts the user of the session and marks the Gerrit web sessions opened with it as logged out.
+   */
+  void logout(String sid) {
+    userInfoCache.invalidate(sid);
+    loggedOut.put(sid, true);
+  }
+
+  /**
+   * Returns whether the Gerrit web session was opened with a session that was logged out since. The
+   * web session is forgotten then, as the caller closes it.
+   */
+  boolean takeLoggedOut(String webSessionId) {
+    String sid = webSessions.getIfPresent(webSessionId);
+    if (sid == null || loggedOut.getIfPresent(sid) == null) {
+      return false;
+    }
+    webSessions.invalidate(webSessionId);
+    return true;
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.phabricator;
+
+import static com.google.gerrit.json.OutputFormat.JSON;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
+import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
+
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Calls methods of Conduit, the Phabricator API, authenticated with an OAuth access token.
+ *
+ * <p>Methods are called with POST and form parameters, including the access token, so that the
+ * token doesn't end up in the request URL and from there in access logs. Requests are executed
+ * with the HTTP client of the OAuth service, reusing its connections.
+ */
+class ConduitClient {
+  private static final String API_URL = "%s/api/%s";
+  private static final String ACCESS_TOKEN = "access_token";
+
+  private final OAuth20Service service;
+  private final String rootUrl;
+
+  ConduitClient(OAuth20Service service, String rootUrl) {
+    this.service = service;
+    this.rootUrl = rootUrl;
+  }
+
+  /** Calls {@code method} with the parameters {@code params} and returns its result. */
+  JsonObject call(String method, String accessToken, Map<String, String> params)
+      throws IOException {
+    OAuthRequest request = new OAuthRequest(Verb.POST, String.format(API_URL, rootUrl, method));
+    request.addBodyParameter(ACCESS_TOKEN, accessToken);
+    params.forEach(request::addBodyParameter);
+    try (Response response = service.execute(request)) {
+      if (response.getCode() != HttpServletResponse.SC_OK) {
+        throw new IOException(
+            String.format(
+                "Status %s (%s) for Conduit method %s",
+                response.getCode(), response.getBody(), method));
+      }
+      return parseResult(method, response.getBody());
+    } catch (ExecutionException | InterruptedException e) {
+      throw new IOException("Cannot call Conduit method " + method, e);
+    }
+  }
+
+  /**
+   * Returns the result of a Conduit response. Conduit reports errors with status 200 and an error
+   * code in the body.
+   */
+  static JsonObject parseResult(String method, String body) throws IOException {
+    JsonElement json = JSON.newGson().fromJson(body, JsonElement.class);
+    if (json == null || !json.isJsonObject()) {
+      throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", json));
+    }
+    JsonObject response = json.getAsJsonObject();
+    String errorCode = asString(response.get("error_code"));
+    if (errorCode != null) {
+      throw new IOException(
+          String.format(
+              "Conduit method %s failed: %s (%s)",
+              method, errorCode, asString(response.get("error_info"))));
+    }
+    JsonElement result = response.get("result");
+    if (isNull(result) || !result.isJsonObject()) {
+      throw new IOException("Response doesn't contain result field");
+    }
+    return result.getAsJsonObject();
+  }
+}
@@ -14,15 +14,12 @@
 
 package com.googlesource.gerrit.plugins.oauth.phabricator;
 
-import static com.google.gerrit.json.OutputFormat.JSON;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.asString;
 import static com.googlesource.gerrit.plugins.oauth.JsonUtil.isNull;
 
 import com.github.scribejava.core.model.OAuth2AccessToken;
-import com.github.scribejava.core.model.OAuthRequest;
-import com.github.scribejava.core.model.Response;
-import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.collect.ImmutableMap;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -41,7 +38,6 @@ import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdSchem
 import java.io.IOException;
 import java.net.URI;
 import java.util.concurrent.ExecutionException;
-import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,69 +46,40 @@ import org.slf4j.LoggerFactory;
 public class PhabricatorOAuthService implements OAuthServiceProvider {
   private static final Logger log = LoggerFactory.getLogger(PhabricatorOAuthService.class);
   public static final String PROVIDER_NAME = "phabricator";
-  private static final String PROTECTED_RESOURCE_URL = "%s/api/user.whoami";
-  private final String rootUrl;
+  private static final String WHOAMI = "user.whoami";
   private final OAuth20Service service;
+  private final ConduitClient conduit;
   private final String extIdScheme;
 
   @Inject
   PhabricatorOAuthService(
       OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
-    rootUrl = cfg.getString(InitOAuth.ROOT_URL);
+    String rootUrl = cfg.getString(InitOAuth.ROOT_URL);
     if (!URI.create(rootUrl).isAbsolute()) {
       throw new ProvisionException("Root URL must be absolute URL");
     }
     this.service = oauth20ServiceFactory.create(PROVIDER_NAME, new PhabricatorApi(rootUrl));
+    conduit = new ConduitClient(service, rootUrl);
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
   }
 
   @Override
   public OAuthUserInfo getUserInfo(OAuthToken token) throws IOException {
-    OAuthRequest request =
-        new OAuthRequest(Verb.GET, String.format(PROTECTED_RESOURCE_URL, rootUrl));
-    OAuth2AccessToken t = new OAuth2AccessToken(token.getToken(), token.getRaw());
-    service.signRequest(t, request);
-
-    JsonElement userJson = null;
-    try (Response response = service.execute(request)) {
-      if (response.getCode() != HttpServletResponse.SC_OK) {
-        throw new IOException(
-            String.format(
-                "Status %s (%s) for request %s",
-                response.getCode(), response.getBody(), request.getUrl()));
-      }
-      userJson = JSON.newGson().fromJson(response.getBody(), JsonElement.class);
-      if (log.isDebugEnabled()) {
-        log.debug("User info response: {}", response.getBody());
-      }
-      if (userJson.isJsonObject()) {
-        JsonObject jsonObject = userJson.getAsJsonObject();
-        JsonElement jsonResult = jsonObject.get("result");
-        if (jsonResult == null) {
-          throw new IOException("Response doesn't contain result field");
-        }
-        JsonObject resultObject = jsonResult.getAsJsonObject();
-        JsonElement id = resultObject.get("phid");
-        if (isNull(id)) {
-          throw new IOException("Response doesn't contain id field");
-        }
-        JsonElement email = resultObject.get("primaryEmail");
-        JsonElement name = resultObject.get("realName");
-        JsonElement username = resultObject.get("userName");
-        String login = null;
-
-        if (!username.isJsonNull()) {
-          login = username.getAsString();
-        }
-        return new OAuthUserInfo(
-            extIdScheme + ":" + id.getAsString(), login, asString(email), asString(name), null);
-      }
-    } catch (ExecutionException | InterruptedException e) {
-      throw new RuntimeException("Cannot retrieve user info resource", e);
+    JsonObject result = conduit.call(WHOAMI, token.getToken(), ImmutableMap.of());
+    if (log.isDebugEnabled()) {
+      log.debug("User info response: {}", result);
     }
-
-    throw new IOException(String.format("Invalid JSON '%s': not a JSON Object", userJson));
+    JsonElement id = result.get("phid");
+    if (isNull(id)) {
+      throw new IOException("Response doesn't contain id field");
+    }
+    return new OAuthUserInfo(
+        extIdScheme + ":" + id.getAsString(),
+        asString(result.get("userName")),
+        asString(result.get("primaryEmail")),
+        asString(result.get("realName")),
+        null);
   }
 
   @Override
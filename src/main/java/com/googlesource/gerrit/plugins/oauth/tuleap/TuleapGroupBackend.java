@@ -0,0 +1,117 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.account.GroupMembership;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.oauth.OAuthGroupBackend;
+import java.util.Set;
+
+/**
+ * Tuleap projects of the users that signed in with Tuleap, identified by {@code tuleap:<project
+ * id>}. A user is a member of the group of each project they are a member of.
+ */
+@Singleton
+class TuleapGroupBackend extends OAuthGroupBackend {
+  private final Cache<String, TuleapProjects> projectCache;
+
+  @Inject
+  TuleapGroupBackend(
+      @Named(TuleapModule.PROJECT_CACHE) Cache<String, TuleapProjects> projectCache) {
+    super(TuleapOAuthService.PROVIDER_NAME);
+    this.projectCache = projectCache;
+  }
+
+  @Override
+  protected ImmutableSet<String> getGroupIds(String userId) {
+    return getProjects(userId).stream()
+        .mapToObj(Integer::toString)
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  /** Checks the membership against the project IDs, instead of listing the groups up front. */
+  @Override
+  public GroupMembership membershipsOf(CurrentUser user) {
+    String userId = getUserId(user);
+    if (userId == null) {
+      return GroupMembership.EMPTY;
+    }
+    return membershipOf(getProjects(userId));
+  }
+
+  @VisibleForTesting
+  GroupMembership membershipOf(TuleapProjects projects) {
+    return projects.size() > 0 ? new ProjectMembership(projects) : GroupMembership.EMPTY;
+  }
+
+  private TuleapProjects getProjects(String userId) {
+    TuleapProjects projects = projectCache.getIfPresent(userId);
+    return projects != null ? projects : TuleapProjects.EMPTY;
+  }
+
+  private class ProjectMembership implements GroupMembership {
+    private final TuleapProjects projects;
+
+    ProjectMembership(TuleapProjects projects) {
+      this.projects = projects;
+    }
+
+    @Override
+    public boolean contains(AccountGroup.UUID groupId) {
+      String projectId = toGroupId(groupId);
+      if (projectId == null) {
+        return false;
+      }
+      Integer id = Ints.tryParse(projectId);
+      return id != null && projects.contains(id);
+    }
+
+    @Override
+    public boolean containsAnyOf(Iterable<AccountGroup.UUID> groupIds) {
+      for (AccountGroup.UUID groupId : groupIds) {
+        if (contains(groupId)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Set<AccountGroup.UUID> intersection(Iterable<AccountGroup.UUID> groupIds) {
+      ImmutableSet.Builder<AccountGroup.UUID> result = ImmutableSet.builder();
+      for (AccountGroup.UUID groupId : groupIds) {
+        if (contains(groupId)) {
+          result.add(groupId);
+        }
+      }
+      return result.build();
+    }
+
+    @Override
+    public Set<AccountGroup.UUID> getKnownGroups() {
+      return projects.stream()
+          .mapToObj(id -> toUuid(Integer.toString(id)))
+          .collect(ImmutableSet.toImmutableSet());
+    }
+  }
+}
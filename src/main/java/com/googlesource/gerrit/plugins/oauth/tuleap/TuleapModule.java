@@ -0,0 +1,66 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import com.google.common.cache.Cache;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.server.account.GroupBackend;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.cache.serialize.StringCacheSerializer;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Names;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+
+public class TuleapModule extends CacheModule {
+  static final String PROJECT_CACHE = "tuleap_projects";
+  static final String ENABLE_GROUPS = "enable-groups";
+  static final String GROUP_CACHE_TTL = "group-cache-ttl";
+  // Matches the default lifetime of Gerrit web sessions.
+  private static final long DEFAULT_GROUP_CACHE_TTL = TimeUnit.HOURS.toSeconds(12);
+
+  private final boolean groupsEnabled;
+  private final Duration groupCacheTtl;
+
+  public TuleapModule(Config cfg, String section) {
+    groupsEnabled = cfg.getBoolean("plugin", section, ENABLE_GROUPS, false);
+    groupCacheTtl =
+        Duration.ofSeconds(
+            cfg.getTimeUnit(
+                "plugin", section, GROUP_CACHE_TTL, DEFAULT_GROUP_CACHE_TTL, TimeUnit.SECONDS));
+  }
+
+  @Override
+  protected void configure() {
+    // The service only lists the projects if the cache is bound.
+    OptionalBinder.newOptionalBinder(
+        binder(),
+        Key.get(new TypeLiteral<Cache<String, TuleapProjects>>() {}, Names.named(PROJECT_CACHE)));
+    if (groupsEnabled) {
+      // The projects are listed once per login. Persisting them keeps the project groups of users
+      // whose entries are evicted from memory, and across restarts, until they expire.
+      persist(PROJECT_CACHE, String.class, TuleapProjects.class)
+          .version(1)
+          .keySerializer(StringCacheSerializer.INSTANCE)
+          .valueSerializer(TuleapProjectsSerializer.INSTANCE)
+          .maximumWeight(4096)
+          .expireAfterWrite(groupCacheTtl);
+      DynamicSet.bind(binder(), GroupBackend.class).to(TuleapGroupBackend.class);
+    }
+  }
+}
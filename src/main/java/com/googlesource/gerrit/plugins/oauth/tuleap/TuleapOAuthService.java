@@ -23,6 +23,10 @@ import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.model.Verb;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.cache.Cache;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.common.primitives.Ints;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
@@ -33,13 +37,20 @@ import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.ProvisionException;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderConfig;
 import com.googlesource.gerrit.plugins.oauth.OAuthServiceProviderExternalIdScheme;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -51,15 +62,24 @@ public class TuleapOAuthService implements OAuthServiceProvider {
   private static final Logger log = LoggerFactory.getLogger(TuleapOAuthService.class);
   public static final String PROVIDER_NAME = "tuleap";
   private static final String PROTECTED_RESOURCE_URL = "%s/oauth2/userinfo";
+  private static final String PROJECTS_URL = "%s/api/projects?limit=%d&offset=%d&query=%s";
+  private static final String MEMBER_OF_QUERY =
+      URLEncoder.encode("{\"is_member_of\":true}", StandardCharsets.UTF_8);
+  // The maximum page size of the Tuleap REST API.
+  private static final int PAGE_SIZE = 50;
   private final OAuth20Service service;
   private final String serviceName;
   private final String rootUrl;
   private final String extIdScheme;
+  private final Optional<Cache<String, TuleapProjects>> projectCache;
 
   @Inject
   TuleapOAuthService(
-      OAuthPluginConfigFactory cfgFactory, OAuth20ServiceFactory oauth20ServiceFactory) {
+      OAuthPluginConfigFactory cfgFactory,
+      OAuth20ServiceFactory oauth20ServiceFactory,
+      @Named(TuleapModule.PROJECT_CACHE) Optional<Cache<String, TuleapProjects>> projectCache) {
     PluginConfig cfg = cfgFactory.create(PROVIDER_NAME);
+    this.projectCache = projectCache;
 
     rootUrl = cfg.getString(InitOAuth.ROOT_URL);
     if (!URI.create(rootUrl).isAbsolute()) {
@@ -68,7 +88,12 @@ public class TuleapOAuthService implements OAuthServiceProvider {
     serviceName = cfg.getString(InitOAuth.SERVICE_NAME, "Tuleap");
 
     service =
-        oauth20ServiceFactory.create(PROVIDER_NAME, new TuleapApi(rootUrl), "openid profile email");
+        oauth20ServiceFactory.create(
+            PROVIDER_NAME,
+            new TuleapApi(rootUrl),
+            projectCache.isPresent()
+                ? "openid profile email read:project"
+                : "openid profile email");
 
     extIdScheme = OAuthServiceProviderExternalIdScheme.create(PROVIDER_NAME);
   }
@@ -99,6 +124,10 @@ public class TuleapOAuthService implements OAuthServiceProvider {
       JsonElement username = jsonObject.get("preferred_username");
       JsonElement email = jsonObject.get("email");
       JsonElement name = jsonObject.get("name");
+      if (projectCache.isPresent()) {
+        // Replaces the projects of the previous login, also if the user left all of them since.
+        projectCache.get().put(id.getAsString(), fetchProjectsOrEmpty(t, asString(username)));
+      }
       return new OAuthUserInfo(
           extIdScheme + ":" + id.getAsString(),
           asString(username),
@@ -110,6 +139,69 @@ public class TuleapOAuthService implements OAuthServiceProvider {
     }
   }
 
+  /**
+   * Lists the projects of the user. The project groups only add permissions, so a failure doesn't
+   * fail the login: the user gets no project groups until the next login.
+   */
+  private TuleapProjects fetchProjectsOrEmpty(OAuth2AccessToken token, String username)
+      throws InterruptedException {
+    try {
+      return fetchProjects(token);
+    } catch (IOException | ExecutionException e) {
+      log.warn("Cannot list the Tuleap projects of user {}", username, e);
+      return TuleapProjects.EMPTY;
+    }
+  }
+
+  /**
+   * Lists the projects the user is a member of, page by page. Each page is read as a stream into a
+   * single list of project IDs.
+   */
+  private TuleapProjects fetchProjects(OAuth2AccessToken token)
+      throws IOException, ExecutionException, InterruptedException {
+    ImmutableIntArray.Builder ids = ImmutableIntArray.builder();
+    int offset = 0;
+    while (true) {
+      OAuthRequest request =
+          new OAuthRequest(
+              Verb.GET, String.format(PROJECTS_URL, rootUrl, PAGE_SIZE, offset, MEMBER_OF_QUERY));
+      service.signRequest(token, request);
+      try (Response response = service.execute(request)) {
+        if (response.getCode() != HttpServletResponse.SC_OK) {
+          throw new IOException(
+              String.format(
+                  "Status %s (%s) for request %s",
+                  response.getCode(), response.getBody(), request.getUrl()));
+        }
+        int count;
+        try (Reader page = new InputStreamReader(response.getStream(), StandardCharsets.UTF_8)) {
+          count = TuleapProjects.readPage(page, ids);
+        }
+        offset += count;
+        // The total is sent as a header, which saves requesting an empty last page.
+        Integer total = parseInt(getHeader(response, "X-PAGINATION-SIZE"));
+        if (count < PAGE_SIZE || (total != null && offset >= total)) {
+          return TuleapProjects.copyOf(ids.build());
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private static Integer parseInt(@Nullable String value) {
+    return value != null ? Ints.tryParse(value.trim()) : null;
+  }
+
+  @Nullable
+  private static String getHeader(Response response, String name) {
+    for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+      if (name.equalsIgnoreCase(header.getKey())) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
   @Override
   public OAuthToken getAccessToken(OAuthVerifier verifier) {
     try {
@@ -0,0 +1,104 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The IDs of the Tuleap projects a user is a member of.
+ *
+ * <p>The IDs are held as a sorted array: hundreds of projects take a few kilobytes whatever their
+ * IDs are, and a membership check is a binary search. Instances are immutable.
+ */
+final class TuleapProjects {
+  static final TuleapProjects EMPTY = new TuleapProjects(new int[0]);
+
+  private final int[] ids;
+
+  private TuleapProjects(int[] ids) {
+    this.ids = ids;
+  }
+
+  static TuleapProjects copyOf(ImmutableIntArray ids) {
+    return ids.isEmpty()
+        ? EMPTY
+        : new TuleapProjects(IntStream.of(ids.toArray()).sorted().distinct().toArray());
+  }
+
+  boolean contains(int projectId) {
+    return Arrays.binarySearch(ids, projectId) >= 0;
+  }
+
+  IntStream stream() {
+    return IntStream.of(ids);
+  }
+
+  int size() {
+    return ids.length;
+  }
+
+  /**
+   * Reads a page of {@code GET /api/projects} into {@code ids} and returns the number of projects
+   * on the page. Only the {@code id} of each project is read, all other fields are skipped.
+   */
+  static int readPage(Reader page, ImmutableIntArray.Builder ids) throws IOException {
+    JsonReader reader = new JsonReader(page);
+    int count = 0;
+    try {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if (reader.nextName().equals("id") && reader.peek() == JsonToken.NUMBER) {
+            int id = reader.nextInt();
+            if (id < 0) {
+              throw new IOException("Invalid Tuleap project ID: " + id);
+            }
+            ids.add(id);
+          } else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+        count++;
+      }
+      reader.endArray();
+    } catch (IllegalStateException | NumberFormatException e) {
+      throw new IOException("Invalid Tuleap projects response", e);
+    }
+    return count;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof TuleapProjects && Arrays.equals(ids, ((TuleapProjects) o).ids);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(ids);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(ids);
+  }
+}
@@ -0,0 +1,57 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/** Serializes the project IDs of a user as their count followed by each ID. */
+enum TuleapProjectsSerializer implements CacheSerializer<TuleapProjects> {
+  INSTANCE;
+
+  @Override
+  public byte[] serialize(TuleapProjects projects) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(projects.size());
+      for (int id : projects.stream().toArray()) {
+        out.writeInt(id);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot serialize Tuleap projects", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public TuleapProjects deserialize(byte[] in) {
+    try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(in))) {
+      int size = data.readInt();
+      ImmutableIntArray.Builder ids = ImmutableIntArray.builder(size);
+      for (int i = 0; i < size; i++) {
+        ids.add(data.readInt());
+      }
+      return TuleapProjects.copyOf(ids.build());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot deserialize Tuleap projects", e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JsonWebKeySetTest {
+  private static final String JWKS_URL = "https://issuer.example.com/keys";
+
+  private static RSAPublicKey publicKey;
+
+  @Mock private OAuth20Service service;
+
+  @BeforeClass
+  public static void generateKey() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    publicKey = (RSAPublicKey) generator.generateKeyPair().getPublic();
+  }
+
+  @Test
+  public void rsaSigningKeysAreParsed() throws Exception {
+    String jwks =
+        "{\"keys\":["
+            + jwk("key-1", "sig")
+            + ","
+            + jwk("key-2", "enc")
+            + ",{\"kty\":\"EC\",\"kid\":\"key-3\"}]}";
+    assertThat(JsonWebKeySet.parse(jwks)).containsExactly("key-1", publicKey);
+  }
+
+  @Test
+  public void unknownKeyIdRefreshesKeysOncePerInterval() throws Exception {
+    mockResponse("{\"keys\":[" + jwk("key-1", "sig") + "]}");
+    JsonWebKeySet keys =
+        new JsonWebKeySet(
+            service,
+            JWKS_URL,
+            Duration.ofMinutes(1),
+            Clock.fixed(Instant.ofEpochSecond(1_800_000_000L), ZoneOffset.UTC));
+
+    assertThat(keys.getKey("key-1")).isEqualTo(publicKey);
+    assertThat(keys.getKey("key-1")).isEqualTo(publicKey);
+    assertThat(keys.getKey("rotated")).isNull();
+    verify(service, times(1)).execute(any(OAuthRequest.class));
+  }
+
+  private void mockResponse(String body) throws Exception {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(response.getBody()).thenReturn(body);
+    when(service.execute(any(OAuthRequest.class))).thenReturn(response);
+  }
+
+  private static String jwk(String kid, String use) {
+    return String.format(
+        "{\"kty\":\"RSA\",\"kid\":\"%s\",\"use\":\"%s\",\"n\":\"%s\",\"e\":\"%s\"}",
+        kid, use, encode(publicKey.getModulus()), encode(publicKey.getPublicExponent()));
+  }
+
+  private static String encode(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    if (bytes[0] == 0) {
+      bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+}
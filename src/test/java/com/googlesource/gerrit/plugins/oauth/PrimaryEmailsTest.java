@@ -0,0 +1,64 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+public class PrimaryEmailsTest {
+  @Test
+  public void primaryVerifiedEmailIsFound() {
+    JsonElement emails =
+        JsonParser.parseString(
+            "[{\"email\":\"other@example.com\",\"primary\":false,\"verified\":true},"
+                + "{\"email\":\"jdoe@example.com\",\"primary\":true,\"verified\":true}]");
+    assertThat(PrimaryEmails.find(emails, "primary", "verified")).isEqualTo("jdoe@example.com");
+  }
+
+  @Test
+  public void unverifiedPrimaryEmailIsIgnored() {
+    JsonElement emails =
+        JsonParser.parseString(
+            "[{\"email\":\"jdoe@example.com\",\"is_primary\":true,\"is_confirmed\":false}]");
+    assertThat(PrimaryEmails.find(emails, "is_primary", "is_confirmed")).isNull();
+  }
+
+  @Test
+  public void malformedEmailsAreIgnored() {
+    assertThat(PrimaryEmails.find(null, "primary", "verified")).isNull();
+    assertThat(PrimaryEmails.find(JsonParser.parseString("{}"), "primary", "verified")).isNull();
+    JsonElement emails =
+        JsonParser.parseString(
+            "[\"jdoe@example.com\",{\"email\":\"jdoe@example.com\",\"primary\":null}]");
+    assertThat(PrimaryEmails.find(emails, "primary", "verified")).isNull();
+  }
+
+  @Test
+  public void withEmail() {
+    OAuthUserInfo userInfo = new OAuthUserInfo("ext:1", "jdoe", null, "John Doe", "1");
+    assertThat(PrimaryEmails.withEmail(userInfo, null)).isSameInstanceAs(userInfo);
+
+    OAuthUserInfo withEmail = PrimaryEmails.withEmail(userInfo, "jdoe@example.com");
+    assertThat(withEmail.getEmailAddress()).isEqualTo("jdoe@example.com");
+    assertThat(withEmail.getExternalId()).isEqualTo("ext:1");
+    assertThat(withEmail.getUserName()).isEqualTo("jdoe");
+    assertThat(withEmail.getDisplayName()).isEqualTo("John Doe");
+    assertThat(withEmail.getClaimedIdentity()).isEqualTo("1");
+  }
+}
@@ -0,0 +1,105 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SignedJwtTest {
+  private static final String ISSUER = "https://issuer.example.com";
+  private static final Instant NOW = Instant.ofEpochSecond(1_800_000_000L);
+
+  private static KeyPair keyPair;
+  private static KeyPair otherKeyPair;
+
+  @BeforeClass
+  public static void generateKeys() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    keyPair = generator.generateKeyPair();
+    otherKeyPair = generator.generateKeyPair();
+  }
+
+  @Test
+  public void signatureIsVerified() throws Exception {
+    SignedJwt jwt = SignedJwt.parse(sign(keyPair.getPrivate(), "{\"sub\":\"jdoe\"}"));
+    assertThat(jwt.getKeyId()).isEqualTo("key-1");
+    assertThat(jwt.getClaim("sub")).isEqualTo("jdoe");
+    assertThat(jwt.verifySignature(keyPair.getPublic())).isTrue();
+    assertThat(jwt.verifySignature(otherKeyPair.getPublic())).isFalse();
+  }
+
+  @Test
+  public void malformedTokenIsRejected() {
+    assertThrows(IOException.class, () -> SignedJwt.parse("header.payload"));
+    assertThrows(IOException.class, () -> SignedJwt.parse("e30.e30.%%%"));
+  }
+
+  @Test
+  public void validClaimsAreAccepted() throws Exception {
+    SignedJwt jwt = SignedJwt.parse(sign(keyPair.getPrivate(), claims("client", 60)));
+    jwt.checkClaims(ISSUER, "client", NOW);
+  }
+
+  @Test
+  public void audienceArrayIsAccepted() throws Exception {
+    SignedJwt jwt =
+        SignedJwt.parse(sign(keyPair.getPrivate(), claims("[\"other\",\"client\"]", 60)));
+    jwt.checkClaims(ISSUER, "client", NOW);
+  }
+
+  @Test
+  public void invalidClaimsAreRejected() throws Exception {
+    SignedJwt jwt = SignedJwt.parse(sign(keyPair.getPrivate(), claims("client", 60)));
+    assertThrows(IOException.class, () -> jwt.checkClaims("https://evil.example.com", null, NOW));
+    assertThrows(IOException.class, () -> jwt.checkClaims(ISSUER, "other", NOW));
+
+    SignedJwt expired = SignedJwt.parse(sign(keyPair.getPrivate(), claims("client", -600)));
+    assertThrows(IOException.class, () -> expired.checkClaims(ISSUER, "client", NOW));
+  }
+
+  private static String claims(String aud, long expiresIn) {
+    if (!aud.startsWith("[")) {
+      aud = "\"" + aud + "\"";
+    }
+    return String.format(
+        "{\"iss\":\"%s\",\"aud\":%s,\"exp\":%d}",
+        ISSUER, aud, NOW.plusSeconds(expiresIn).getEpochSecond());
+  }
+
+  static String sign(PrivateKey key, String claims) throws Exception {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String signingInput =
+        encoder.encodeToString(
+                "{\"alg\":\"RS256\",\"kid\":\"key-1\"}".getBytes(StandardCharsets.UTF_8))
+            + "."
+            + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(key);
+    signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+    return signingInput + "." + encoder.encodeToString(signature.sign());
+  }
+}
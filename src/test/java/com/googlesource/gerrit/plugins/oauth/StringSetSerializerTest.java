@@ -0,0 +1,37 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+public class StringSetSerializerTest {
+  private final StringSetSerializer serializer = StringSetSerializer.INSTANCE;
+
+  @Test
+  public void roundTrip() {
+    ImmutableSet<String> groups = ImmutableSet.of("authentik Admins", "d\u00e9v/team");
+    assertThat(serializer.deserialize(serializer.serialize(groups)))
+        .containsExactlyElementsIn(groups)
+        .inOrder();
+  }
+
+  @Test
+  public void roundTripEmpty() {
+    assertThat(serializer.deserialize(serializer.serialize(ImmutableSet.of()))).isEmpty();
+  }
+}
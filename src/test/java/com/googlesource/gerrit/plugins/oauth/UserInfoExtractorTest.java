@@ -0,0 +1,102 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import com.googlesource.gerrit.plugins.oauth.UserInfoExtractor.Field;
+import com.googlesource.gerrit.plugins.oauth.UserInfoExtractor.Profile;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.Test;
+
+public class UserInfoExtractorTest {
+  private final UserInfoExtractor extractor =
+      new UserInfoExtractor(
+          ImmutableMap.of(
+              Field.ID, List.of("uid"),
+              Field.USERNAME, List.of("logins"),
+              Field.EMAIL, List.of("emails", "1"),
+              Field.NAME, List.of("profile", "name")));
+
+  @Test
+  public void fieldsAreReadFromTheirPaths() throws Exception {
+    Profile profile =
+        read(
+            "{\"uid\":42,\"other\":{\"uid\":1},"
+                + "\"emails\":[\"old@example.com\",\"jdoe@example.com\"],"
+                + "\"profile\":{\"name\":\"John Doe\",\"tags\":[1,2]},\"logins\":[null,\"jdoe\"]}");
+    assertThat(profile.get(Field.ID)).isEqualTo("42");
+    assertThat(profile.get(Field.USERNAME)).isEqualTo("jdoe");
+    assertThat(profile.get(Field.EMAIL)).isEqualTo("jdoe@example.com");
+    assertThat(profile.get(Field.NAME)).isEqualTo("John Doe");
+  }
+
+  @Test
+  public void missingOrNonScalarFieldsAreNull() throws Exception {
+    Profile profile = read("{\"uid\":null,\"profile\":\"John\",\"emails\":{},\"logins\":[{}]}");
+    assertThat(profile.get(Field.ID)).isNull();
+    assertThat(profile.get(Field.USERNAME)).isNull();
+    assertThat(profile.get(Field.EMAIL)).isNull();
+    assertThat(profile.get(Field.NAME)).isNull();
+  }
+
+  @Test
+  public void readingStopsWhenAllFieldsAreFound() throws Exception {
+    Profile profile =
+        read("{\"uid\":1,\"emails\":[0,\"e\"],\"profile\":{\"name\":\"n\"},\"logins\":\"l\"  ...");
+    assertThat(profile.get(Field.NAME)).isEqualTo("n");
+  }
+
+  @Test
+  public void fieldWithoutPathIsNull() throws Exception {
+    UserInfoExtractor idOnly = new UserInfoExtractor(ImmutableMap.of(Field.ID, List.of("sub")));
+    Profile profile = idOnly.read(new StringReader("{\"sub\":\"a\",\"email\":\"b\"}"));
+    assertThat(profile.get(Field.ID)).isEqualTo("a");
+    assertThat(profile.get(Field.EMAIL)).isNull();
+  }
+
+  @Test
+  public void invalidResponseIsRejected() {
+    assertThrows(IOException.class, () -> read("[]"));
+    assertThrows(IOException.class, () -> read("{\"uid\":"));
+    assertThrows(IOException.class, () -> read("<html>"));
+  }
+
+  @Test
+  public void jsonPointerIsParsed() {
+    assertThat(UserInfoExtractor.parseJsonPointer("/profile/email"))
+        .containsExactly("profile", "email")
+        .inOrder();
+    assertThat(UserInfoExtractor.parseJsonPointer("/emails/0")).containsExactly("emails", "0");
+    assertThat(UserInfoExtractor.parseJsonPointer("/a~1b")).containsExactly("a/b");
+    assertThat(UserInfoExtractor.parseJsonPointer("/m~0n")).containsExactly("m~n");
+    assertThat(UserInfoExtractor.parseJsonPointer("/~01")).containsExactly("~1");
+  }
+
+  @Test
+  public void invalidJsonPointerIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> UserInfoExtractor.parseJsonPointer("sub"));
+    assertThrows(IllegalArgumentException.class, () -> UserInfoExtractor.parseJsonPointer("/a~2"));
+    assertThrows(IllegalArgumentException.class, () -> UserInfoExtractor.parseJsonPointer("/a~"));
+  }
+
+  private Profile read(String json) throws IOException {
+    return extractor.read(new StringReader(json));
+  }
+}
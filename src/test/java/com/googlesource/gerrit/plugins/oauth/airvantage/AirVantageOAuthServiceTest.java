@@ -0,0 +1,100 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.airvantage;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.server.config.PluginConfig;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AirVantageOAuthServiceTest {
+  private static final String SECTION = "gerrit-oauth-provider-airvantage-oauth";
+
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+
+  @Test
+  public void userIsReadFromDefaultFields() throws Exception {
+    OAuthUserInfo userInfo =
+        newService(newConfig())
+            .toUserInfo(
+                new StringReader(
+                    "{\"uid\":\"a1b2\",\"email\":\"jdoe@example.com\",\"name\":\"John Doe\","
+                        + "\"company\":{\"uid\":\"c3\"}}"));
+    assertThat(userInfo.getExternalId()).isEqualTo("airvantage-oauth:a1b2");
+    assertThat(userInfo.getUserName()).isNull();
+    assertThat(userInfo.getEmailAddress()).isEqualTo("jdoe@example.com");
+    assertThat(userInfo.getDisplayName()).isEqualTo("John Doe");
+  }
+
+  @Test
+  public void missingEmailAndNameAreAllowed() throws Exception {
+    OAuthUserInfo userInfo =
+        newService(newConfig()).toUserInfo(new StringReader("{\"uid\":\"a1b2\",\"name\":null}"));
+    assertThat(userInfo.getEmailAddress()).isNull();
+    assertThat(userInfo.getDisplayName()).isNull();
+  }
+
+  @Test
+  public void missingUidIsRejected() {
+    AirVantageOAuthService service = newService(newConfig());
+    assertThrows(
+        IOException.class,
+        () -> service.toUserInfo(new StringReader("{\"email\":\"jdoe@example.com\"}")));
+  }
+
+  @Test
+  public void fieldsAreConfigurable() throws Exception {
+    // An empty value can't be set through PluginConfig.Update, which unsets the option instead.
+    Config config = new Config();
+    config.setString("plugin", SECTION, AirVantageOAuthService.NAME_FIELD, "");
+    PluginConfig.Update cfg = newConfig(config);
+    cfg.setString(AirVantageOAuthService.USERNAME_FIELD, "login");
+    OAuthUserInfo userInfo =
+        newService(cfg)
+            .toUserInfo(new StringReader("{\"uid\":\"a1b2\",\"login\":\"jdoe\",\"name\":\"J\"}"));
+    assertThat(userInfo.getUserName()).isEqualTo("jdoe");
+    assertThat(userInfo.getDisplayName()).isNull();
+  }
+
+  private static PluginConfig.Update newConfig() {
+    return newConfig(new Config());
+  }
+
+  private static PluginConfig.Update newConfig(Config config) {
+    PluginConfig.Update cfg = PluginConfig.Update.forTest(SECTION, config);
+    cfg.setString(InitOAuth.CLIENT_ID, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    return cfg;
+  }
+
+  private AirVantageOAuthService newService(PluginConfig.Update cfg) {
+    when(cfgFactory.create(AirVantageOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    return new AirVantageOAuthService(
+        cfgFactory, new OAuth20ServiceFactory(cfgFactory, "https://gerrit/"));
+  }
+}
@@ -0,0 +1,213 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.auth0;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.extensions.auth.oauth.OAuthAuthorizationInfo;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonObject;
+import com.google.inject.Provider;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class Auth0OAuthServiceTest {
+  private static final String SECTION = "gerrit-oauth-provider-auth0-oauth";
+  private static final String ROOT_URL = "https://dev-abc.us.auth0.com";
+
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+  @Mock private Provider<HttpServletRequest> httpRequest;
+  @Mock private HttpServletRequest req;
+  @Mock private HttpSession session;
+
+  @Test
+  public void authorizationUrlOfRouteHasLoginHintAndPkceChallenge() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setBoolean(InitOAuth.ENABLE_PKCE, true);
+    cfg.setString(Auth0Routes.DOMAIN_ROUTE, "example.com organization=org_123 connection=ad");
+    when(req.getParameter("login_hint")).thenReturn("jdoe@example.com");
+    when(req.getSession()).thenReturn(session);
+
+    OAuthAuthorizationInfo info = newService(cfg).getAuthorizationInfo();
+
+    String url = info.getAuthorizationUrl();
+    assertThat(url).startsWith(ROOT_URL + "/authorize?");
+    Map<String, String> params = queryParams(url);
+    assertThat(params).containsEntry("response_type", "code");
+    assertThat(params).containsEntry("client_id", "gerrit");
+    assertThat(params).containsEntry("organization", "org_123");
+    assertThat(params).containsEntry("connection", "ad");
+    assertThat(params).containsEntry("login_hint", "jdoe@example.com");
+    assertThat(params).containsEntry("code_challenge_method", "S256");
+    assertThat(params)
+        .containsEntry(
+            "code_challenge",
+            Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(
+                    Hashing.sha256().hashString(info.getPkceVerifier(), UTF_8).asBytes()));
+    verify(session).setAttribute(anyString(), eq("org_123"));
+  }
+
+  @Test
+  public void hintedLoginTakesRouteOfItsDomain() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(Auth0Routes.CONNECTION, "Username-Password-Authentication");
+    cfg.setStringList(
+        Auth0Routes.DOMAIN_ROUTE,
+        List.of(
+            "example.com organization=org_123 connection=example-ad",
+            "partner.org connection=partner-saml"));
+    // As sent by a link to <gerrit-url>/login/?login_hint=jdoe@Example.com
+    when(req.getParameter("login_hint")).thenReturn("jdoe@Example.com");
+    when(req.getSession()).thenReturn(session);
+
+    Map<String, String> params = queryParams(newService(cfg).getAuthorizationUrl());
+
+    assertThat(params).containsEntry("organization", "org_123");
+    assertThat(params).containsEntry("connection", "example-ad");
+    assertThat(params).containsEntry("login_hint", "jdoe@Example.com");
+    verify(session).setAttribute(anyString(), eq("org_123"));
+  }
+
+  @Test
+  public void eachLoginHasItsOwnPkceChallenge() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setBoolean(InitOAuth.ENABLE_PKCE, true);
+    Auth0OAuthService service = newService(cfg);
+
+    OAuthAuthorizationInfo first = service.getAuthorizationInfo();
+    OAuthAuthorizationInfo second = service.getAuthorizationInfo();
+
+    assertThat(first.getPkceVerifier()).isNotEqualTo(second.getPkceVerifier());
+    assertThat(queryParams(first.getAuthorizationUrl()).get("code_challenge"))
+        .isNotEqualTo(queryParams(second.getAuthorizationUrl()).get("code_challenge"));
+  }
+
+  @Test
+  public void authorizationUrlWithoutLoginHintTakesDefaultRoute() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(Auth0Routes.CONNECTION, "Username-Password-Authentication");
+    cfg.setString(Auth0Routes.DOMAIN_ROUTE, "example.com organization=org_123");
+
+    Map<String, String> params = queryParams(newService(cfg).getAuthorizationUrl());
+
+    assertThat(params).containsEntry("connection", "Username-Password-Authentication");
+    assertThat(params).doesNotContainKey("organization");
+    assertThat(params).doesNotContainKey("login_hint");
+    assertThat(params).doesNotContainKey("code_challenge");
+  }
+
+  @Test
+  public void organizationIsNotCheckedIfLoginWasNotRouted() throws Exception {
+    Auth0OAuthService.checkOrganization(null, "{\"access_token\":\"a\"}");
+  }
+
+  @Test
+  public void organizationMatchesOrgId() throws Exception {
+    Auth0OAuthService.checkOrganization("org_123", rawToken("org_123", null));
+  }
+
+  @Test
+  public void organizationMatchesOrgName() throws Exception {
+    Auth0OAuthService.checkOrganization("Example", rawToken("org_123", "example"));
+  }
+
+  @Test
+  public void otherOrganizationIsRejected() {
+    assertThrows(
+        IOException.class,
+        () -> Auth0OAuthService.checkOrganization("org_123", rawToken("org_456", "other")));
+  }
+
+  @Test
+  public void missingOrganizationIsRejected() {
+    assertThrows(
+        IOException.class,
+        () -> Auth0OAuthService.checkOrganization("org_123", rawToken(null, null)));
+  }
+
+  @Test
+  public void missingIdTokenIsRejected() {
+    assertThrows(
+        IOException.class,
+        () -> Auth0OAuthService.checkOrganization("org_123", "{\"access_token\":\"a\"}"));
+  }
+
+  private static String rawToken(String orgId, String orgName) {
+    JsonObject claims = new JsonObject();
+    claims.addProperty("sub", "auth0|jdoe");
+    claims.addProperty("org_id", orgId);
+    claims.addProperty("org_name", orgName);
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    JsonObject token = new JsonObject();
+    token.addProperty("access_token", "a");
+    token.addProperty(
+        "id_token",
+        encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(UTF_8))
+            + "."
+            + encoder.encodeToString(claims.toString().getBytes(UTF_8))
+            + ".c2ln");
+    return token.toString();
+  }
+
+  private static Map<String, String> queryParams(String url) {
+    Map<String, String> params = new LinkedHashMap<>();
+    for (String param : Splitter.on('&').split(URI.create(url).getRawQuery())) {
+      List<String> nameValue = Splitter.on('=').limit(2).splitToList(param);
+      params.put(nameValue.get(0), URLDecoder.decode(nameValue.get(1), UTF_8));
+    }
+    return params;
+  }
+
+  private static PluginConfig.Update newConfig() {
+    PluginConfig.Update cfg = PluginConfig.Update.forTest(SECTION, new Config());
+    cfg.setString(InitOAuth.ROOT_URL, ROOT_URL);
+    cfg.setString(InitOAuth.CLIENT_ID, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    return cfg;
+  }
+
+  private Auth0OAuthService newService(PluginConfig.Update cfg) {
+    when(cfgFactory.create(Auth0OAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    when(httpRequest.get()).thenReturn(req);
+    return new Auth0OAuthService(
+        cfgFactory, new OAuth20ServiceFactory(cfgFactory, "https://gerrit/"), httpRequest);
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.auth0;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.ProvisionException;
+import java.util.List;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+
+public class Auth0RoutesTest {
+  @Test
+  public void defaultRouteWithoutConfiguration() {
+    Auth0Routes routes = new Auth0Routes(newConfig().asPluginConfig());
+    Auth0Routes.Route route = routes.forEmail("jdoe@example.com");
+    assertThat(route.params()).isEmpty();
+    assertThat(routes.all()).containsExactly(route);
+  }
+
+  @Test
+  public void routeIsChosenByEmailDomain() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(Auth0Routes.ORGANIZATION, "org_default");
+    cfg.setStringList(
+        Auth0Routes.DOMAIN_ROUTE,
+        List.of(
+            "example.com organization=org_123 connection=example-ad",
+            "Partner.org  connection=partner-saml"));
+    Auth0Routes routes = new Auth0Routes(cfg.asPluginConfig());
+
+    assertThat(routes.forEmail("jdoe@EXAMPLE.com").params())
+        .containsExactly("organization", "org_123", "connection", "example-ad")
+        .inOrder();
+    assertThat(routes.forEmail("jane@partner.org").params())
+        .containsExactly("connection", "partner-saml");
+    assertThat(routes.forEmail("jdoe@sub.example.com").params())
+        .containsExactly("organization", "org_default");
+    assertThat(routes.forEmail("jdoe").params()).containsExactly("organization", "org_default");
+    assertThat(routes.forEmail(null).params()).containsExactly("organization", "org_default");
+    assertThat(routes.all()).hasSize(3);
+  }
+
+  @Test
+  public void domainsWithSameRouteShareIt() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setStringList(
+        Auth0Routes.DOMAIN_ROUTE,
+        List.of("example.com organization=org_123", "example.net organization=org_123"));
+    assertThat(new Auth0Routes(cfg.asPluginConfig()).all()).hasSize(2);
+  }
+
+  @Test
+  public void invalidDomainRouteIsRejected() {
+    assertInvalid("example.com");
+    assertInvalid("example.com organization");
+    assertInvalid("example.com organization=");
+    assertInvalid("example.com tenant=acme");
+    assertInvalid("example.com connection=a connection=b");
+  }
+
+  @Test
+  public void duplicateDomainIsRejected() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setStringList(
+        Auth0Routes.DOMAIN_ROUTE, List.of("example.com connection=a", "EXAMPLE.COM connection=b"));
+    assertThrows(ProvisionException.class, () -> new Auth0Routes(cfg.asPluginConfig()));
+  }
+
+  private static void assertInvalid(String domainRoute) {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(Auth0Routes.DOMAIN_ROUTE, domainRoute);
+    assertThrows(ProvisionException.class, () -> new Auth0Routes(cfg.asPluginConfig()));
+  }
+
+  private static PluginConfig.Update newConfig() {
+    return PluginConfig.Update.forTest("gerrit-oauth-provider-auth0-oauth", new Config());
+  }
+}
@@ -0,0 +1,39 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.authentik;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+public class AuthentikOAuthServiceTest {
+  @Test
+  public void groupsAreReadFromClaim() {
+    JsonObject claims =
+        JsonParser.parseString(
+                "{\"sub\":\"42\",\"groups\":[\"authentik Admins\",\"dev/team\",\"\",null,{}]}")
+            .getAsJsonObject();
+    assertThat(AuthentikOAuthService.extractGroups(claims))
+        .containsExactly("authentik Admins", "dev/team");
+  }
+
+  @Test
+  public void missingGroupsClaimIsEmpty() {
+    JsonObject claims = JsonParser.parseString("{\"sub\":\"42\"}").getAsJsonObject();
+    assertThat(AuthentikOAuthService.extractGroups(claims)).isEmpty();
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.entities.GroupReference;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AzureGroupBackendTest {
+  private static final AccountGroup.UUID GROUP = AccountGroup.uuid("azure:0a1b2c");
+
+  private AzureGroupBackend backend;
+
+  @Before
+  public void setUp() {
+    backend = new AzureGroupBackend(CacheBuilder.newBuilder().build());
+  }
+
+  @Test
+  public void handlesAzureGroups() {
+    assertThat(backend.handles(GROUP)).isTrue();
+    assertThat(backend.handles(AccountGroup.uuid("ldap:cn=admins"))).isFalse();
+  }
+
+  @Test
+  public void groupIsNamedAfterItsObjectId() {
+    assertThat(backend.get(GROUP).getName()).isEqualTo("azure/0a1b2c");
+    assertThat(backend.get(AccountGroup.uuid("ldap:cn=admins"))).isNull();
+  }
+
+  @Test
+  public void onlyCompleteUuidIsSuggested() {
+    assertThat(backend.suggest("azure:0a1b2c", null))
+        .containsExactly(GroupReference.create(GROUP, "azure/0a1b2c"));
+    assertThat(backend.suggest("azure:", null)).isEmpty();
+    assertThat(backend.suggest("admins", null)).isEmpty();
+  }
+
+  @Test
+  public void unknownUserHasNoGroups() {
+    assertThat(backend.getGroupIds("object")).isEqualTo(ImmutableSet.of());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.json.OutputFormat.JSON;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.Test;
+
+public class AzureIdTokenClaimsTest {
+
+  @Test
+  public void claimsAreExtracted() throws Exception {
+    AzureIdTokenClaims claims =
+        parse(
+            "{\"tid\":\"tenant\",\"aud\":\"client\",\"oid\":\"object\","
+                + "\"email\":\"jdoe@example.com\",\"name\":\"John Doe\"}");
+    assertThat(claims.tid()).isEqualTo("tenant");
+    assertThat(claims.aud()).isEqualTo("client");
+    assertThat(claims.oid()).isEqualTo("object");
+    assertThat(claims.email()).isEqualTo("jdoe@example.com");
+    assertThat(claims.isComplete()).isTrue();
+  }
+
+  @Test
+  public void preferredUsernameIsNotUsedAsEmail() throws Exception {
+    AzureIdTokenClaims claims =
+        parse(
+            "{\"oid\":\"object\",\"preferred_username\":\"jdoe@example.com\","
+                + "\"name\":\"John Doe\"}");
+    assertThat(claims.email()).isNull();
+    assertThat(claims.isComplete()).isFalse();
+  }
+
+  @Test
+  public void incompleteWithoutEmailAddress() throws Exception {
+    AzureIdTokenClaims claims =
+        parse("{\"oid\":\"object\",\"preferred_username\":\"+15551234\",\"name\":\"John Doe\"}");
+    assertThat(claims.email()).isNull();
+    assertThat(claims.isComplete()).isFalse();
+  }
+
+  @Test
+  public void groupsAreExtracted() throws Exception {
+    AzureIdTokenClaims claims = parse("{\"oid\":\"object\",\"groups\":[\"g1\",\"g2\"]}");
+    assertThat(claims.groups()).containsExactly("g1", "g2");
+    assertThat(claims.groupsOverage()).isFalse();
+  }
+
+  @Test
+  public void groupsOverageIsDetected() throws Exception {
+    AzureIdTokenClaims claims =
+        parse(
+            "{\"oid\":\"object\",\"_claim_names\":{\"groups\":\"src1\"},"
+                + "\"_claim_sources\":{\"src1\":{\"endpoint\":\"https://graph\"}}}");
+    assertThat(claims.groups()).isEmpty();
+    assertThat(claims.groupsOverage()).isTrue();
+  }
+
+  @Test
+  public void missingIdTokenIsRejected() {
+    assertThrows(
+        IOException.class,
+        () -> AzureIdTokenClaims.parse(JSON.newGson(), "{\"access_token\":\"token\"}"));
+  }
+
+  private static AzureIdTokenClaims parse(String payload) throws IOException {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String idToken =
+        encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8))
+            + "."
+            + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+            + ".c2ln";
+    return AzureIdTokenClaims.parse(
+        JSON.newGson(), "{\"access_token\":\"token\",\"id_token\":\"" + idToken + "\"}");
+  }
+}
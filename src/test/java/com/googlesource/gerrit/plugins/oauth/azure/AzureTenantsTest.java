@@ -0,0 +1,43 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.azure;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.github.scribejava.core.oauth.OAuth20Service;
+import java.util.List;
+import org.junit.Test;
+
+public class AzureTenantsTest {
+
+  @Test
+  public void disabledWithoutAllowedTenants() {
+    assertThat(tenants().isEnabled()).isFalse();
+  }
+
+  @Test
+  public void tenantIdsAreComparedIgnoringCase() {
+    AzureTenants tenants = tenants("0B1C2D3E-0000-0000-0000-000000000001");
+    assertThat(tenants.isEnabled()).isTrue();
+    assertThat(tenants.isAllowed("0b1c2d3e-0000-0000-0000-000000000001")).isTrue();
+    assertThat(tenants.isAllowed("0b1c2d3e-0000-0000-0000-000000000002")).isFalse();
+    assertThat(tenants.isAllowed(null)).isFalse();
+  }
+
+  private static AzureTenants tenants(String... tenantIds) {
+    return new AzureTenants(mock(OAuth20Service.class), List.of(tenantIds));
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.bitbucket;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.server.config.PluginConfig;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthRequestExecutor;
+import java.io.IOException;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BitbucketOAuthServiceTest {
+  private static final String SECTION = "gerrit-oauth-provider-bitbucket-oauth";
+
+  @Mock OAuthPluginConfigFactory cfgFactory;
+
+  private BitbucketOAuthService service;
+
+  @Before
+  public void setUp() {
+    PluginConfig.Update cfg = PluginConfig.Update.forTest(SECTION, new Config());
+    cfg.setString(InitOAuth.CLIENT_ID, "client");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    when(cfgFactory.create(BitbucketOAuthService.PROVIDER_NAME))
+        .thenReturn(cfg.asPluginConfig());
+    service =
+        new BitbucketOAuthService(
+            cfgFactory,
+            new OAuth20ServiceFactory(cfgFactory, "https://localhost/"),
+            mock(OAuthRequestExecutor.class));
+  }
+
+  @Test
+  public void userIsReadFromProfile() throws Exception {
+    OAuthUserInfo userInfo =
+        service.toUserInfo(
+            "{\"username\":\"jdoe\",\"display_name\":\"John Doe\","
+                + "\"uuid\":\"{c8b2}\",\"links\":{\"avatar\":{\"href\":\"x\"}}}");
+    assertThat(userInfo.getExternalId()).isEqualTo("bitbucket-oauth:jdoe");
+    assertThat(userInfo.getUserName()).isEqualTo("jdoe");
+    assertThat(userInfo.getDisplayName()).isEqualTo("John Doe");
+    assertThat(userInfo.getEmailAddress()).isNull();
+    assertThat(userInfo.getClaimedIdentity()).isNull();
+  }
+
+  @Test
+  public void profileWithoutUsernameIsRejected() {
+    assertThrows(IOException.class, () -> service.toUserInfo("{\"display_name\":\"John\"}"));
+    assertThrows(IOException.class, () -> service.toUserInfo("[]"));
+  }
+
+  @Test
+  public void confirmedPrimaryEmailIsSelected() {
+    assertThat(
+            BitbucketOAuthService.parsePrimaryEmail(
+                "{\"pagelen\":10,\"values\":["
+                    + "{\"email\":\"old@example.com\",\"is_primary\":true,\"is_confirmed\":false},"
+                    + "{\"email\":\"alt@example.com\",\"is_primary\":false,\"is_confirmed\":true},"
+                    + "{\"email\":\"jdoe@example.com\",\"is_primary\":true,\"is_confirmed\":true}"
+                    + "]}"))
+        .isEqualTo("jdoe@example.com");
+  }
+
+  @Test
+  public void noEmailWithoutConfirmedPrimary() {
+    assertThat(
+            BitbucketOAuthService.parsePrimaryEmail(
+                "{\"values\":[{\"email\":\"a@example.com\",\"is_primary\":false,"
+                    + "\"is_confirmed\":true}]}"))
+        .isNull();
+    assertThat(BitbucketOAuthService.parsePrimaryEmail("{\"values\":null}")).isNull();
+    assertThat(BitbucketOAuthService.parsePrimaryEmail("{}")).isNull();
+  }
+}
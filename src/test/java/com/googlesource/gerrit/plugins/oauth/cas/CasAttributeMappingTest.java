@@ -0,0 +1,136 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.cas;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gerrit.server.config.PluginConfig;
+import java.io.IOException;
+import java.io.StringReader;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+
+public class CasAttributeMappingTest {
+  private final CasAttributeMapping mapping = new CasAttributeMapping(newConfig().asPluginConfig());
+
+  @Test
+  public void attributeArray() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read(
+            "{\"id\":\"jdoe\",\"attributes\":["
+                + "{\"login\":\"john\"},{\"email\":\"jdoe@example.com\"},"
+                + "{\"name\":\"John Doe\"}]}");
+    assertThat(profile)
+        .isEqualTo(
+            new CasAttributeMapping.Profile("jdoe", "john", "jdoe@example.com", "John Doe"));
+  }
+
+  @Test
+  public void nestedAttributeObject() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read(
+            "{\"id\":\"jdoe\",\"attributes\":"
+                + "{\"login\":\"john\",\"email\":\"jdoe@example.com\",\"name\":\"John Doe\"}}");
+    assertThat(profile)
+        .isEqualTo(
+            new CasAttributeMapping.Profile("jdoe", "john", "jdoe@example.com", "John Doe"));
+  }
+
+  @Test
+  public void flatProfile() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read("{\"id\":\"jdoe\",\"login\":\"john\",\"email\":\"jdoe@example.com\"}");
+    assertThat(profile)
+        .isEqualTo(new CasAttributeMapping.Profile("jdoe", "john", "jdoe@example.com", null));
+  }
+
+  @Test
+  public void nestedAttributesTakePrecedenceOverFlatOnes() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read(
+            "{\"login\":\"flat\",\"attributes\":{\"login\":\"nested\"},"
+                + "\"id\":\"jdoe\",\"name\":\"John Doe\"}");
+    assertThat(profile.login()).isEqualTo("nested");
+    assertThat(profile.name()).isEqualTo("John Doe");
+  }
+
+  @Test
+  public void lastValueOfRepeatedAttributeWins() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read(
+            "{\"id\":\"jdoe\",\"attributes\":["
+                + "{\"email\":\"old@example.com\"},{\"email\":null},"
+                + "{\"email\":\"new@example.com\"}]}");
+    assertThat(profile.email()).isEqualTo("new@example.com");
+  }
+
+  @Test
+  public void firstValueOfListIsUsed() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read(
+            "{\"id\":\"jdoe\",\"attributes\":"
+                + "{\"email\":[\"jdoe@example.com\",\"john@example.com\"]}}");
+    assertThat(profile.email()).isEqualTo("jdoe@example.com");
+  }
+
+  @Test
+  public void unmappedAttributesAreSkipped() throws Exception {
+    CasAttributeMapping.Profile profile =
+        read(
+            "{\"id\":\"jdoe\",\"attributes\":"
+                + "{\"memberOf\":[\"a\",{\"b\":[1,2]}],\"login\":\"john\"}}");
+    assertThat(profile).isEqualTo(new CasAttributeMapping.Profile("jdoe", "john", null, null));
+  }
+
+  @Test
+  public void configuredAttributeNames() throws Exception {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(CasAttributeMapping.LOGIN_ATTRIBUTE, "uid");
+    cfg.setString(CasAttributeMapping.EMAIL_ATTRIBUTE, "mail");
+    cfg.setString(CasAttributeMapping.NAME_ATTRIBUTE, "uid");
+    CasAttributeMapping.Profile profile =
+        new CasAttributeMapping(cfg.asPluginConfig())
+            .read(
+                new StringReader(
+                    "{\"id\":\"jdoe\",\"attributes\":"
+                        + "{\"uid\":\"john\",\"mail\":\"jdoe@example.com\",\"email\":\"x\"}}"));
+    assertThat(profile)
+        .isEqualTo(new CasAttributeMapping.Profile("jdoe", "john", "jdoe@example.com", "john"));
+  }
+
+  @Test
+  public void missingIdIsRejected() {
+    assertThrows(IOException.class, () -> read("{\"attributes\":{\"login\":\"john\"}}"));
+  }
+
+  @Test
+  public void nonObjectProfileIsRejected() {
+    assertThrows(IOException.class, () -> read("[]"));
+  }
+
+  @Test
+  public void nonObjectAttributeIsRejected() {
+    assertThrows(IOException.class, () -> read("{\"id\":\"jdoe\",\"attributes\":[\"john\"]}"));
+  }
+
+  private CasAttributeMapping.Profile read(String profile) throws IOException {
+    return mapping.read(new StringReader(profile));
+  }
+
+  private static PluginConfig.Update newConfig() {
+    return PluginConfig.Update.forTest("gerrit-oauth-provider-cas-oauth", new Config());
+  }
+}
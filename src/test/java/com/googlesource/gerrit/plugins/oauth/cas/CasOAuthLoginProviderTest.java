@@ -0,0 +1,80 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.cas;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CasOAuthLoginProviderTest {
+  private static final String TOKEN = "AT-1-abcdef";
+
+  @Mock private CasOAuthService service;
+
+  private Cache<String, OAuthUserInfo> cache;
+  private CasOAuthLoginProvider loginProvider;
+  private OAuthUserInfo userInfo;
+
+  @Before
+  public void setUp() {
+    cache = CacheBuilder.newBuilder().build();
+    loginProvider = new CasOAuthLoginProvider(service, cache);
+    userInfo = new OAuthUserInfo("cas-oauth:jdoe", "jdoe", null, null, null);
+  }
+
+  @Test
+  public void validatedTokenIsServedFromCache() throws Exception {
+    when(service.validateToken(TOKEN)).thenReturn(userInfo);
+
+    assertThat(loginProvider.login("jdoe", TOKEN)).isSameInstanceAs(userInfo);
+    assertThat(loginProvider.login(null, TOKEN)).isSameInstanceAs(userInfo);
+    verify(service, times(1)).validateToken(TOKEN);
+  }
+
+  @Test
+  public void rejectedTokenIsNotCached() throws Exception {
+    when(service.validateToken(TOKEN)).thenThrow(new IOException("Authentication error"));
+
+    IOException e = assertThrows(IOException.class, () -> loginProvider.login("jdoe", TOKEN));
+    assertThat(e).hasMessageThat().isEqualTo("Authentication error");
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void usernameMismatchIsRejected() throws Exception {
+    when(service.validateToken(TOKEN)).thenReturn(userInfo);
+
+    IOException e = assertThrows(IOException.class, () -> loginProvider.login("other", TOKEN));
+    assertThat(e).hasMessageThat().contains("username does not match");
+  }
+
+  @Test
+  public void missingTokenIsRejected() {
+    assertThrows(IOException.class, () -> loginProvider.login("jdoe", null));
+  }
+}
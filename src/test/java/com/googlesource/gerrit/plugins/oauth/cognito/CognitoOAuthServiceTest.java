@@ -15,8 +15,12 @@
 package com.googlesource.gerrit.plugins.oauth.cognito;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.github.scribejava.core.model.OAuthRequest;
@@ -25,12 +29,23 @@ import com.github.scribejava.core.oauth.OAuth20Service;
 import com.google.gerrit.extensions.auth.oauth.OAuthToken;
 import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
 import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonObject;
+import com.google.inject.ProvisionException;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.JsonWebKeySet;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
 import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
 import javax.servlet.http.HttpServletResponse;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -63,6 +78,23 @@ public class CognitoOAuthServiceTest {
   // Define the prefix locally in the test, mirroring CognitoOAuthService
   private static final String COGNITO_PROVIDER_PREFIX_FOR_TEST = "cognito-oauth:";
 
+  // User pool whose id_tokens are verified
+  private static final String USER_POOL_ID = "us-east-1_AbCdEf123";
+  private static final String USER_POOL_ISSUER =
+      "https://cognito-idp.us-east-1.amazonaws.com/" + USER_POOL_ID;
+  private static final String KEY_ID = "key-1";
+
+  private static KeyPair keyPair;
+  private static KeyPair otherKeyPair;
+
+  @BeforeClass
+  public static void generateKeys() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    keyPair = generator.generateKeyPair();
+    otherKeyPair = generator.generateKeyPair();
+  }
+
   @Before
   public void setUp() throws Exception {
     // Mock the PluginConfigFactory to return our mockPluginConfig
@@ -186,4 +218,157 @@ public class CognitoOAuthServiceTest {
         .isEqualTo(COGNITO_PROVIDER_PREFIX_FOR_TEST + COGNITO_USER_ID);
     assertThat(userInfo.getUserName()).isEqualTo(COGNITO_USERNAME);
   }
+
+  @Test
+  public void getUserInfo_userPoolWithoutIdToken_shouldFallBackToUserInfo() throws Exception {
+    when(mockPluginConfig.getString(CognitoOAuthService.USER_POOL_ID))
+        .thenReturn("us-east-1_AbCdEf123");
+    CognitoOAuthService service = createServiceAndInjectMock(false);
+    mockCognitoUserInfoResponse(COGNITO_USER_ID, COGNITO_USERNAME, COGNITO_EMAIL, COGNITO_NAME);
+    OAuthToken inputToken =
+        new OAuthToken("dummyAccessToken", "dummySecretForTest", "{\"access_token\":\"x\"}");
+
+    OAuthUserInfo userInfo = service.getUserInfo(inputToken);
+
+    assertThat(userInfo.getExternalId())
+        .isEqualTo(COGNITO_PROVIDER_PREFIX_FOR_TEST + COGNITO_USER_ID);
+  }
+
+  @Test
+  public void toUserInfo_idTokenClaims_shouldUsePreferredUsernameOnly() throws Exception {
+    CognitoOAuthService service = createServiceAndInjectMock(true);
+    JsonObject claims = new JsonObject();
+    claims.addProperty("sub", COGNITO_USER_ID);
+    claims.addProperty("cognito:username", COGNITO_USERNAME);
+    claims.addProperty("email", COGNITO_EMAIL);
+    claims.addProperty("name", COGNITO_NAME);
+    claims.addProperty("token_use", "id");
+
+    OAuthUserInfo userInfo = service.toUserInfo(claims);
+
+    assertThat(userInfo.getExternalId())
+        .isEqualTo(COGNITO_PROVIDER_PREFIX_FOR_TEST + COGNITO_USER_ID);
+    assertThat(userInfo.getUserName()).isNull();
+    assertThat(userInfo.getEmailAddress()).isEqualTo(COGNITO_EMAIL);
+    assertThat(userInfo.getDisplayName()).isEqualTo(COGNITO_NAME);
+    assertThat(userInfo.getClaimedIdentity()).isNull();
+
+    claims.addProperty("preferred_username", "jane");
+    assertThat(service.toUserInfo(claims).getUserName()).isEqualTo("jane");
+    assertThat(service.toUserInfo(claims).getClaimedIdentity()).isEqualTo("gerrit:jane");
+  }
+
+  @Test
+  public void getUserInfo_verifiedIdToken_shouldNotRequestUserInfo() throws Exception {
+    CognitoOAuthService service = createUserPoolService();
+    JsonObject claims = idTokenClaims();
+
+    OAuthUserInfo userInfo = service.getUserInfo(tokenWithIdToken(sign(KEY_ID, keyPair, claims)));
+
+    assertThat(userInfo.getExternalId())
+        .isEqualTo(COGNITO_PROVIDER_PREFIX_FOR_TEST + COGNITO_USER_ID);
+    assertThat(userInfo.getUserName()).isEqualTo(COGNITO_USERNAME);
+    assertThat(userInfo.getEmailAddress()).isEqualTo(COGNITO_EMAIL);
+    // Only the signing keys are requested.
+    verify(mockScribeOAuthService).execute(any(OAuthRequest.class));
+  }
+
+  @Test
+  public void getUserInfo_idTokenWithBadSignature_shouldBeRejected() throws Exception {
+    CognitoOAuthService service = createUserPoolService();
+    OAuthToken token = tokenWithIdToken(sign(KEY_ID, otherKeyPair, idTokenClaims()));
+    assertThrows(IOException.class, () -> service.getUserInfo(token));
+  }
+
+  @Test
+  public void getUserInfo_idTokenWithUnknownKeyId_shouldBeRejected() throws Exception {
+    CognitoOAuthService service = createUserPoolService();
+    OAuthToken token = tokenWithIdToken(sign("other-key", keyPair, idTokenClaims()));
+    assertThrows(IOException.class, () -> service.getUserInfo(token));
+  }
+
+  @Test
+  public void getUserInfo_idTokenOfOtherIssuer_shouldBeRejected() throws Exception {
+    CognitoOAuthService service = createUserPoolService();
+    JsonObject claims = idTokenClaims();
+    claims.addProperty("iss", "https://cognito-idp.us-east-1.amazonaws.com/us-east-1_Other");
+    OAuthToken token = tokenWithIdToken(sign(KEY_ID, keyPair, claims));
+    assertThrows(IOException.class, () -> service.getUserInfo(token));
+  }
+
+  @Test
+  public void getUserInfo_accessToken_shouldBeRejected() throws Exception {
+    CognitoOAuthService service = createUserPoolService();
+    JsonObject claims = idTokenClaims();
+    claims.addProperty("token_use", "access");
+    OAuthToken token = tokenWithIdToken(sign(KEY_ID, keyPair, claims));
+    assertThrows(IOException.class, () -> service.getUserInfo(token));
+  }
+
+  @Test
+  public void invalidUserPoolId_shouldBeRejected() {
+    when(mockPluginConfig.getString(CognitoOAuthService.USER_POOL_ID)).thenReturn("AbCdEf123");
+    assertThrows(ProvisionException.class, () -> createServiceAndInjectMock(false));
+  }
+
+  /**
+   * Creates a service for the {@link #USER_POOL_ID} user pool, whose signing keys are served by
+   * the mocked OAuth20Service.
+   */
+  private CognitoOAuthService createUserPoolService() throws Exception {
+    when(mockPluginConfig.getString(CognitoOAuthService.USER_POOL_ID)).thenReturn(USER_POOL_ID);
+    CognitoOAuthService service = createServiceAndInjectMock(false);
+    Field keysField = CognitoOAuthService.class.getDeclaredField("userPoolKeys");
+    keysField.setAccessible(true);
+    keysField.set(
+        service,
+        new JsonWebKeySet(mockScribeOAuthService, USER_POOL_ISSUER + "/.well-known/jwks.json"));
+
+    RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String jwks =
+        String.format(
+            "{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\",\"kid\":\"%s\","
+                + "\"n\":\"%s\",\"e\":\"%s\"}]}",
+            KEY_ID,
+            encoder.encodeToString(key.getModulus().toByteArray()),
+            encoder.encodeToString(key.getPublicExponent().toByteArray()));
+    Response jwksResponse = mock(Response.class);
+    when(jwksResponse.getCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(jwksResponse.getBody()).thenReturn(jwks);
+    when(mockScribeOAuthService.execute(any(OAuthRequest.class))).thenReturn(jwksResponse);
+    return service;
+  }
+
+  private static JsonObject idTokenClaims() {
+    JsonObject claims = new JsonObject();
+    claims.addProperty("iss", USER_POOL_ISSUER);
+    claims.addProperty("aud", TEST_CLIENT_ID);
+    claims.addProperty("exp", Instant.now().plusSeconds(600).getEpochSecond());
+    claims.addProperty("token_use", "id");
+    claims.addProperty("sub", COGNITO_USER_ID);
+    claims.addProperty("preferred_username", COGNITO_USERNAME);
+    claims.addProperty("email", COGNITO_EMAIL);
+    return claims;
+  }
+
+  private static OAuthToken tokenWithIdToken(String idToken) {
+    JsonObject raw = new JsonObject();
+    raw.addProperty("access_token", "dummyAccessToken");
+    raw.addProperty("id_token", idToken);
+    return new OAuthToken("dummyAccessToken", "dummySecretForTest", raw.toString());
+  }
+
+  private static String sign(String kid, KeyPair key, JsonObject claims) throws Exception {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String signingInput =
+        encoder.encodeToString(
+                String.format("{\"alg\":\"RS256\",\"kid\":\"%s\"}", kid).getBytes(UTF_8))
+            + "."
+            + encoder.encodeToString(claims.toString().getBytes(UTF_8));
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(key.getPrivate());
+    signature.update(signingInput.getBytes(US_ASCII));
+    return signingInput + "." + encoder.encodeToString(signature.sign());
+  }
 }
@@ -0,0 +1,112 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.dex;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthToken;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonObject;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DexOAuthServiceTest {
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+
+  @Test
+  public void externalIdIsEmailByDefault() throws Exception {
+    OAuthUserInfo userInfo = newService(newConfig()).toUserInfo(claims());
+    assertThat(userInfo.getExternalId()).isEqualTo("dex-oauth:jdoe@example.com");
+    assertThat(userInfo.getUserName()).isEqualTo("jdoe@example.com");
+    assertThat(userInfo.getEmailAddress()).isEqualTo("jdoe@example.com");
+    assertThat(userInfo.getDisplayName()).isEqualTo("John Doe");
+  }
+
+  @Test
+  public void externalIdIsFederatedIdIfEnabled() throws Exception {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setBoolean(DexOAuthService.USE_FEDERATED_ID, true);
+    DexOAuthService service = newService(cfg);
+
+    JsonObject claims = claims();
+    JsonObject federated = new JsonObject();
+    federated.addProperty("connector_id", "github");
+    federated.addProperty("user_id", "4242");
+    claims.add("federated_claims", federated);
+    assertThat(service.toUserInfo(claims).getExternalId()).isEqualTo("dex-oauth:github/4242");
+
+    assertThrows(IOException.class, () -> service.toUserInfo(claims()));
+  }
+
+  @Test
+  public void domainIsStrippedFromUsername() throws Exception {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setStringList(InitOAuth.DOMAIN, List.of("corp.example.com", "example.com"));
+    assertThat(newService(cfg).toUserInfo(claims()).getUserName()).isEqualTo("jdoe");
+  }
+
+  @Test
+  public void domainIsOnlyStrippedAtTheEnd() {
+    Pattern suffix = DexOAuthService.compileDomainSuffix(new String[] {"example.com"});
+    assertThat(suffix.matcher("jdoe@Example.com").replaceFirst("")).isEqualTo("jdoe");
+    assertThat(suffix.matcher("jdoe@example.com.evil").replaceFirst(""))
+        .isEqualTo("jdoe@example.com.evil");
+    assertThat(suffix.matcher("jdoe@examplexcom").replaceFirst("")).isEqualTo("jdoe@examplexcom");
+    assertThat(DexOAuthService.compileDomainSuffix(new String[] {""})).isNull();
+  }
+
+  @Test
+  public void tokenResponseWithoutIdTokenIsRejected() {
+    DexOAuthService service = newService(newConfig());
+    OAuthToken token = new OAuthToken("token", "secret", "{\"access_token\":\"token\"}");
+    assertThrows(IOException.class, () -> service.getUserInfo(token));
+  }
+
+  private static JsonObject claims() {
+    JsonObject claims = new JsonObject();
+    claims.addProperty("sub", "CgQ0MjQyEgZnaXRodWI");
+    claims.addProperty("email", "jdoe@example.com");
+    claims.addProperty("name", "John Doe");
+    return claims;
+  }
+
+  private static PluginConfig.Update newConfig() {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-dex-oauth", new Config());
+    cfg.setString(InitOAuth.ROOT_URL, "https://dex.example.com");
+    cfg.setString(InitOAuth.CLIENT_ID, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    return cfg;
+  }
+
+  private DexOAuthService newService(PluginConfig.Update cfg) {
+    when(cfgFactory.create(DexOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    return new DexOAuthService(
+        cfgFactory, new OAuth20ServiceFactory(cfgFactory, "https://gerrit/"));
+  }
+}
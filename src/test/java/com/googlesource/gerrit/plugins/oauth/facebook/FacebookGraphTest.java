@@ -0,0 +1,115 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.facebook;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.ProvisionException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+
+public class FacebookGraphTest {
+  private static final String PROFILE =
+      "{\"id\":\"1234\",\"name\":\"John Doe\",\"email\":\"jdoe@example.com\","
+          + "\"short_name\":\"John\",\"picture\":{\"data\":{\"url\":\"x\"}},\"verified\":true}";
+
+  @Test
+  public void defaultProfileIsASingleRequest() {
+    FacebookGraph graph = new FacebookGraph(newConfig().asPluginConfig());
+    assertThat(graph.isBatch()).isFalse();
+    assertThat(graph.getProfilePath()).isEqualTo("me?fields=id,email,name");
+    assertThat(graph.getUsernameField()).isEqualTo("email");
+  }
+
+  @Test
+  public void projectionIncludesConfiguredFields() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setStringList(FacebookGraph.FIELDS, List.of("short_name, verified"));
+    cfg.setString(FacebookGraph.USERNAME_FIELD, "short_name");
+    FacebookGraph graph = new FacebookGraph(cfg.asPluginConfig());
+    assertThat(graph.getProfilePath()).isEqualTo("me?fields=id,email,name,short_name,verified");
+  }
+
+  @Test
+  public void invalidFieldIsRejected() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(FacebookGraph.USERNAME_FIELD, "email}&x=1");
+    assertThrows(ProvisionException.class, () -> new FacebookGraph(cfg.asPluginConfig()));
+  }
+
+  @Test
+  public void onlyProjectedFieldsAreRead() throws Exception {
+    FacebookGraph graph = new FacebookGraph(newConfig().asPluginConfig());
+    FacebookGraph.Profile profile = graph.readProfile(new StringReader(PROFILE));
+    assertThat(profile.fields())
+        .containsExactly("id", "1234", "name", "John Doe", "email", "jdoe@example.com");
+    assertThat(profile.grantedPermissions()).isEmpty();
+  }
+
+  @Test
+  public void batchReturnsProfileAndGrantedPermissions() throws Exception {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(FacebookGraph.FIELDS, "verified");
+    cfg.setString(FacebookGraph.REQUIRED_PERMISSION, "email");
+    FacebookGraph graph = new FacebookGraph(cfg.asPluginConfig());
+    assertThat(graph.isBatch()).isTrue();
+    assertThat(graph.getBatch())
+        .isEqualTo(
+            "[{\"method\":\"GET\",\"relative_url\":\"me?fields=id,email,name,verified\"},"
+                + "{\"method\":\"GET\",\"relative_url\":\"me/permissions\"}]");
+
+    String permissions =
+        "{\"data\":[{\"permission\":\"email\",\"status\":\"granted\"},"
+            + "{\"permission\":\"user_link\",\"status\":\"declined\"}]}";
+    FacebookGraph.Profile profile =
+        graph.readBatch(
+            new StringReader(
+                "[{\"code\":200,\"body\":"
+                    + quote(PROFILE)
+                    + "},{\"code\":200,\"body\":"
+                    + quote(permissions)
+                    + "}]"));
+    assertThat(profile.fields()).containsEntry("verified", "true");
+    assertThat(profile.fields()).containsEntry("id", "1234");
+    assertThat(profile.grantedPermissions()).containsExactly("email");
+  }
+
+  @Test
+  public void failedBatchRequestIsRejected() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(FacebookGraph.REQUIRED_PERMISSION, "email");
+    FacebookGraph graph = new FacebookGraph(cfg.asPluginConfig());
+    String profile = "{\"code\":200,\"body\":" + quote(PROFILE) + "}";
+    String forbidden = "{\"code\":403,\"body\":\"{}\"}";
+    assertThrows(
+        IOException.class,
+        () -> graph.readBatch(new StringReader("[" + profile + "," + forbidden + "]")));
+    assertThrows(
+        IOException.class, () -> graph.readBatch(new StringReader("[" + profile + ",null]")));
+  }
+
+  private static String quote(String json) {
+    return "\"" + json.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  private static PluginConfig.Update newConfig() {
+    return PluginConfig.Update.forTest("gerrit-oauth-provider-facebook-oauth", new Config());
+  }
+}
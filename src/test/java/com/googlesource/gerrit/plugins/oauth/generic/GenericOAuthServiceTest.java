@@ -0,0 +1,128 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.generic;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.ProvisionException;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GenericOAuthServiceTest {
+  private static final String SECTION = "gerrit-oauth-provider-generic-oauth";
+
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+
+  @Test
+  public void userIsReadFromStandardClaims() throws Exception {
+    OAuthUserInfo userInfo =
+        newService(newConfig())
+            .toUserInfo(
+                new StringReader(
+                    "{\"sub\":\"42\",\"preferred_username\":\"jdoe\","
+                        + "\"email\":\"jdoe@example.com\",\"name\":\"John Doe\"}"));
+    assertThat(userInfo.getExternalId()).isEqualTo("generic-oauth:42");
+    assertThat(userInfo.getUserName()).isEqualTo("jdoe");
+    assertThat(userInfo.getEmailAddress()).isEqualTo("jdoe@example.com");
+    assertThat(userInfo.getDisplayName()).isEqualTo("John Doe");
+  }
+
+  @Test
+  public void claimsAreConfigurable() throws Exception {
+    // An empty value can't be set through PluginConfig.Update, which unsets the option instead.
+    Config config = new Config();
+    config.setString("plugin", SECTION, GenericOAuthService.NAME_CLAIM, "");
+    PluginConfig.Update cfg = newConfig(config);
+    cfg.setString(GenericOAuthService.ID_CLAIM, "/user/id");
+    cfg.setString(GenericOAuthService.USERNAME_CLAIM, "/user/logins/0");
+    cfg.setString(GenericOAuthService.EMAIL_CLAIM, "/contact~1email");
+    OAuthUserInfo userInfo =
+        newService(cfg)
+            .toUserInfo(
+                new StringReader(
+                    "{\"user\":{\"id\":7,\"logins\":[\"jdoe\",\"john\"]},"
+                        + "\"contact/email\":\"jdoe@example.com\",\"name\":\"John Doe\"}"));
+    assertThat(userInfo.getExternalId()).isEqualTo("generic-oauth:7");
+    assertThat(userInfo.getUserName()).isEqualTo("jdoe");
+    assertThat(userInfo.getEmailAddress()).isEqualTo("jdoe@example.com");
+    assertThat(userInfo.getDisplayName()).isNull();
+  }
+
+  @Test
+  public void missingIdIsRejected() {
+    GenericOAuthService service = newService(newConfig());
+    assertThrows(
+        IOException.class,
+        () -> service.toUserInfo(new StringReader("{\"email\":\"jdoe@example.com\"}")));
+  }
+
+  @Test
+  public void relativeUrlIsRejected() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(GenericOAuthService.TOKEN_URL, "/token");
+    assertThrows(ProvisionException.class, () -> newService(cfg));
+  }
+
+  @Test
+  public void invalidPointerIsRejected() {
+    PluginConfig.Update cfg = newConfig();
+    cfg.setString(GenericOAuthService.EMAIL_CLAIM, "email");
+    assertThrows(ProvisionException.class, () -> newService(cfg));
+  }
+
+  @Test
+  public void emptyIdClaimIsRejected() {
+    Config config = new Config();
+    config.setString("plugin", SECTION, GenericOAuthService.ID_CLAIM, "");
+    PluginConfig.Update cfg = newConfig(config);
+    assertThrows(ProvisionException.class, () -> newService(cfg));
+  }
+
+  private static PluginConfig.Update newConfig() {
+    return newConfig(new Config());
+  }
+
+  private static PluginConfig.Update newConfig(Config config) {
+    PluginConfig.Update cfg = PluginConfig.Update.forTest(SECTION, config);
+    cfg.setString(InitOAuth.CLIENT_ID, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    cfg.setString(GenericOAuthService.AUTHORIZE_URL, "https://idp.example.com/authorize");
+    cfg.setString(GenericOAuthService.TOKEN_URL, "https://idp.example.com/token");
+    cfg.setString(GenericOAuthService.USERINFO_URL, "https://idp.example.com/userinfo");
+    return cfg;
+  }
+
+  private GenericOAuthService newService(PluginConfig.Update cfg) {
+    when(cfgFactory.create(GenericOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    return new GenericOAuthService(
+        cfgFactory,
+        new OAuth20ServiceFactory(cfgFactory, "https://gerrit/"),
+        new DisabledMetricMaker());
+  }
+}
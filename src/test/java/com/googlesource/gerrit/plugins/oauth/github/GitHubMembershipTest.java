@@ -0,0 +1,130 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.inject.ProvisionException;
+import java.util.List;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+
+public class GitHubMembershipTest {
+
+  @Test
+  public void disabledWithoutRestrictions() {
+    GitHubMembership membership = membership(new String[] {}, new String[] {});
+    assertThat(membership.isEnabled()).isFalse();
+    assertThat(membership.isAllowed(new JsonObject())).isTrue();
+  }
+
+  @Test
+  public void queryContainsEachOrganizationOnce() {
+    GitHubMembership membership =
+        membership(new String[] {"Acme"}, new String[] {"acme/core", "other/devs"});
+    assertThat(membership.getQuery())
+        .isEqualTo(
+            "query { viewer { databaseId login name email }"
+                + " o0: organization(login: \"acme\") { viewerIsAMember"
+                + " teams(first: 100, role: MEMBER) {"
+                + " nodes { slug } pageInfo { hasNextPage endCursor } } }"
+                + " o1: organization(login: \"other\") { viewerIsAMember"
+                + " teams(first: 100, role: MEMBER) {"
+                + " nodes { slug } pageInfo { hasNextPage endCursor } } } }");
+  }
+
+  @Test
+  public void organizationMemberIsAllowed() {
+    GitHubMembership membership = membership(new String[] {"acme"}, new String[] {});
+    assertThat(membership.isAllowed(data("{\"o0\":{\"viewerIsAMember\":true}}"))).isTrue();
+    assertThat(membership.isAllowed(data("{\"o0\":{\"viewerIsAMember\":false}}"))).isFalse();
+    assertThat(membership.isAllowed(data("{\"o0\":null}"))).isFalse();
+  }
+
+  @Test
+  public void organizationMembershipIsNotEnoughForTeamRestriction() {
+    GitHubMembership membership = membership(new String[] {}, new String[] {"acme/Core"});
+    assertThat(
+            membership.isAllowed(
+                data(
+                    "{\"o0\":{\"viewerIsAMember\":true,"
+                        + "\"teams\":{\"nodes\":[{\"slug\":\"docs\"}]}}}")))
+        .isFalse();
+    assertThat(
+            membership.isAllowed(
+                data(
+                    "{\"o0\":{\"viewerIsAMember\":true,"
+                        + "\"teams\":{\"nodes\":[{\"slug\":\"core\"}]}}}")))
+        .isTrue();
+  }
+
+  @Test
+  public void nextTeamPagesAreReturnedForOrganizationsWithTeams() {
+    GitHubMembership membership =
+        membership(new String[] {"acme"}, new String[] {"other/core", "third/docs"});
+    JsonObject data =
+        data(
+            "{\"o0\":{\"viewerIsAMember\":true},"
+                + "\"o1\":{\"teams\":{\"nodes\":[],"
+                + "\"pageInfo\":{\"hasNextPage\":true,\"endCursor\":\"Y3Vy\"}}},"
+                + "\"o2\":{\"teams\":{\"nodes\":[],"
+                + "\"pageInfo\":{\"hasNextPage\":false,\"endCursor\":\"ZW5k\"}}}}");
+    assertThat(membership.getNextTeamPages(data)).containsExactly("other", "Y3Vy");
+  }
+
+  @Test
+  public void nextTeamPageIsChecked() {
+    GitHubMembership membership = membership(new String[] {}, new String[] {"acme/core"});
+    assertThat(membership.getTeamsRequest("acme", "Y3Vy"))
+        .contains("\"variables\":{\"org\":\"acme\",\"cursor\":\"Y3Vy\"}");
+    JsonElement teams =
+        GitHubMembership.getTeams(
+            data(
+                "{\"organization\":{\"teams\":{\"nodes\":[{\"slug\":\"core\"}],"
+                    + "\"pageInfo\":{\"hasNextPage\":false,\"endCursor\":\"ZW5k\"}}}}"));
+    assertThat(membership.isMemberOfAllowedTeam("acme", teams)).isTrue();
+    assertThat(GitHubMembership.getNextCursor(teams)).isNull();
+  }
+
+  @Test
+  public void invalidOrganizationIsRejected() {
+    assertThrows(
+        ProvisionException.class,
+        () -> membership(new String[] {"acme\") { x"}, new String[] {}));
+  }
+
+  @Test
+  public void invalidTeamIsRejected() {
+    assertThrows(
+        ProvisionException.class, () -> membership(new String[] {}, new String[] {"acme"}));
+  }
+
+  private static GitHubMembership membership(String[] orgs, String[] teams) {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-github-oauth", new Config());
+    cfg.setStringList(GitHubMembership.ALLOWED_ORGANIZATION, List.of(orgs));
+    cfg.setStringList(GitHubMembership.ALLOWED_TEAM, List.of(teams));
+    return new GitHubMembership(cfg.asPluginConfig());
+  }
+
+  private static JsonObject data(String json) {
+    return JsonParser.parseString(json).getAsJsonObject();
+  }
+}
@@ -0,0 +1,209 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.CORE_RESOURCE;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.scribejava.core.model.Response;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.config.PluginConfig;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.Priority;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubOAuthLoginProviderTest {
+  private static final String TOKEN = "ghp_token";
+  private static final String ETAG = "W/\"etag\"";
+  private static final String USER_JSON = "{\"id\":42,\"login\":\"octocat\"}";
+
+  @Mock private GitHubOAuthService service;
+  @Mock private GitHubRateLimit rateLimit;
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+
+  private Cache<String, GitHubOAuthLoginProvider.CachedUser> cache;
+  private GitHubOAuthLoginProvider loginProvider;
+  private OAuthUserInfo userInfo;
+
+  @Before
+  public void setUp() throws Exception {
+    cache = CacheBuilder.newBuilder().build();
+    loginProvider = new GitHubOAuthLoginProvider(service, rateLimit, cache);
+    userInfo = new OAuthUserInfo("github-oauth:42", "octocat", null, null, null);
+  }
+
+  @Test
+  public void notModifiedResponseIsServedFromCache() throws Exception {
+    mockUserResponse(null, HttpServletResponse.SC_OK, ETAG);
+    when(service.isAllowed(userInfo, TOKEN)).thenReturn(true);
+    assertThat(loginProvider.login("octocat", TOKEN)).isSameInstanceAs(userInfo);
+    assertThat(cache.size()).isEqualTo(1);
+
+    mockUserResponse(ETAG, HttpServletResponse.SC_NOT_MODIFIED, null);
+    assertThat(loginProvider.login("octocat", TOKEN)).isSameInstanceAs(userInfo);
+  }
+
+  @Test
+  public void lowRateLimitServesCachedIdentity() throws Exception {
+    mockUserResponse(null, HttpServletResponse.SC_OK, ETAG);
+    when(service.isAllowed(userInfo, TOKEN)).thenReturn(true);
+    loginProvider.login(null, TOKEN);
+
+    when(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).thenReturn(false);
+    assertThat(loginProvider.login(null, TOKEN)).isSameInstanceAs(userInfo);
+    verify(service, times(1)).executeUserRequest(TOKEN, null);
+  }
+
+  @Test
+  public void lowRateLimitRejectsUnknownToken() throws Exception {
+    when(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).thenReturn(false);
+    when(service.rateLimitExceeded(TOKEN)).thenReturn(new IOException("rate limit"));
+
+    assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    verify(service, never()).executeUserRequest(TOKEN, null);
+  }
+
+  @Test
+  public void exceededRateLimitServesCachedIdentity() throws Exception {
+    GitHubRateLimit realRateLimit = newRateLimit();
+    loginProvider = new GitHubOAuthLoginProvider(service, realRateLimit, cache);
+    cache.put(
+        Hashing.sha256().hashString(TOKEN, StandardCharsets.UTF_8).toString(),
+        new GitHubOAuthLoginProvider.CachedUser(ETAG, userInfo));
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_FORBIDDEN);
+    when(response.getHeaders())
+        .thenReturn(
+            Map.of(
+                "X-RateLimit-Remaining",
+                "0",
+                "X-RateLimit-Reset",
+                Long.toString(Instant.now().plusSeconds(3600).getEpochSecond())));
+    when(service.executeUserRequest(TOKEN, ETAG))
+        .thenAnswer(
+            invocation -> {
+              realRateLimit.update(TOKEN, response);
+              return response;
+            });
+    when(service.isAllowed(userInfo, TOKEN)).thenReturn(true);
+
+    assertThat(loginProvider.login(null, TOKEN)).isSameInstanceAs(userInfo);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(loginProvider.login(null, TOKEN)).isSameInstanceAs(userInfo);
+    verify(service, times(1)).executeUserRequest(TOKEN, ETAG);
+  }
+
+  @Test
+  public void exceededRateLimitRejectsUnknownToken() throws Exception {
+    GitHubRateLimit realRateLimit = newRateLimit();
+    loginProvider = new GitHubOAuthLoginProvider(service, realRateLimit, cache);
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_FORBIDDEN);
+    when(response.getHeaders())
+        .thenReturn(
+            Map.of(
+                "X-RateLimit-Remaining",
+                "0",
+                "X-RateLimit-Reset",
+                Long.toString(Instant.now().plusSeconds(3600).getEpochSecond())));
+    when(service.executeUserRequest(TOKEN, null))
+        .thenAnswer(
+            invocation -> {
+              realRateLimit.update(TOKEN, response);
+              return response;
+            });
+    when(service.rateLimitExceeded(TOKEN)).thenReturn(new IOException("rate limit"));
+
+    IOException e = assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(e).hasMessageThat().contains("rate limit");
+  }
+
+  @Test
+  public void rejectedTokenIsEvicted() throws Exception {
+    mockUserResponse(null, HttpServletResponse.SC_OK, ETAG);
+    when(service.isAllowed(userInfo, TOKEN)).thenReturn(true);
+    loginProvider.login(null, TOKEN);
+
+    mockUserResponse(ETAG, HttpServletResponse.SC_UNAUTHORIZED, null);
+    when(rateLimit.isExhausted(TOKEN, CORE_RESOURCE)).thenReturn(false);
+    assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void nonMemberIsRejected() throws Exception {
+    mockUserResponse(null, HttpServletResponse.SC_OK, ETAG);
+    when(service.isAllowed(userInfo, TOKEN)).thenReturn(false);
+
+    IOException e = assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(e).hasMessageThat().contains("not a member");
+  }
+
+  @Test
+  public void usernameMismatchIsRejected() throws Exception {
+    mockUserResponse(null, HttpServletResponse.SC_OK, null);
+
+    IOException e =
+        assertThrows(IOException.class, () -> loginProvider.login("someone-else", TOKEN));
+    assertThat(e).hasMessageThat().contains("username does not match");
+  }
+
+  private GitHubRateLimit newRateLimit() {
+    when(cfgFactory.create(GitHubOAuthService.PROVIDER_NAME))
+        .thenReturn(
+            PluginConfig.Update.forTest("gerrit-oauth-provider-github-oauth", new Config())
+                .asPluginConfig());
+    return new GitHubRateLimit(
+        cfgFactory,
+        new DisabledMetricMaker(),
+        CacheBuilder.newBuilder().build(),
+        CacheBuilder.newBuilder().build());
+  }
+
+  private void mockUserResponse(String etag, int code, String responseEtag) throws Exception {
+    when(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).thenReturn(true);
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(code);
+    if (code == HttpServletResponse.SC_OK) {
+      when(response.getBody()).thenReturn(USER_JSON);
+      when(response.getHeaders())
+          .thenReturn(responseEtag != null ? Map.of("ETag", responseEtag) : Map.of());
+      when(service.toUserInfo(USER_JSON)).thenReturn(userInfo);
+      when(service.withPrimaryEmail(userInfo, TOKEN, Priority.BACKGROUND)).thenReturn(userInfo);
+    }
+    when(service.executeUserRequest(TOKEN, etag)).thenReturn(response);
+  }
+}
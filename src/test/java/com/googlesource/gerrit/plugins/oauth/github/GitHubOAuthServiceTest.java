@@ -0,0 +1,161 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.config.PluginConfig;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.Priority;
+import java.time.Instant;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubOAuthServiceTest {
+  private static final String TOKEN = "gho_token";
+  private static final String EMAILS_JSON =
+      "[{\"email\":\"octocat@users.noreply.github.com\",\"primary\":false,\"verified\":true},"
+          + "{\"email\":\"octocat@example.com\",\"primary\":true,\"verified\":true}]";
+
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+  @Mock private OAuth20ServiceFactory oauth20ServiceFactory;
+  @Mock private OAuth20Service oauth20Service;
+
+  private GitHubRateLimit rateLimit;
+  private Cache<String, String> emailCache;
+  private GitHubOAuthService service;
+
+  @Before
+  public void setUp() {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-github-oauth", new Config());
+    when(cfgFactory.create(GitHubOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    when(oauth20ServiceFactory.create(eq(GitHubOAuthService.PROVIDER_NAME), any(), anyString()))
+        .thenReturn(oauth20Service);
+    rateLimit =
+        new GitHubRateLimit(
+            cfgFactory,
+            new DisabledMetricMaker(),
+            CacheBuilder.newBuilder().build(),
+            CacheBuilder.newBuilder().build());
+    emailCache = CacheBuilder.newBuilder().build();
+    service =
+        new GitHubOAuthService(
+            cfgFactory,
+            oauth20ServiceFactory,
+            rateLimit,
+            CacheBuilder.newBuilder().build(),
+            emailCache);
+  }
+
+  @Test
+  public void publicEmailIsNotLookedUp() throws Exception {
+    OAuthUserInfo userInfo =
+        new OAuthUserInfo("github-oauth:42", "octocat", "octocat@example.com", null, null);
+    assertThat(service.withPrimaryEmail(userInfo, TOKEN, Priority.INTERACTIVE))
+        .isSameInstanceAs(userInfo);
+    verify(oauth20Service, never()).execute(any(OAuthRequest.class));
+  }
+
+  @Test
+  public void privateEmailIsLookedUpOnce() throws Exception {
+    mockEmailsResponse(HttpServletResponse.SC_OK, EMAILS_JSON);
+
+    OAuthUserInfo userInfo = service.withPrimaryEmail(privateUser(), TOKEN, Priority.INTERACTIVE);
+    assertThat(userInfo.getEmailAddress()).isEqualTo("octocat@example.com");
+    assertThat(userInfo.getExternalId()).isEqualTo("github-oauth:42");
+    assertThat(emailCache.getIfPresent("42")).isEqualTo("octocat@example.com");
+
+    userInfo = service.withPrimaryEmail(privateUser(), TOKEN, Priority.BACKGROUND);
+    assertThat(userInfo.getEmailAddress()).isEqualTo("octocat@example.com");
+    verify(oauth20Service, times(1)).execute(any(OAuthRequest.class));
+  }
+
+  @Test
+  public void unverifiedPrimaryEmailIsIgnored() throws Exception {
+    mockEmailsResponse(
+        HttpServletResponse.SC_OK,
+        "[{\"email\":\"octocat@example.com\",\"primary\":true,\"verified\":false}]");
+    assertThat(
+            service
+                .withPrimaryEmail(privateUser(), TOKEN, Priority.INTERACTIVE)
+                .getEmailAddress())
+        .isNull();
+    assertThat(emailCache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void failedLookupDoesNotFailLogin() throws Exception {
+    mockEmailsResponse(HttpServletResponse.SC_FORBIDDEN, null);
+    OAuthUserInfo userInfo = privateUser();
+    assertThat(service.withPrimaryEmail(userInfo, TOKEN, Priority.INTERACTIVE))
+        .isSameInstanceAs(userInfo);
+  }
+
+  @Test
+  public void lowRateLimitSkipsBackgroundLookup() throws Exception {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(response.getHeaders())
+        .thenReturn(
+            Map.of(
+                "X-RateLimit-Remaining",
+                "1",
+                "X-RateLimit-Reset",
+                Long.toString(Instant.now().plusSeconds(3600).getEpochSecond())));
+    rateLimit.update(TOKEN, response);
+
+    OAuthUserInfo userInfo = privateUser();
+    assertThat(service.withPrimaryEmail(userInfo, TOKEN, Priority.BACKGROUND))
+        .isSameInstanceAs(userInfo);
+    verify(oauth20Service, never()).execute(any(OAuthRequest.class));
+  }
+
+  private static OAuthUserInfo privateUser() {
+    return new OAuthUserInfo("github-oauth:42", "octocat", null, "The Octocat", null);
+  }
+
+  private void mockEmailsResponse(int code, String body) throws Exception {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(code);
+    if (code == HttpServletResponse.SC_OK) {
+      when(response.getBody()).thenReturn(body);
+    }
+    when(oauth20Service.execute(any(OAuthRequest.class))).thenReturn(response);
+  }
+}
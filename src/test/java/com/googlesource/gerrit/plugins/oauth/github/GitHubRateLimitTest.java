@@ -0,0 +1,183 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.github;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.CORE_RESOURCE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.github.scribejava.core.model.Response;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.config.PluginConfig;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import com.googlesource.gerrit.plugins.oauth.github.GitHubRateLimit.Priority;
+import java.time.Instant;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubRateLimitTest {
+  private static final int RESERVE = 10;
+  private static final String TOKEN = "ghp_token";
+  private static final String OTHER_TOKEN = "ghp_other";
+  private static final OAuthUserInfo USER =
+      new OAuthUserInfo("github-oauth:42", "octocat", null, null, null);
+
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+
+  private GitHubRateLimit rateLimit;
+  private long futureReset;
+
+  @Before
+  public void setUp() {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-github-oauth", new Config());
+    cfg.setInt(GitHubRateLimit.RATE_LIMIT_RESERVE, RESERVE);
+    when(cfgFactory.create(GitHubOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    rateLimit =
+        new GitHubRateLimit(
+            cfgFactory,
+            new DisabledMetricMaker(),
+            CacheBuilder.newBuilder().build(),
+            CacheBuilder.newBuilder().build());
+    futureReset = Instant.now().plusSeconds(3600).getEpochSecond();
+  }
+
+  @Test
+  public void unknownBudgetAdmitsAllRequests() {
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isTrue();
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.INTERACTIVE)).isTrue();
+    assertThat(rateLimit.isExhausted(TOKEN, CORE_RESOURCE)).isFalse();
+  }
+
+  @Test
+  public void lowBudgetDefersBackgroundRequests() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_OK, "core", RESERVE, futureReset));
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isFalse();
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.INTERACTIVE)).isTrue();
+  }
+
+  @Test
+  public void exhaustedBudgetDefersAllRequests() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_OK, "core", 0, futureReset));
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isFalse();
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.INTERACTIVE)).isFalse();
+    assertThat(rateLimit.isExhausted(TOKEN, CORE_RESOURCE)).isTrue();
+    assertThat(rateLimit.getReset(TOKEN, CORE_RESOURCE))
+        .isEqualTo(Instant.ofEpochSecond(futureReset));
+  }
+
+  @Test
+  public void notModifiedResponseUpdatesBudget() {
+    rateLimit.update(
+        TOKEN, response(HttpServletResponse.SC_NOT_MODIFIED, "core", RESERVE, futureReset));
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isFalse();
+  }
+
+  @Test
+  public void resetWindowAdmitsAllRequests() {
+    rateLimit.update(
+        TOKEN,
+        response(
+            HttpServletResponse.SC_OK, "core", 0, Instant.now().minusSeconds(1).getEpochSecond()));
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isTrue();
+    assertThat(rateLimit.isExhausted(TOKEN, CORE_RESOURCE)).isFalse();
+  }
+
+  @Test
+  public void otherResourcesAreTrackedSeparately() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_OK, "graphql", 0, futureReset));
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isTrue();
+    assertThat(rateLimit.admit(TOKEN, "graphql", Priority.BACKGROUND)).isFalse();
+  }
+
+  @Test
+  public void forbiddenResponseUpdatesBudget() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_FORBIDDEN, "core", 0, futureReset));
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.INTERACTIVE)).isFalse();
+    assertThat(rateLimit.isExhausted(TOKEN, CORE_RESOURCE)).isTrue();
+  }
+
+  @Test
+  public void budgetIsTrackedPerTokenOfUnknownUser() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_OK, "core", 0, futureReset));
+    assertThat(rateLimit.admit(OTHER_TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isTrue();
+  }
+
+  @Test
+  public void budgetIsSharedByTokensOfSameUser() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_OK, "core", RESERVE, futureReset));
+    rateLimit.bind(TOKEN, USER);
+    rateLimit.bind(OTHER_TOKEN, USER);
+    assertThat(rateLimit.admit(OTHER_TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isFalse();
+    assertThat(rateLimit.admit(OTHER_TOKEN, CORE_RESOURCE, Priority.INTERACTIVE)).isTrue();
+
+    rateLimit.update(OTHER_TOKEN, response(HttpServletResponse.SC_OK, "core", 0, futureReset));
+    assertThat(rateLimit.isExhausted(TOKEN, CORE_RESOURCE)).isTrue();
+  }
+
+  @Test
+  public void rejectedTokenDoesNotUpdateBudget() {
+    // GitHub reports the unauthenticated budget for invalid tokens.
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_UNAUTHORIZED);
+    rateLimit.update(TOKEN, response);
+    assertThat(rateLimit.admit(TOKEN, CORE_RESOURCE, Priority.BACKGROUND)).isTrue();
+  }
+
+  @Test
+  public void exceededRateLimitIsWarnedOncePerWindow() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_FORBIDDEN, "core", 0, futureReset));
+    assertThat(rateLimit.shouldWarn(TOKEN, CORE_RESOURCE)).isTrue();
+    assertThat(rateLimit.shouldWarn(TOKEN, CORE_RESOURCE)).isFalse();
+
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_FORBIDDEN, "core", 0, futureReset));
+    assertThat(rateLimit.shouldWarn(TOKEN, CORE_RESOURCE)).isFalse();
+
+    rateLimit.update(
+        TOKEN, response(HttpServletResponse.SC_FORBIDDEN, "core", 0, futureReset + 3600));
+    assertThat(rateLimit.shouldWarn(TOKEN, CORE_RESOURCE)).isTrue();
+  }
+
+  @Test
+  public void exceededRateLimitIsWarnedPerBudget() {
+    rateLimit.update(TOKEN, response(HttpServletResponse.SC_FORBIDDEN, "core", 0, futureReset));
+    rateLimit.update(
+        OTHER_TOKEN, response(HttpServletResponse.SC_FORBIDDEN, "core", 0, futureReset));
+    assertThat(rateLimit.shouldWarn(TOKEN, CORE_RESOURCE)).isTrue();
+    assertThat(rateLimit.shouldWarn(OTHER_TOKEN, CORE_RESOURCE)).isTrue();
+  }
+
+  private static Response response(int code, String resource, long remaining, long reset) {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(code);
+    when(response.getHeaders())
+        .thenReturn(
+            Map.of(
+                "x-ratelimit-resource", resource,
+                "x-ratelimit-remaining", Long.toString(remaining),
+                "x-ratelimit-reset", Long.toString(reset)));
+    return response;
+  }
+}
@@ -19,7 +19,9 @@ import static org.mockito.Mockito.when;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
 import com.google.gerrit.extensions.auth.oauth.OAuthServiceProvider;
+import com.google.gerrit.metrics.DisabledMetricMaker;
 import com.google.gerrit.server.config.PluginConfig;
 import com.googlesource.gerrit.plugins.oauth.InitOAuth;
 import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
@@ -53,7 +55,16 @@ public class GithubApiUrlTest {
 
     OAuth20ServiceFactory serviceFactory =
         new OAuth20ServiceFactory(oauthPluginConfigFactoryMock, CANONICAL_URL);
-    return new GitHubOAuthService(oauthPluginConfigFactoryMock, serviceFactory);
+    return new GitHubOAuthService(
+        oauthPluginConfigFactoryMock,
+        serviceFactory,
+        new GitHubRateLimit(
+            oauthPluginConfigFactoryMock,
+            new DisabledMetricMaker(),
+            CacheBuilder.newBuilder().build(),
+            CacheBuilder.newBuilder().build()),
+        CacheBuilder.newBuilder().build(),
+        CacheBuilder.newBuilder().build());
   }
 
   private String getExpectedUrl(String rootUrl) throws Exception {
@@ -0,0 +1,95 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.gitlab;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.inject.ProvisionException;
+import java.io.StringReader;
+import java.util.List;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+
+public class GitLabMembershipTest {
+
+  @Test
+  public void disabledWithoutAllowedGroups() {
+    assertThat(membership().isEnabled()).isFalse();
+  }
+
+  @Test
+  public void groupsAreFilteredByMinAccessLevel() {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-gitlab-oauth", new Config());
+    cfg.setStringList(GitLabMembership.ALLOWED_GROUP, List.of("acme"));
+    cfg.setInt(GitLabMembership.MIN_ACCESS_LEVEL, 30);
+    assertThat(new GitLabMembership(cfg.asPluginConfig()).getGroupsPath())
+        .startsWith("groups?min_access_level=30&");
+  }
+
+  @Test
+  public void allowedGroupIsFoundIgnoringCase() throws Exception {
+    GitLabMembership membership = membership("Acme/Developers");
+    assertThat(membership.isEnabled()).isTrue();
+    assertThat(
+            membership.containsAllowedGroup(
+                new StringReader(
+                    "[{\"id\":1,\"full_path\":\"acme\",\"parent\":{\"x\":[1]}},"
+                        + "{\"id\":2,\"full_path\":\"acme/developers\"}]")))
+        .isTrue();
+    assertThat(
+            membership.containsAllowedGroup(
+                new StringReader("[{\"id\":1,\"full_path\":\"acme\"},{\"id\":3}]")))
+        .isFalse();
+    assertThat(membership.containsAllowedGroup(new StringReader("[]"))).isFalse();
+  }
+
+  @Test
+  public void readingStopsAtFirstMatch() throws Exception {
+    GitLabMembership membership = membership("acme");
+    // The rest of the page is not read, so it doesn't need to be valid.
+    assertThat(
+            membership.containsAllowedGroup(
+                new StringReader("[{\"full_path\":\"acme\"},{\"full_path\":")))
+        .isTrue();
+  }
+
+  @Test
+  public void nextPageIsTakenFromLinkHeader() {
+    assertThat(
+            GitLabMembership.getNextPageUrl(
+                "<https://gitlab.example.com/api/v4/groups?cursor=abc>; rel=\"next\""))
+        .isEqualTo("https://gitlab.example.com/api/v4/groups?cursor=abc");
+    assertThat(
+            GitLabMembership.getNextPageUrl(
+                "<https://gitlab.example.com/api/v4/groups?page=1>; rel=\"first\""))
+        .isNull();
+    assertThat(GitLabMembership.getNextPageUrl(null)).isNull();
+  }
+
+  @Test
+  public void invalidGroupIsRejected() {
+    assertThrows(ProvisionException.class, () -> membership("acme/"));
+  }
+
+  private static GitLabMembership membership(String... groups) {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-gitlab-oauth", new Config());
+    cfg.setStringList(GitLabMembership.ALLOWED_GROUP, List.of(groups));
+    return new GitLabMembership(cfg.asPluginConfig());
+  }
+}
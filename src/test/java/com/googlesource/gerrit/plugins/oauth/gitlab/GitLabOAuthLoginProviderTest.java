@@ -0,0 +1,162 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.gitlab;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.scribejava.core.model.Response;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitLabOAuthLoginProviderTest {
+  private static final String TOKEN = "glpat-token";
+  private static final String USER_JSON = "{\"id\":42,\"username\":\"jdoe\"}";
+  private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+  @Mock private GitLabOAuthService service;
+
+  private Cache<String, GitLabOAuthLoginProvider.CachedToken> cache;
+  private GitLabOAuthLoginProvider loginProvider;
+  private OAuthUserInfo userInfo;
+
+  @Before
+  public void setUp() {
+    cache = CacheBuilder.newBuilder().build();
+    loginProvider =
+        new GitLabOAuthLoginProvider(service, cache, Clock.fixed(NOW, ZoneOffset.UTC));
+    userInfo = new OAuthUserInfo("gitlab-oauth:42", "jdoe", null, null, null);
+  }
+
+  @Test
+  public void validatedTokenIsServedFromCache() throws Exception {
+    mockTokenResponse("{\"active\":true,\"expires_at\":\"2026-11-01\"}");
+    mockUserResponse();
+    mockMembership(true);
+
+    assertThat(loginProvider.login("jdoe", TOKEN)).isSameInstanceAs(userInfo);
+    assertThat(loginProvider.login("jdoe", TOKEN)).isSameInstanceAs(userInfo);
+    verify(service, times(1)).executeApiRequest(GitLabOAuthLoginProvider.TOKEN_PATH, TOKEN);
+  }
+
+  @Test
+  public void expiredCachedTokenIsRevalidated() throws Exception {
+    OAuthUserInfo stale = new OAuthUserInfo("gitlab-oauth:42", "jdoe", null, null, null);
+    cache.put(
+        Hashing.sha256().hashString(TOKEN, StandardCharsets.UTF_8).toString(),
+        new GitLabOAuthLoginProvider.CachedToken(stale, NOW.minusSeconds(1)));
+    mockTokenResponse("{\"active\":true,\"expires_at\":\"2027-10-19\"}");
+    mockUserResponse();
+    mockMembership(true);
+
+    assertThat(loginProvider.login(null, TOKEN)).isSameInstanceAs(userInfo);
+  }
+
+  @Test
+  public void expiredTokenIsRejected() throws Exception {
+    mockTokenResponse("{\"active\":true,\"expires_at\":\"2026-10-19\"}");
+
+    IOException e = assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(e).hasMessageThat().contains("expired");
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void inactiveTokenIsRejected() throws Exception {
+    mockTokenResponse("{\"active\":false,\"revoked\":true}");
+
+    assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void unauthorizedTokenIsRejected() throws Exception {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_UNAUTHORIZED);
+    when(service.executeApiRequest(GitLabOAuthLoginProvider.TOKEN_PATH, TOKEN))
+        .thenReturn(response);
+
+    assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void usernameMismatchIsRejected() throws Exception {
+    mockTokenResponse("{\"active\":true,\"expires_at\":null}");
+    mockUserResponse();
+    mockMembership(true);
+
+    IOException e =
+        assertThrows(IOException.class, () -> loginProvider.login("someone-else", TOKEN));
+    assertThat(e).hasMessageThat().contains("username does not match");
+  }
+
+  @Test
+  public void nonMemberIsRejected() throws Exception {
+    mockTokenResponse("{\"active\":true}");
+    mockUserResponse();
+    mockMembership(false);
+
+    IOException e = assertThrows(IOException.class, () -> loginProvider.login(null, TOKEN));
+    assertThat(e).hasMessageThat().contains("not a member");
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void tokenExpiresAtStartOfExpiryDate() throws Exception {
+    assertThat(GitLabOAuthLoginProvider.parseExpiry("2026-11-01"))
+        .isEqualTo(Instant.parse("2026-11-01T00:00:00Z"));
+    assertThat(GitLabOAuthLoginProvider.parseExpiry(null)).isNull();
+  }
+
+  private void mockTokenResponse(String body) throws Exception {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(response.getBody()).thenReturn(body);
+    when(service.executeApiRequest(GitLabOAuthLoginProvider.TOKEN_PATH, TOKEN))
+        .thenReturn(response);
+  }
+
+  private void mockUserResponse() throws Exception {
+    Response response = mock(Response.class);
+    when(response.getCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(response.getBody()).thenReturn(USER_JSON);
+    when(service.executeApiRequest(GitLabOAuthLoginProvider.USER_PATH, TOKEN))
+        .thenReturn(response);
+    when(service.toUserInfo(USER_JSON)).thenReturn(userInfo);
+  }
+
+  private void mockMembership(boolean allowed) throws Exception {
+    when(service.isAllowed(userInfo, TOKEN)).thenReturn(allowed);
+  }
+}
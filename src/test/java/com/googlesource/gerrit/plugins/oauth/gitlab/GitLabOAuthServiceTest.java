@@ -0,0 +1,78 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.gitlab;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gerrit.server.config.PluginConfig;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import java.io.IOException;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitLabOAuthServiceTest {
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+
+  private GitLabOAuthService service;
+
+  @Before
+  public void setUp() {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-gitlab-oauth", new Config());
+    cfg.setString(InitOAuth.ROOT_URL, "https://gitlab.example.com");
+    cfg.setString(InitOAuth.CLIENT_ID, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    when(cfgFactory.create(GitLabOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    service =
+        new GitLabOAuthService(
+            cfgFactory,
+            new OAuth20ServiceFactory(cfgFactory, "https://gerrit/"),
+            CacheBuilder.newBuilder().build());
+  }
+
+  @Test
+  public void userInfoIsExtracted() throws Exception {
+    OAuthUserInfo userInfo =
+        service.toUserInfo(
+            "{\"id\":42,\"username\":\"jdoe\",\"email\":\"jdoe@example.com\","
+                + "\"name\":\"John Doe\"}");
+    assertThat(userInfo.getExternalId()).isEqualTo("gitlab-oauth:42");
+    assertThat(userInfo.getUserName()).isEqualTo("jdoe");
+    assertThat(userInfo.getEmailAddress()).isEqualTo("jdoe@example.com");
+    assertThat(userInfo.getDisplayName()).isEqualTo("John Doe");
+  }
+
+  @Test
+  public void userWithoutIdIsRejected() {
+    assertThrows(IOException.class, () -> service.toUserInfo("{\"username\":\"jdoe\"}"));
+    assertThrows(IOException.class, () -> service.toUserInfo("{\"id\":null}"));
+  }
+
+  @Test
+  public void nonObjectResponseIsRejected() {
+    assertThrows(IOException.class, () -> service.toUserInfo("[]"));
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.google;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class GoogleHostedDomainsTest {
+
+  @Test
+  public void disabledWithoutDomains() {
+    GoogleHostedDomains domains = new GoogleHostedDomains(new String[] {});
+    assertThat(domains.isEnabled()).isFalse();
+    assertThat(domains.getAuthorizationHint()).isNull();
+  }
+
+  @Test
+  public void exactDomainMatchesIgnoringCase() {
+    GoogleHostedDomains domains = new GoogleHostedDomains(new String[] {"MyCollege.edu"});
+    assertThat(domains.matches("mycollege.edu")).isTrue();
+    assertThat(domains.matches("MYCOLLEGE.EDU")).isTrue();
+    assertThat(domains.matches("cs.mycollege.edu")).isFalse();
+    assertThat(domains.matches("othercollege.edu")).isFalse();
+    assertThat(domains.matches(null)).isFalse();
+    assertThat(domains.getAuthorizationHint()).isEqualTo("mycollege.edu");
+  }
+
+  @Test
+  public void wildcardMatchesSubDomains() {
+    GoogleHostedDomains domains = new GoogleHostedDomains(new String[] {"*.mycollege.edu"});
+    assertThat(domains.matches("cs.mycollege.edu")).isTrue();
+    assertThat(domains.matches("ai.cs.MyCollege.edu")).isTrue();
+    assertThat(domains.matches("mycollege.edu")).isFalse();
+    assertThat(domains.matches("notmycollege.edu")).isFalse();
+    assertThat(domains.getAuthorizationHint()).isEqualTo("*");
+  }
+
+  @Test
+  public void anyHostedDomainMatches() {
+    GoogleHostedDomains domains = new GoogleHostedDomains(new String[] {"*"});
+    assertThat(domains.matches("mycollege.edu")).isTrue();
+    assertThat(domains.matches(null)).isFalse();
+    assertThat(domains.getAuthorizationHint()).isEqualTo("*");
+  }
+
+  @Test
+  public void multipleDomainsUseGenericHint() {
+    GoogleHostedDomains domains =
+        new GoogleHostedDomains(new String[] {"mycollege.edu", "myschool.net"});
+    assertThat(domains.matches("myschool.net")).isTrue();
+    assertThat(domains.getAuthorizationHint()).isEqualTo("*");
+  }
+}
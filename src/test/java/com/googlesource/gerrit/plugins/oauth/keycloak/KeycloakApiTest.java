@@ -32,4 +32,11 @@ public class KeycloakApiTest {
   public void testAccessTokenExtractor() {
     assertThat(api.getAccessTokenExtractor()).isInstanceOf(OAuth2AccessTokenJsonExtractor.class);
   }
+
+  @Test
+  public void trailingSlashOfRootUrlIsIgnored() {
+    KeycloakApi api = new KeycloakApi("https://signon.example.com/", "gerrit");
+    assertThat(api.getAccessTokenEndpoint())
+        .isEqualTo("https://signon.example.com/realms/gerrit/protocol/openid-connect/token");
+  }
 }
@@ -0,0 +1,92 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.keycloak;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import com.google.gson.JsonObject;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeycloakOAuthLoginProviderTest {
+  @Mock private KeycloakOAuthService service;
+
+  private KeycloakOAuthLoginProvider loginProvider;
+  private OAuthUserInfo userInfo;
+
+  @Before
+  public void setUp() {
+    loginProvider = new KeycloakOAuthLoginProvider(service);
+    userInfo = new OAuthUserInfo("keycloak-oauth:jdoe", "jdoe", "jdoe@example.com", "J", null);
+  }
+
+  @Test
+  public void verifiedAccessTokenIsAccepted() throws Exception {
+    when(service.toUserInfo(any(JsonObject.class))).thenReturn(userInfo);
+    assertThat(loginProvider.login("jdoe", token("Bearer"))).isSameInstanceAs(userInfo);
+    verify(service).verify(any(SignedJwt.class));
+  }
+
+  @Test
+  public void tokenWithInvalidSignatureIsRejected() throws Exception {
+    doThrow(new IOException("Invalid JWT signature")).when(service).verify(any(SignedJwt.class));
+    assertThrows(IOException.class, () -> loginProvider.login(null, token("Bearer")));
+  }
+
+  @Test
+  public void refreshTokenIsRejected() throws Exception {
+    assertThrows(IOException.class, () -> loginProvider.login(null, token("Refresh")));
+    verify(service, never()).verify(any(SignedJwt.class));
+  }
+
+  @Test
+  public void opaqueSecretIsRejected() throws Exception {
+    assertThrows(IOException.class, () -> loginProvider.login(null, "secret"));
+    verify(service, never()).verify(any(SignedJwt.class));
+  }
+
+  @Test
+  public void usernameMismatchIsRejected() throws Exception {
+    when(service.toUserInfo(any(JsonObject.class))).thenReturn(userInfo);
+    IOException e =
+        assertThrows(IOException.class, () -> loginProvider.login("someone-else", token("Bearer")));
+    assertThat(e).hasMessageThat().contains("username does not match");
+  }
+
+  private static String token(String type) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8))
+        + "."
+        + encoder.encodeToString(
+            ("{\"typ\":\"" + type + "\",\"preferred_username\":\"jdoe\"}")
+                .getBytes(StandardCharsets.UTF_8))
+        + ".c2ln";
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.keycloak;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.googlesource.gerrit.plugins.oauth.InitOAuth;
+import com.googlesource.gerrit.plugins.oauth.OAuth20ServiceFactory;
+import com.googlesource.gerrit.plugins.oauth.OAuthPluginConfigFactory;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeycloakOAuthServiceTest {
+  @Mock private OAuthPluginConfigFactory cfgFactory;
+  @Mock private Cache<String, ImmutableSet<String>> roleCache;
+
+  @Test
+  public void issuerIsDerivedFromRootUrl() {
+    PluginConfig.Update cfg = newConfig("https://signon.example.com/");
+    assertThat(newService(cfg).getIssuer()).isEqualTo("https://signon.example.com/realms/gerrit");
+  }
+
+  @Test
+  public void issuerIsConfigurable() {
+    PluginConfig.Update cfg = newConfig("http://keycloak:8080");
+    cfg.setString(KeycloakOAuthService.ISSUER, "https://login.example.com/realms/gerrit");
+    assertThat(newService(cfg).getIssuer()).isEqualTo("https://login.example.com/realms/gerrit");
+  }
+
+  @Test
+  public void unchangedRolesAreNotRewritten() throws Exception {
+    PluginConfig.Update cfg = newConfig("https://signon.example.com");
+    cfg.setBoolean(KeycloakModule.ENABLE_GROUPS, true);
+    KeycloakOAuthService service = newService(cfg, roleCache);
+    when(roleCache.getIfPresent("jdoe")).thenReturn(ImmutableSet.of("admin"));
+
+    service.toUserInfo(claims("admin"));
+    verify(roleCache, never()).put(anyString(), any());
+  }
+
+  @Test
+  public void changedRolesAreRecorded() throws Exception {
+    PluginConfig.Update cfg = newConfig("https://signon.example.com");
+    cfg.setBoolean(KeycloakModule.ENABLE_GROUPS, true);
+    KeycloakOAuthService service = newService(cfg, roleCache);
+    when(roleCache.getIfPresent("jdoe")).thenReturn(ImmutableSet.of("admin"));
+
+    service.toUserInfo(claims("developer"));
+    verify(roleCache).put("jdoe", ImmutableSet.of("developer"));
+  }
+
+  private static JsonObject claims(String role) {
+    JsonObject claims = new JsonObject();
+    claims.addProperty("preferred_username", "jdoe");
+    claims.addProperty("email", "jdoe@example.com");
+    claims.addProperty("name", "John Doe");
+    JsonArray roles = new JsonArray();
+    roles.add(role);
+    JsonObject realmAccess = new JsonObject();
+    realmAccess.add("roles", roles);
+    claims.add("realm_access", realmAccess);
+    return claims;
+  }
+
+  private static PluginConfig.Update newConfig(String rootUrl) {
+    PluginConfig.Update cfg =
+        PluginConfig.Update.forTest("gerrit-oauth-provider-keycloak-oauth", new Config());
+    cfg.setString(InitOAuth.ROOT_URL, rootUrl);
+    cfg.setString(InitOAuth.REALM, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_ID, "gerrit");
+    cfg.setString(InitOAuth.CLIENT_SECRET, "secret");
+    return cfg;
+  }
+
+  private KeycloakOAuthService newService(PluginConfig.Update cfg) {
+    return newService(cfg, CacheBuilder.newBuilder().build());
+  }
+
+  private KeycloakOAuthService newService(
+      PluginConfig.Update cfg, Cache<String, ImmutableSet<String>> cache) {
+    when(cfgFactory.create(KeycloakOAuthService.PROVIDER_NAME)).thenReturn(cfg.asPluginConfig());
+    return new KeycloakOAuthService(
+        cfgFactory, new OAuth20ServiceFactory(cfgFactory, "https://gerrit/"), cache);
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.keycloak;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+public class KeycloakRolesTest {
+
+  @Test
+  public void realmAndClientRolesAreExtracted() {
+    JsonObject claims =
+        JsonParser.parseString(
+                "{\"realm_access\":{\"roles\":[\"admin\",\"developer\"]},"
+                    + "\"resource_access\":{\"gerrit\":{\"roles\":[\"reviewer\"]},"
+                    + "\"account\":{\"roles\":[\"manage-account\"]}}}")
+            .getAsJsonObject();
+    assertThat(KeycloakOAuthService.extractRoles(claims))
+        .containsExactly("admin", "developer", "gerrit/reviewer", "account/manage-account");
+  }
+
+  @Test
+  public void missingRoleClaimsYieldNoRoles() {
+    JsonObject claims =
+        JsonParser.parseString("{\"realm_access\":{},\"resource_access\":null}").getAsJsonObject();
+    assertThat(KeycloakOAuthService.extractRoles(claims)).isEmpty();
+  }
+}
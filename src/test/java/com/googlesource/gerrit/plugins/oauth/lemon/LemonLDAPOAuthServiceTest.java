@@ -0,0 +1,135 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gson.JsonObject;
+import com.googlesource.gerrit.plugins.oauth.SignedJwt;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.Test;
+
+public class LemonLDAPOAuthServiceTest {
+  private static final String ISSUER = "https://auth.example.com";
+  private static final String CLIENT_ID = "gerrit";
+  private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000);
+
+  @Test
+  public void logoutTokenReturnsSid() throws Exception {
+    assertThat(check(logoutClaims()))
+        .isEqualTo(new LemonLDAPOAuthService.LogoutToken("e3b0c44298fc", "bWJq"));
+  }
+
+  @Test
+  public void logoutTokenWithoutExpIsAccepted() throws Exception {
+    JsonObject claims = logoutClaims();
+    claims.remove("exp");
+    assertThat(check(claims).sid()).isEqualTo("e3b0c44298fc");
+  }
+
+  @Test
+  public void logoutTokenWithoutExpIssuedLongAgoIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.remove("exp");
+    claims.addProperty("iat", NOW.minus(Duration.ofHours(2)).getEpochSecond());
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void longLivedLogoutTokenIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.addProperty("exp", NOW.plus(Duration.ofDays(1)).getEpochSecond());
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void logoutTokenWithoutJtiIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.remove("jti");
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void logoutTokenOfOtherIssuerIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.addProperty("iss", "https://evil.example.com");
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void logoutTokenForOtherClientIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.addProperty("aud", "other");
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void expiredLogoutTokenIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.addProperty("exp", NOW.minusSeconds(600).getEpochSecond());
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void logoutTokenWithoutLogoutEventIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.remove("events");
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void idTokenIsNotALogoutToken() {
+    JsonObject claims = logoutClaims();
+    claims.addProperty("nonce", "n-0S6_WzA2Mj");
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  @Test
+  public void logoutTokenWithoutSidIsRejected() {
+    JsonObject claims = logoutClaims();
+    claims.remove("sid");
+    assertThrows(IOException.class, () -> check(claims));
+  }
+
+  private static JsonObject logoutClaims() {
+    JsonObject events = new JsonObject();
+    events.add("http://schemas.openid.net/event/backchannel-logout", new JsonObject());
+    JsonObject claims = new JsonObject();
+    claims.addProperty("iss", ISSUER);
+    claims.addProperty("aud", CLIENT_ID);
+    claims.addProperty("iat", NOW.getEpochSecond());
+    claims.addProperty("exp", NOW.plusSeconds(120).getEpochSecond());
+    claims.addProperty("jti", "bWJq");
+    claims.addProperty("sub", "jdoe");
+    claims.addProperty("sid", "e3b0c44298fc");
+    claims.add("events", events);
+    return claims;
+  }
+
+  private static LemonLDAPOAuthService.LogoutToken check(JsonObject claims) throws IOException {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String jwt =
+        encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(UTF_8))
+            + "."
+            + encoder.encodeToString(claims.toString().getBytes(UTF_8))
+            + ".c2ln";
+    return LemonLDAPOAuthService.checkLogoutToken(SignedJwt.parse(jwt), ISSUER, CLIENT_ID, NOW);
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.lemon;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.extensions.auth.oauth.OAuthUserInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LemonLDAPSessionsTest {
+  private LemonLDAPSessions sessions;
+
+  @Before
+  public void setUp() {
+    sessions =
+        new LemonLDAPSessions(
+            CacheBuilder.newBuilder().build(),
+            CacheBuilder.newBuilder().build(),
+            CacheBuilder.newBuilder().build(),
+            CacheBuilder.newBuilder().build());
+  }
+
+  @Test
+  public void logoutEvictsUserInfo() {
+    OAuthUserInfo userInfo = new OAuthUserInfo("llng-oauth:jdoe", "jdoe", null, null, null);
+    sessions.putUserInfo("sid1", userInfo);
+    sessions.putUserInfo("sid2", userInfo);
+
+    sessions.logout("sid1");
+
+    assertThat(sessions.getUserInfo("sid1")).isNull();
+    assertThat(sessions.getUserInfo("sid2")).isSameInstanceAs(userInfo);
+  }
+
+  @Test
+  public void webSessionsOfLoggedOutSessionAreTakenOnce() {
+    sessions.addWebSession("web1", "sid1");
+    sessions.addWebSession("web2", "sid1");
+    sessions.addWebSession("web3", "sid2");
+    assertThat(sessions.takeLoggedOut("web1")).isFalse();
+
+    sessions.logout("sid1");
+
+    assertThat(sessions.takeLoggedOut("web1")).isTrue();
+    assertThat(sessions.takeLoggedOut("web1")).isFalse();
+    assertThat(sessions.takeLoggedOut("web2")).isTrue();
+    assertThat(sessions.takeLoggedOut("web3")).isFalse();
+    assertThat(sessions.takeLoggedOut("unknown")).isFalse();
+  }
+
+  @Test
+  public void logoutTokenIsAcceptedOnce() {
+    assertThat(sessions.addLogoutToken("jti1")).isTrue();
+    assertThat(sessions.addLogoutToken("jti2")).isTrue();
+    assertThat(sessions.addLogoutToken("jti1")).isFalse();
+  }
+}
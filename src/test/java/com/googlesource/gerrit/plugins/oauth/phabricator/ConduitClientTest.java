@@ -0,0 +1,53 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.phabricator;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import org.junit.Test;
+
+public class ConduitClientTest {
+  @Test
+  public void resultIsReturned() throws Exception {
+    JsonObject result =
+        ConduitClient.parseResult(
+            "user.whoami",
+            "{\"result\":{\"phid\":\"PHID-USER-1\",\"userName\":\"jdoe\"},"
+                + "\"error_code\":null,\"error_info\":null}");
+    assertThat(result.get("phid").getAsString()).isEqualTo("PHID-USER-1");
+  }
+
+  @Test
+  public void errorIsReported() {
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () ->
+                ConduitClient.parseResult(
+                    "user.whoami",
+                    "{\"result\":null,\"error_code\":\"ERR-INVALID-AUTH\","
+                        + "\"error_info\":\"Access token is invalid.\"}"));
+    assertThat(e).hasMessageThat().contains("ERR-INVALID-AUTH");
+  }
+
+  @Test
+  public void missingResultIsRejected() {
+    assertThrows(IOException.class, () -> ConduitClient.parseResult("user.whoami", "{}"));
+    assertThrows(IOException.class, () -> ConduitClient.parseResult("user.whoami", "[]"));
+  }
+}
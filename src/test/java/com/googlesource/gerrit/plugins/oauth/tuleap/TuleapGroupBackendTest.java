@@ -0,0 +1,65 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.gerrit.entities.AccountGroup;
+import com.google.gerrit.server.account.GroupMembership;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TuleapGroupBackendTest {
+  private static final AccountGroup.UUID PROJECT_101 = AccountGroup.uuid("tuleap:101");
+  private static final AccountGroup.UUID PROJECT_102 = AccountGroup.uuid("tuleap:102");
+
+  private TuleapGroupBackend backend;
+
+  @Before
+  public void setUp() {
+    backend = new TuleapGroupBackend(CacheBuilder.newBuilder().build());
+  }
+
+  @Test
+  public void groupIsNamedAfterProjectId() {
+    assertThat(backend.get(PROJECT_101).getName()).isEqualTo("tuleap/101");
+    assertThat(backend.handles(AccountGroup.uuid("ldap:cn=admins"))).isFalse();
+  }
+
+  @Test
+  public void membershipIsCheckedAgainstProjectIds() {
+    GroupMembership membership =
+        backend.membershipOf(TuleapProjects.copyOf(ImmutableIntArray.of(101, 5)));
+
+    assertThat(membership.contains(PROJECT_101)).isTrue();
+    assertThat(membership.contains(PROJECT_102)).isFalse();
+    assertThat(membership.contains(AccountGroup.uuid("tuleap:abc"))).isFalse();
+    assertThat(membership.contains(AccountGroup.uuid("ldap:101"))).isFalse();
+    assertThat(membership.containsAnyOf(ImmutableList.of(PROJECT_102, PROJECT_101))).isTrue();
+    assertThat(membership.intersection(ImmutableList.of(PROJECT_101, PROJECT_102)))
+        .containsExactly(PROJECT_101);
+    assertThat(membership.getKnownGroups())
+        .containsExactly(AccountGroup.uuid("tuleap:5"), PROJECT_101);
+  }
+
+  @Test
+  public void unknownUserHasNoGroups() {
+    assertThat(backend.getGroupIds("42")).isEmpty();
+    assertThat(backend.membershipOf(TuleapProjects.EMPTY)).isSameInstanceAs(GroupMembership.EMPTY);
+  }
+}
@@ -0,0 +1,36 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.primitives.ImmutableIntArray;
+import org.junit.Test;
+
+public class TuleapProjectsSerializerTest {
+  private final TuleapProjectsSerializer serializer = TuleapProjectsSerializer.INSTANCE;
+
+  @Test
+  public void roundTrip() {
+    TuleapProjects projects = TuleapProjects.copyOf(ImmutableIntArray.of(101, 3, 70000));
+    assertThat(serializer.deserialize(serializer.serialize(projects))).isEqualTo(projects);
+  }
+
+  @Test
+  public void roundTripEmpty() {
+    assertThat(serializer.deserialize(serializer.serialize(TuleapProjects.EMPTY)).size())
+        .isEqualTo(0);
+  }
+}
@@ -0,0 +1,90 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.oauth.tuleap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.primitives.ImmutableIntArray;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class TuleapProjectsTest {
+  @Test
+  public void pageIsReadIntoIds() throws Exception {
+    ImmutableIntArray.Builder ids = ImmutableIntArray.builder();
+    int count =
+        TuleapProjects.readPage(
+            new StringReader(
+                "[{\"id\":101,\"uri\":\"projects/101\",\"label\":\"Gerrit\","
+                    + "\"additional_informations\":{\"id\":7}},"
+                    + "{\"shortname\":\"no-id\"},"
+                    + "{\"id\":3,\"resources\":[{\"type\":\"git\"}]}]"),
+            ids);
+    assertThat(count).isEqualTo(3);
+
+    TuleapProjects projects = TuleapProjects.copyOf(ids.build());
+    assertThat(projects.stream().toArray()).asList().containsExactly(3, 101).inOrder();
+    assertThat(projects.contains(101)).isTrue();
+    assertThat(projects.contains(7)).isFalse();
+    assertThat(projects.contains(-1)).isFalse();
+  }
+
+  @Test
+  public void pagesAreAccumulated() throws Exception {
+    ImmutableIntArray.Builder ids = ImmutableIntArray.builder();
+    TuleapProjects.readPage(new StringReader("[{\"id\":1}]"), ids);
+    assertThat(TuleapProjects.readPage(new StringReader("[]"), ids)).isEqualTo(0);
+    TuleapProjects.readPage(new StringReader("[{\"id\":2},{\"id\":1}]"), ids);
+    assertThat(TuleapProjects.copyOf(ids.build()).size()).isEqualTo(2);
+  }
+
+  @Test
+  public void copyIsNotAffectedByLaterPages() throws Exception {
+    ImmutableIntArray.Builder ids = ImmutableIntArray.builder();
+    TuleapProjects.readPage(new StringReader("[{\"id\":1}]"), ids);
+    TuleapProjects projects = TuleapProjects.copyOf(ids.build());
+    ids.add(2);
+    assertThat(projects.contains(2)).isFalse();
+  }
+
+  @Test
+  public void largeIdsAreSupported() throws Exception {
+    ImmutableIntArray.Builder ids = ImmutableIntArray.builder();
+    TuleapProjects.readPage(new StringReader("[{\"id\":2147483647},{\"id\":5}]"), ids);
+    TuleapProjects projects = TuleapProjects.copyOf(ids.build());
+    assertThat(projects.contains(Integer.MAX_VALUE)).isTrue();
+    assertThat(projects.contains(5)).isTrue();
+    assertThat(projects.contains(6)).isFalse();
+  }
+
+  @Test
+  public void invalidPageIsRejected() {
+    assertThrows(
+        IOException.class,
+        () -> TuleapProjects.readPage(new StringReader("{}"), ImmutableIntArray.builder()));
+    assertThrows(
+        IOException.class,
+        () ->
+            TuleapProjects.readPage(
+                new StringReader("[{\"id\":-4}]"), ImmutableIntArray.builder()));
+    assertThrows(
+        IOException.class,
+        () ->
+            TuleapProjects.readPage(
+                new StringReader("[{\"id\":1.5}]"), ImmutableIntArray.builder()));
+  }
+}